@@ -0,0 +1,82 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-channel benchmarks of DTMFBatchDetector, one batch per operation; SampleCounter counts
+ * the samples of all channels. Whether the Vector API kernel is used depends on the fork's JVM,
+ * see GoertzelPlan; pass -Pjmh.args='-jvmArgsAppend -Dgoertzel.vector=false' to compare.
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DTMFBatchBenchmark {
+
+    @Param({"8000", "44100"})
+    public int sampleRate;
+
+    @Param({"256"})
+    public int blockSize;
+
+    @Param({"1", "8", "64", "256"})
+    public int channels;
+
+    @Param({"perChannel", "interleaved"})
+    public String layout;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private float[][] blocks;
+    private float[] interleaved;
+    private ForkJoinPool pool;
+    private DTMFBatchDetector batch;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        blocks = new float[channels][blockSize];
+        interleaved = new float[channels * blockSize];
+        for (int c = 0; c < channels; c++) {
+            for (int i = 0; i < blockSize; i++) {
+                blocks[c][i] = (float) (random.nextGaussian() * 0.3);
+                interleaved[i * channels + c] = blocks[c][i];
+            }
+        }
+        pool = new ForkJoinPool(parallelism);
+        batch = new DTMFBatchDetector(new DTMFGoertzel(sampleRate, 25.0D), channels, pool,
+                parallelism == 1 ? Integer.MAX_VALUE : DTMFBatchDetector.DEFAULT_GRAIN);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public DTMFGoertzel.Detection[] detect(SampleCounter counter) {
+        counter.samples += (long) channels * blockSize;
+        if (layout.equals("interleaved")) return batch.detectInterleaved(interleaved, 0, blockSize);
+        return batch.detect(blocks, 0, blockSize);
+    }
+}
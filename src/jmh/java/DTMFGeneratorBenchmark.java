@@ -0,0 +1,49 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of tone generation, one tone per operation; SampleCounter counts the samples
+ * generated.
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DTMFGeneratorBenchmark {
+
+    @Param({"8000", "11025", "22050", "44100"})
+    public int sampleRate;
+
+    @Param({"40", "100", "1000"})
+    public int msecs;
+
+    @Benchmark
+    public double[] generateCompositeTone(SampleCounter counter) {
+        double[] tone = DTMF.generateCompositeTone(sampleRate, msecs, 852D, 1336D);
+        counter.samples += tone.length;
+        return tone;
+    }
+
+    @Benchmark
+    public short[] generateTone(SampleCounter counter) {
+        short[] tone = DTMF.generateTone(sampleRate, '8', msecs);
+        counter.samples += tone.length;
+        return tone;
+    }
+}
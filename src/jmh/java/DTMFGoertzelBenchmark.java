@@ -0,0 +1,143 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single stream detector benchmarks, one block per operation, so the average time mode reports
+ * ns/block, and SampleCounter reports samples/sec in throughput mode.
+ * <p>
+ * The signal is a key (tone), white noise at -10 dBFS (noise) or digital silence (silence); the
+ * input is the representation the detector consumes: floats for DTMFGoertzel, 16 bit PCM for
+ * FixedPointDTMFGoertzel or G.711 mu-law codes.
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DTMFGoertzelBenchmark {
+
+    @Param({"8000", "11025", "22050", "44100"})
+    public int sampleRate;
+
+    @Param({"205", "256", "512"})
+    public int blockSize;
+
+    @Param({"tone", "noise", "silence"})
+    public String signal;
+
+    @Param({"float", "pcm16", "mulaw"})
+    public String input;
+
+    private float[] floats;
+    private double[] doubles;
+    private short[] pcm;
+    private byte[] mulaw;
+
+    private DTMFGoertzel detector, gated;
+    private FixedPointDTMFGoertzel fixedPoint;
+    private StreamingDTMFGoertzel streaming;
+    private SlidingDTMFGoertzel sliding;
+    private final DTMFGoertzel.Detection detection = new DTMFGoertzel.Detection();
+    private final FixedPointDTMFGoertzel.Result result = new FixedPointDTMFGoertzel.Result();
+    private int keys;
+
+    @Setup
+    public void setUp() {
+        floats = new float[blockSize];
+        if (signal.equals("tone")) {
+            double[] tone = DTMF.generateCompositeTone(sampleRate, 1000, 852D, 1336D);
+            for (int i = 0; i < blockSize; i++) floats[i] = (float) tone[i];
+        } else if (signal.equals("noise")) {
+            Random random = new Random(42);
+            for (int i = 0; i < blockSize; i++) floats[i] = (float) (random.nextGaussian() * Math.sqrt(0.1));
+        }
+
+        doubles = new double[blockSize];
+        pcm = new short[blockSize];
+        mulaw = new byte[blockSize];
+        for (int i = 0; i < blockSize; i++) {
+            doubles[i] = floats[i];
+            pcm[i] = (short) Math.max(-32768, Math.min(32767, Math.round(floats[i] * 32767.0D)));
+            mulaw[i] = G711.MU_LAW.encode(pcm[i]);
+        }
+
+        detector = new DTMFGoertzel(sampleRate, 25.0D);
+        gated = detector.withEnergyGate(0);
+        fixedPoint = new FixedPointDTMFGoertzel(sampleRate, 25.0D);
+        streaming = new StreamingDTMFGoertzel(detector, blockSize, (offset, d) -> keys += d.getHits());
+        sliding = new SlidingDTMFGoertzel(detector, blockSize, blockSize / 8, (offset, d) -> keys += d.getHits());
+    }
+
+    /**
+     * The allocation free keyFilter(...) for the input type.
+     */
+    @Benchmark
+    public boolean keyFilter(SampleCounter counter) {
+        counter.samples += blockSize;
+        switch (input) {
+            case "pcm16":
+                return fixedPoint.keyFilter(pcm, 0, blockSize, result);
+            case "mulaw":
+                return detector.keyFilter(mulaw, 0, blockSize, G711.MU_LAW, detection);
+            default:
+                return detector.keyFilter(floats, 0, blockSize, detection);
+        }
+    }
+
+    /**
+     * As keyFilter, behind an energy gate with a 0 dB margin; only the float and mulaw inputs
+     * are gated.
+     */
+    @Benchmark
+    public boolean keyFilterGated(SampleCounter counter) {
+        counter.samples += blockSize;
+        if (input.equals("mulaw")) return gated.keyFilter(mulaw, 0, blockSize, G711.MU_LAW, detection);
+        return gated.keyFilter(floats, 0, blockSize, detection);
+    }
+
+    /**
+     * The original keyFilter(double[]) returning a sorted list, as used by process(...).
+     */
+    @Benchmark
+    public ArrayList<DTMFGoertzel.PowerLevel> keyFilterList(SampleCounter counter) {
+        counter.samples += blockSize;
+        return detector.keyFilter(doubles);
+    }
+
+    @Benchmark
+    public int streaming(SampleCounter counter) {
+        counter.samples += blockSize;
+        if (input.equals("mulaw")) streaming.push(mulaw, 0, blockSize, G711.MU_LAW);
+        else streaming.push(floats, 0, blockSize);
+        return keys;
+    }
+
+    /**
+     * Sliding window of blockSize samples, reporting every blockSize / 8 samples.
+     */
+    @Benchmark
+    public int sliding(SampleCounter counter) {
+        counter.samples += blockSize;
+        if (input.equals("mulaw")) sliding.push(mulaw, 0, blockSize, G711.MU_LAW);
+        else sliding.push(floats, 0, blockSize);
+        return keys;
+    }
+}
@@ -0,0 +1,78 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming detection of one chunk of input per operation, with and without the decimating
+ * front-end, and the PolyphaseDecimator alone. SampleCounter counts input samples, so that
+ * throughput results compare directly across sample rates.
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecimatorBenchmark {
+
+    @Param({"8000", "22050", "44100", "48000", "96000"})
+    public int sampleRate;
+
+    @Param({"4096"})
+    public int chunkSize;
+
+    private float[] chunk, decimated;
+    private PolyphaseDecimator decimator;
+    private DecimatingDTMFGoertzel decimating;
+    private StreamingDTMFGoertzel plain;
+    private int blocks;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        chunk = new float[chunkSize];
+        for (int i = 0; i < chunkSize; i++) chunk[i] = (float) (random.nextGaussian() * 0.3);
+        int blockSize = (int) Math.round(sampleRate * 0.032); // 256 samples at 8 kHz
+        decimator = PolyphaseDecimator.forDTMF(sampleRate, 1);
+        decimated = new float[decimator.getMaxOutput(chunkSize)];
+        decimating = new DecimatingDTMFGoertzel(sampleRate, 25.0D, blockSize, (offset, detection) -> blocks++);
+        plain = new StreamingDTMFGoertzel(new DTMFGoertzel(GoertzelPlan.dtmf(sampleRate), 25.0D),
+                blockSize, (offset, detection) -> blocks++);
+    }
+
+    @Benchmark
+    public int decimating(SampleCounter counter) {
+        counter.samples += chunkSize;
+        decimating.push(chunk, 0, chunkSize);
+        return blocks;
+    }
+
+    @Benchmark
+    public int plain(SampleCounter counter) {
+        counter.samples += chunkSize;
+        plain.push(chunk, 0, chunkSize);
+        return blocks;
+    }
+
+    @Benchmark
+    public float[] decimatorOnly(SampleCounter counter) {
+        counter.samples += chunkSize;
+        decimator.process(chunk, 0, chunkSize, decimated, 0);
+        return decimated;
+    }
+}
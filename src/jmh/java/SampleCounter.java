@@ -0,0 +1,25 @@
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary JMH counter, counting the samples analyzed alongside the blocks (or batches) of the
+ * primary result, so that throughput runs report samples per second directly.
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class SampleCounter {
+
+    public long samples;
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        samples = 0;
+    }
+}
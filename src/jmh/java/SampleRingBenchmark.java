@@ -0,0 +1,89 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handoff of 20 ms packets at 8 kHz from an ingest thread to a detector thread: through a
+ * SampleRing, read in place, against a copy of every packet passed through an
+ * ArrayBlockingQueue, as RtpIngestServer did before. Each group runs one producer and one
+ * consumer, so results need two free cores to mean anything; run with -prof gc to compare the
+ * allocation per packet.
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SampleRingBenchmark {
+
+    static final int PACKET = 160;
+
+    @Param({"SPIN", "PARK"})
+    public SampleRing.WaitStrategy wait;
+
+    private final float[] packet = new float[PACKET];
+    private SampleRing ring;
+    private BlockingQueue<float[]> queue;
+    private StreamingDTMFGoertzel ringDetector, queueDetector;
+    private int blocks;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < PACKET; i++) packet[i] = (float) Math.sin(i * 0.3);
+        ring = new SampleRing(64 * PACKET, wait);
+        queue = new ArrayBlockingQueue<>(64);
+        DTMFGoertzel detector = new DTMFGoertzel(8000, 25.0D);
+        ringDetector = new StreamingDTMFGoertzel(detector, 256, (offset, detection) -> blocks++);
+        queueDetector = new StreamingDTMFGoertzel(detector, 256, (offset, detection) -> blocks++);
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(1)
+    public boolean ringProducer() {
+        return ring.offer(packet, 0, PACKET);
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(1)
+    public int ringConsumer() {
+        return ring.drainTo(ringDetector, PACKET);
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(1)
+    public boolean queueProducer() {
+        return queue.offer(packet.clone());
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(1)
+    public int queueConsumer() {
+        float[] chunk = queue.poll();
+        if (chunk == null) return 0;
+        queueDetector.push(chunk);
+        return chunk.length;
+    }
+}
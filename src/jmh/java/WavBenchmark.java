@@ -0,0 +1,72 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of reading the test recordings into floats, one file per operation: AudioWav (the
+ * test harness reader), the memory-mapped WavFile and the streaming WavDecoder. SampleCounter
+ * counts the samples read.
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WavBenchmark {
+
+    @Param({"dtmf-1-2-#.wav", "dtmf-8000-16-mono-key-1-8000samples.wav"})
+    public String file;
+
+    private Path path;
+    private final float[] block = new float[DTMFGoertzel.DEFAULT_BLOCK_SIZE];
+
+    @Setup
+    public void setUp() throws URISyntaxException {
+        path = Paths.get(WavBenchmark.class.getClassLoader().getResource(file).toURI());
+    }
+
+    @Benchmark
+    public double[] audioWav(SampleCounter counter) {
+        double[] samples = new AudioWav(file).getSamples();
+        counter.samples += samples.length;
+        return samples;
+    }
+
+    @Benchmark
+    public float[] wavFile(SampleCounter counter) throws IOException {
+        try (WavFile wav = WavFile.open(path)) {
+            float[] samples = wav.readAll();
+            counter.samples += samples.length;
+            return samples;
+        }
+    }
+
+    @Benchmark
+    public long wavDecoder(SampleCounter counter) throws IOException {
+        long total = 0;
+        try (WavDecoder decoder = WavDecoder.open(path)) {
+            for (int n; (n = decoder.read(block, 0, block.length)) > 0; ) total += n;
+        }
+        counter.samples += total;
+        return total;
+    }
+}
@@ -0,0 +1,466 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Batch scanner for archives of WAVE recordings, which writes every key press of every file as a
+ * JSON line or a CSV record, e.g. for a nightly compliance scan.
+ * <p>
+ * Reading and analysis are pipelined: a few reader threads open the files and decode them into
+ * memory, while the files already decoded are analyzed on a work-stealing ForkJoinPool, so disk
+ * I/O and the resonators overlap. The samples held in memory are bounded by a prefetch budget:
+ * readers wait for analysis to release samples before decoding more, so a slow pool throttles
+ * reading and a slow disk leaves the pool idle, never the reverse. A file larger than the budget,
+ * e.g. a long call recording, is not held at all: its reader decodes and analyzes it a chunk of
+ * at most STREAM_FRAMES frames at a time, so memory stays bounded whatever the length of files.
+ * <p>
+ * Every channel of a file is analyzed on its own, by a DecimatingDTMFGoertzel with 32 ms blocks
+ * at the file's sample rate, and a KeyTracker turns the blocks into presses. The decimator keeps
+ * the levels of the undecimated blocks, but these levels grow with the number of samples in a
+ * block, while the threshold was tuned on blocks of DEFAULT_BLOCK_SIZE samples; it is therefore
+ * raised by 20 log10 of the ratio of the two, e.g. 8.8 dB for the 706 samples of 32 ms at
+ * 22.05 kHz. The records of a file are written together, in the order files complete, which is
+ * not the order they were listed in. A file which cannot be
+ * read is counted as failed, reported on System.err, and does not stop the scan. Optionally, the
+ * presses are also added to a DetectionIndexWriter, so that later queries need not scan again,
+ * and looked up in a DetectionCache by the content of the file, so that files scanned before
+ * cost only their decoding and a hash; files larger than the budget bypass the cache, as their
+ * key would need all their samples at once.
+ * <p>
+ * @see DecimatingDTMFGoertzel
+ * @see KeyTracker
+ * @see DetectionIndex
+ * @see DetectionCache
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class ArchiveScanner {
+
+    public enum Format { JSONL, CSV }
+
+    public static final String CSV_HEADER = "file,channel,key,onset_sample,offset_sample,sample_rate,row_db,column_db";
+
+    static final int DEFAULT_READERS = 2;
+    static final int DEFAULT_PREFETCH = 1 << 26;  // samples decoded ahead of analysis, 256 MB of floats
+    static final int STREAM_FRAMES = 1 << 16;     // frames per chunk of a file larger than the budget
+    static final double BLOCK_SECONDS = DTMFGoertzel.DEFAULT_BLOCK_SIZE / 8000D;
+
+    private final ForkJoinPool pool;
+    private final double powerThreshold;
+    private final Format format;
+    private int readers = DEFAULT_READERS;
+    private int prefetch = DEFAULT_PREFETCH;
+    private DetectionIndexWriter index;
+    private DetectionCache cache;
+
+    /**
+     * Class constructor specifying the pool, the minimum detection threshold and output format.
+     *
+     * @param pool pool analyzing the decoded files
+     * @param powerThreshold Minimum level needed to accept, in dB
+     * @param format format of the records written
+     */
+    public ArchiveScanner(ForkJoinPool pool, double powerThreshold, Format format) {
+        this.pool = pool;
+        this.powerThreshold = powerThreshold;
+        this.format = format;
+    }
+
+    private ArchiveScanner copy() {
+        ArchiveScanner copy = new ArchiveScanner(pool, powerThreshold, format);
+        copy.readers = readers;
+        copy.prefetch = prefetch;
+        copy.index = index;
+        copy.cache = cache;
+        return copy;
+    }
+
+    /**
+     * @param readers number of threads opening and decoding files
+     * @return copy of this scanner
+     */
+    public ArchiveScanner withReaders(int readers) {
+        if (readers <= 0) throw new IllegalArgumentException("readers must be positive: " + readers);
+        ArchiveScanner copy = copy();
+        copy.readers = readers;
+        return copy;
+    }
+
+    /**
+     * @param samples bound on the samples decoded but not yet analyzed, over all files
+     * @return copy of this scanner
+     */
+    public ArchiveScanner withPrefetch(int samples) {
+        if (samples <= 0) throw new IllegalArgumentException("prefetch must be positive: " + samples);
+        ArchiveScanner copy = copy();
+        copy.prefetch = samples;
+        return copy;
+    }
+
+    /**
+     * @param index receives the presses of every file analyzed, for later queries; null for none
+     * @return copy of this scanner
+     */
+    public ArchiveScanner withIndex(DetectionIndexWriter index) {
+        ArchiveScanner copy = copy();
+        copy.index = index;
+        return copy;
+    }
+
+    /**
+     * @param cache results of files analyzed before, looked up by content before analyzing a file
+     *              and updated after; null for none
+     * @return copy of this scanner
+     */
+    public ArchiveScanner withCache(DetectionCache cache) {
+        ArchiveScanner copy = copy();
+        copy.cache = cache;
+        return copy;
+    }
+
+    /**
+     * Method expands a command line argument into WAVE files: a file as it is, a directory into
+     * every .wav file below it, and a glob such as archive/2026-*&#47;*.wav into every file it
+     * matches. Files are listed lazily, so that scanning starts before a large tree is walked.
+     *
+     * @param pathOrGlob file, directory or glob
+     * @return the files, to be closed after use
+     * @throws IOException if a directory cannot be listed
+     */
+    public static Stream<Path> expand(String pathOrGlob) throws IOException {
+        int wildcard = firstWildcard(pathOrGlob);
+        if (wildcard < 0) {
+            Path path = Paths.get(pathOrGlob);
+            if (!Files.isDirectory(path)) return Stream.of(path);
+            return Files.walk(path).filter(ArchiveScanner::isWav);
+        }
+        // walk the directory in front of the first wildcard, matching paths against the glob
+        int slash = Math.max(pathOrGlob.lastIndexOf('/', wildcard), pathOrGlob.lastIndexOf('\\', wildcard));
+        Path base = Paths.get(slash < 0 ? "." : slash == 0 ? "/" : pathOrGlob.substring(0, slash));
+        String pattern = slash < 0 ? pathOrGlob : pathOrGlob.substring(slash + 1);
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        if (!Files.isDirectory(base)) return Stream.empty();
+        return Files.walk(base).filter(Files::isRegularFile).filter(p -> matcher.matches(base.relativize(p)));
+    }
+
+    private static int firstWildcard(String s) {
+        for (int i = 0; i < s.length(); i++) if ("*?[{".indexOf(s.charAt(i)) >= 0) return i;
+        return -1;
+    }
+
+    private static boolean isWav(Path path) {
+        return Files.isRegularFile(path) && path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".wav");
+    }
+
+    /**
+     * Method scans files, writing one record per key press to out, preceded by CSV_HEADER in
+     * CSV format. It returns once every file has been analyzed and written.
+     *
+     * @param files files to scan
+     * @param out receives the records
+     * @return throughput and counts of the scan
+     * @throws IOException if out cannot be written
+     * @throws InterruptedException if interrupted while waiting for the scan
+     */
+    public Summary scan(Iterator<Path> files, Writer out) throws IOException, InterruptedException {
+        Scan scan = new Scan(out);
+        if (format == Format.CSV) out.write(CSV_HEADER + '\n');
+        // files between listing and written output; bounds the queue of the readers
+        Semaphore inFlight = new Semaphore(2 * (readers + pool.getParallelism()));
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService reading = Executors.newFixedThreadPool(readers, runnable -> {
+            Thread thread = new Thread(runnable, "scan-reader-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            while (files.hasNext() && scan.error.get() == null) {
+                Path file = files.next();
+                inFlight.acquire();
+                scan.pending.register();
+                reading.execute(() -> scan.read(file, inFlight));
+            }
+            scan.pending.arriveAndAwaitAdvance();
+        } finally {
+            reading.shutdownNow();
+        }
+        out.flush();
+        if (scan.error.get() != null) throw scan.error.get();
+        return new Summary(System.nanoTime() - scan.start, scan.files.sum(), scan.failed.sum(),
+                scan.presses.sum(), scan.frames.sum(), scan.audioNanos.sum());
+    }
+
+    // state of one call of scan(...)
+    private final class Scan {
+
+        final long start = System.nanoTime();
+        final Writer out;
+        final Semaphore budget = new Semaphore(prefetch);
+        final Phaser pending = new Phaser(1);            // files not yet written, and the caller
+        final AtomicReference<IOException> error = new AtomicReference<>();
+        final LongAdder files = new LongAdder(), failed = new LongAdder(), presses = new LongAdder(),
+                frames = new LongAdder(), audioNanos = new LongAdder();
+
+        Scan(Writer out) {
+            this.out = out;
+        }
+
+        // on a reader thread: decode a file and hand it to the pool, or stream it if too large
+        void read(Path file, Semaphore inFlight) {
+            int permits = 0;
+            try {
+                int sampleRate, length = 0;
+                float[][] samples;
+                try (WavDecoder decoder = WavDecoder.open(file)) {
+                    WavFormat wav = decoder.getFormat();
+                    long frames = wav.getFrameCount();
+                    if (wav.getSampleRate() <= 0) throw new IOException("Unsupported sample rate: " + wav);
+                    sampleRate = wav.getSampleRate();
+                    if (frames * wav.getChannels() > prefetch) {
+                        int chunk = Math.max(1, Math.min(STREAM_FRAMES, prefetch / wav.getChannels()));
+                        int needed = Math.min(prefetch, chunk * wav.getChannels());
+                        budget.acquire(needed);
+                        permits = needed;
+                        stream(file, decoder, chunk);
+                        done(permits, inFlight);
+                        return;
+                    }
+                    int needed = (int) Math.max(1, frames * wav.getChannels());
+                    budget.acquire(needed);
+                    permits = needed;
+                    samples = new float[wav.getChannels()][(int) frames];
+                    for (int r; length < frames && (r = decoder.read(samples, length, (int) frames - length)) > 0; )
+                        length += r;
+                }
+                int held = permits, decoded = length;
+                pool.execute(() -> {
+                    try {
+                        analyze(file, sampleRate, samples, decoded);
+                    } catch (RuntimeException e) {
+                        failed.increment();
+                        System.err.println(file + ": " + e);
+                    } finally {
+                        done(held, inFlight);
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                failed.increment();
+                System.err.println(file + ": " + e);
+                done(permits, inFlight);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                done(permits, inFlight);
+            }
+        }
+
+        void done(int permits, Semaphore inFlight) {
+            budget.release(permits);
+            inFlight.release();
+            pending.arriveAndDeregister();
+        }
+
+        // on a reader thread: decode and analyze a file too large for the budget, chunk by chunk
+        void stream(Path file, WavDecoder decoder, int chunk) throws IOException {
+            int sampleRate = decoder.getFormat().getSampleRate();
+            float[][] samples = new float[decoder.getFormat().getChannels()][chunk];
+            Detectors detectors = new Detectors(sampleRate, samples.length);
+            long length = 0;
+            for (int r; (r = decoder.read(samples, 0, chunk)) > 0; length += r) detectors.push(samples, r);
+            record(file, sampleRate, detectors.finish(), length);
+        }
+
+        // on the pool: detect the presses of every channel, unless cached, and write them
+        void analyze(Path file, int sampleRate, float[][] samples, int length) {
+            DetectionCache.Key key = cache == null ? null
+                    : DetectionCache.key(samples, length, sampleRate, threshold(sampleRate), blockSize(sampleRate));
+            List<DetectionIndex.Press> found;
+            try {
+                found = key == null ? null : cache.get(key);
+                if (found == null) {
+                    Detectors detectors = new Detectors(sampleRate, samples.length);
+                    detectors.push(samples, length);
+                    found = detectors.finish();
+                    if (key != null) cache.put(key, found);
+                }
+            } catch (IOException e) {
+                error.compareAndSet(null, e);
+                return;
+            }
+            record(file, sampleRate, found, length);
+        }
+
+        // counts a file analyzed, and writes its presses
+        void record(Path file, int sampleRate, List<DetectionIndex.Press> found, long length) {
+            files.increment();
+            presses.add(found.size());
+            frames.add(length);
+            audioNanos.add(Math.round(length * 1e9 / sampleRate));
+            try {
+                StringBuilder records = new StringBuilder();
+                for (DetectionIndex.Press press : found) append(records, file, press, sampleRate);
+                if (index != null) index.add(file.toString(), found);
+                if (records.length() == 0) return;
+                synchronized (out) {
+                    out.write(records.toString());
+                }
+            } catch (IOException e) {
+                error.compareAndSet(null, e);
+            }
+        }
+    }
+
+    private static int blockSize(int sampleRate) {
+        return (int) Math.round(sampleRate * BLOCK_SECONDS);
+    }
+
+    // levels grow with the block length, and the threshold was tuned on DEFAULT_BLOCK_SIZE samples
+    private double threshold(int sampleRate) {
+        return powerThreshold + 20 * Math.log10(blockSize(sampleRate) / (double) DTMFGoertzel.DEFAULT_BLOCK_SIZE);
+    }
+
+    // the detector and key tracker of every channel of a file, collecting its presses
+    private final class Detectors {
+
+        private final DecimatingDTMFGoertzel[] detectors;
+        private final KeyTracker[] trackers;
+        private final List<DetectionIndex.Press> found = new ArrayList<>();
+
+        Detectors(int sampleRate, int channels) {
+            int blockSize = blockSize(sampleRate);
+            double threshold = threshold(sampleRate);
+            detectors = new DecimatingDTMFGoertzel[channels];
+            trackers = new KeyTracker[channels];
+            for (int c = 0; c < channels; c++) {
+                int channel = c;
+                KeyEvent[] down = new KeyEvent[1];
+                KeyTracker tracker = new KeyTracker(event -> {
+                    if (event.getType() == KeyEvent.Type.DOWN) {
+                        down[0] = event;
+                        return;
+                    }
+                    found.add(new DetectionIndex.Press(channel, down[0].getDtmf(), down[0].getSampleOffset(),
+                            event.getSampleOffset(), down[0].getRowPower(), down[0].getColumnPower()));
+                });
+                trackers[c] = tracker;
+                detectors[c] = new DecimatingDTMFGoertzel(sampleRate, threshold, blockSize,
+                        (offset, detection) -> tracker.update(offset, blockSize, detection));
+            }
+        }
+
+        void push(float[][] samples, int length) {
+            for (int c = 0; c < detectors.length; c++) detectors[c].push(samples[c], 0, length);
+        }
+
+        // presses by channel, then onset, whether the file came whole or in chunks
+        List<DetectionIndex.Press> finish() {
+            for (KeyTracker tracker : trackers) tracker.finish();
+            found.sort(Comparator.comparingInt(DetectionIndex.Press::getChannel));
+            return found;
+        }
+    }
+
+    private void append(StringBuilder records, Path file, DetectionIndex.Press press, int sampleRate) {
+        String name = file.toString();
+        if (format == Format.CSV) {
+            boolean quote = name.indexOf(',') >= 0 || name.indexOf('"') >= 0 || name.indexOf('\n') >= 0;
+            records.append(quote ? '"' + name.replace("\"", "\"\"") + '"' : name)
+                    .append(',').append(press.getChannel()).append(',').append(press.getKey())
+                    .append(',').append(press.getOnset()).append(',').append(press.getOffset())
+                    .append(',').append(sampleRate)
+                    .append(',').append(String.format(Locale.ROOT, "%.1f,%.1f", press.getRowPower(), press.getColumnPower()))
+                    .append('\n');
+            return;
+        }
+        records.append("{\"file\":\"");
+        for (int i = 0; i < name.length(); i++) {
+            char ch = name.charAt(i);
+            if (ch == '"' || ch == '\\') records.append('\\').append(ch);
+            else if (ch < 0x20) records.append(String.format("\\u%04x", (int) ch));
+            else records.append(ch);
+        }
+        records.append("\",\"channel\":").append(press.getChannel()).append(",\"key\":\"").append(press.getKey())
+                .append("\",\"onset_sample\":").append(press.getOnset())
+                .append(",\"offset_sample\":").append(press.getOffset())
+                .append(",\"sample_rate\":").append(sampleRate)
+                .append(String.format(Locale.ROOT, ",\"row_db\":%.1f,\"column_db\":%.1f}", press.getRowPower(), press.getColumnPower()))
+                .append('\n');
+    }
+
+    /**
+     * Counts and throughput of one scan.
+     */
+    public static final class Summary {
+
+        private final long elapsedNanos, files, failed, presses, frames, audioNanos;
+
+        Summary(long elapsedNanos, long files, long failed, long presses, long frames, long audioNanos) {
+            this.elapsedNanos = elapsedNanos;
+            this.files = files;
+            this.failed = failed;
+            this.presses = presses;
+            this.frames = frames;
+            this.audioNanos = audioNanos;
+        }
+
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /**
+         * @return number of files analyzed
+         */
+        public long getFiles() { return files; }
+
+        /**
+         * @return number of files which could not be read
+         */
+        public long getFailed() { return failed; }
+        public long getPresses() { return presses; }
+
+        /**
+         * @return number of frames analyzed, over all files
+         */
+        public long getFrames() { return frames; }
+
+        /**
+         * @return duration of the audio analyzed, in seconds
+         */
+        public double getAudioSeconds() { return audioNanos / 1e9; }
+
+        public double getFilesPerSecond() {
+            return elapsedNanos == 0 ? 0 : files * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return hours of audio analyzed per second of elapsed time
+         */
+        public double getAudioHoursPerSecond() {
+            return elapsedNanos == 0 ? 0 : (double) audioNanos / elapsedNanos / 3600;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d files (%d failed), %d presses, %.2f h of audio in %.2f s: "
+                            + "%.1f files/s, %.3f audio h/s", files, failed, presses, getAudioSeconds() / 3600,
+                    elapsedNanos / 1e9, getFilesPerSecond(), getAudioHoursPerSecond());
+        }
+    }
+}
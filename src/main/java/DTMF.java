@@ -18,7 +18,19 @@ public class DTMF {
 		return TONE_MAP;
 	}
 
+	/**
+	 * Direct lookup of a key by its placement on the touchpad, without scanning the tone map.
+	 *
+	 * @param row index into ROW_FREQUENCIES
+	 * @param col index into COL_FREQUENCIES
+	 * @return the DTMF key at that placement
+	 */
+	public static DTMF getTone(int row, int col) {
+		return TONE_GRID[row][col];
+	}
+
 	private static final Map<Character, DTMF> TONE_MAP;
+	private static final DTMF[][] TONE_GRID;
 
 	public static final Double[] ROW_FREQUENCIES = {697D, 770D, 852D, 941D};
 	public static final Double[] COL_FREQUENCIES = {1209D, 1336D, 1477D, 1633D};
@@ -50,6 +62,9 @@ public class DTMF {
 		TONE_MAP.put('#', new DTMF('#', 3, 2));
 		TONE_MAP.put('D', new DTMF('D', 3, 3));
 
+		TONE_GRID = new DTMF[ROW_FREQUENCIES.length][COL_FREQUENCIES.length];
+		for (DTMF dtmf : TONE_MAP.values())
+			TONE_GRID[dtmf.placement[0]][dtmf.placement[1]] = dtmf;
 	}
 
 	public DTMF(char key, int row, int col) {
@@ -62,50 +77,27 @@ public class DTMF {
 	public static short[] generateTone(int sampleRate, char c , int t) {
 		DTMF dtmf = TONE_MAP.get(c);
 		double[] f = Objects.requireNonNull(dtmf).getFrequencies();
-		double [] resultD = generateCompositeTone(sampleRate, t,  f[0], f[1]);
-		short[] resultS = new short[resultD.length]; /* convert double [] to short [] */
-
-		for (int i = 0; i < resultD.length; i++)
-			resultS[i] = (short)(Math.round(resultD[i]*32767.0D));
-		return resultS;
+		short[] result = new short[(int) (t / 1000D * sampleRate)];
+		new ToneSynthesizer(sampleRate, 1.0D, f).generate(result, 0, result.length);
+		return result;
 	}
 
+	/**
+	 * Generates the sum of sine tones, each scaled by 1 / frequencies.length, in a single pass
+	 * of a ToneSynthesizer. Longer or open ended signals are better produced with a
+	 * ToneSynthesizer directly, chunk by chunk.
+	 *
+	 * @param sampleRate the sampling rate of the generated waveform, in Hz
+	 * @param msecs duration, in milliseconds
+	 * @param frequencies frequencies to sum, in Hz
+	 * @return the waveform, in range from -1 .. 1
+	 */
 	public static double[] generateCompositeTone(final float sampleRate, int msecs, double... frequencies) {
-		final double scale = 1.0D / frequencies.length;
-		return multiplyTones(generateToneSum(sampleRate, msecs, frequencies),  scale);
-	}
-
-	// take any number of frequencies, generate sin waves and add them together
-	private static double[] generateToneSum(final float sampleRate, int msecs, double... frequencies) {
-
 		double[] buffer = new double[(int) (msecs / 1000D * sampleRate)];
-
-		if (frequencies.length == 0) return buffer; //base case
-
-		for (int sample = 0; sample < buffer.length; sample++) // get signal for the last element in frequencies
-			buffer[sample] = Math.sin(2 * Math.PI * frequencies[frequencies.length-1] * sample / sampleRate);
-
-		// call simpler case, recursively
-		double[] rest = generateToneSum(sampleRate, msecs, Arrays.copyOfRange(frequencies, 0, frequencies.length - 1));
-		buffer = addTones(buffer, rest);
-
+		new ToneSynthesizer(sampleRate, 1.0D, frequencies).generate(buffer, 0, buffer.length);
 		return buffer;
 	}
 
-	private static double[] addTones(double[] tones1, double[] tones2) {
-		double[] result = new double[tones1.length];
-		for (int i = 0; i < tones2.length; i++)
-			result[i] = tones1[i] + tones2[i]; // aggregate results
-		return result;
-	}
-
-	private static double[] multiplyTones(double[] tones, double factor) {
-		double[] result = new double[tones.length];
-		for (int i = 0; i < tones.length; i++)
-			result[i] = tones[i] * factor;
-		return result;
-	}
-
 	@Override
 	public boolean equals(Object other) {
 		if (this == other) return true;
@@ -0,0 +1,202 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multi-channel batch engine which analyzes one block of every channel in a single call, e.g.
+ * one block of every call leg handled by a media server.
+ * <p>
+ * Resonator state for all channels lives in one channel-major primitive array, stateSize()
+ * doubles per channel, and results are written into one reused Detection per channel, so a
+ * steady stream of batches produces no per-channel garbage. Channels are independent of each
+ * other, so a batch is split into ranges of channels which are analyzed in parallel on a
+ * ForkJoinPool; small batches are analyzed on the calling thread.
+ * <p>
+ * Blocks may be supplied either as one array per channel, float[channels][block], or as a single
+ * interleaved array holding frame after frame, as produced by multi-channel audio devices.
+ * Channels whose block is too quiet for the detector's energy gate, if any, skip the resonators.
+ * If the detector has metrics, every channel's block is recorded as one block.
+ * <p>
+ * An engine is not thread safe: one batch is analyzed at a time, and the returned detections are
+ * overwritten by the next batch.
+ * <p>
+ * @see DTMFGoertzel
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class DTMFBatchDetector {
+
+    static final int DEFAULT_GRAIN = 32; // channels per task, below which a batch is not split
+
+    private final DTMFGoertzel detector;
+    private final GoertzelPlan plan;
+    private final int channels, grain, stateSize;
+    private final ForkJoinPool pool;
+
+    private final double[] state; // channel-major: stateSize doubles per channel
+    private final DTMFGoertzel.Detection[] detections;
+
+    /**
+     * Class constructor specifying detector and channel count, running on the common pool.
+     *
+     * @param detector detector providing plan and power threshold
+     * @param channels number of channels in every batch
+     */
+    public DTMFBatchDetector(DTMFGoertzel detector, int channels) {
+        this(detector, channels, ForkJoinPool.commonPool(), DEFAULT_GRAIN);
+    }
+
+    /**
+     * Class constructor specifying detector, channel count and the pool to spread the work over.
+     *
+     * @param detector detector providing plan and power threshold
+     * @param channels number of channels in every batch
+     * @param pool pool used to analyze ranges of channels in parallel
+     * @param grain number of channels below which a range is analyzed without further splitting
+     */
+    public DTMFBatchDetector(DTMFGoertzel detector, int channels, ForkJoinPool pool, int grain) {
+        if (channels <= 0) throw new IllegalArgumentException("channels must be positive: " + channels);
+        if (grain <= 0) throw new IllegalArgumentException("grain must be positive: " + grain);
+        this.detector = detector;
+        this.plan = detector.getPlan();
+        this.channels = channels;
+        this.pool = pool;
+        this.grain = grain;
+        this.stateSize = plan.stateSize();
+
+        state = new double[channels * stateSize];
+        detections = new DTMFGoertzel.Detection[channels];
+        for (int c = 0; c < channels; c++) detections[c] = new DTMFGoertzel.Detection();
+    }
+
+    /**
+     * Convenience method to analyze entire per-channel blocks.
+     *
+     * @param blocks one block of waveform data per channel, provided in range from -1 .. 1
+     * @return one detection per channel, reused by the next batch
+     */
+    public DTMFGoertzel.Detection[] detect(float[][] blocks) {
+        return detect(blocks, 0, blocks[0].length);
+    }
+
+    /**
+     * Method analyzes blocks[c][off .. off+len) for every channel c.
+     *
+     * @param blocks one block of waveform data per channel, provided in range from -1 .. 1
+     * @param off index of the first sample to analyze in every channel
+     * @param len number of samples to analyze in every channel
+     * @return one detection per channel, reused by the next batch
+     */
+    public DTMFGoertzel.Detection[] detect(float[][] blocks, int off, int len) {
+        if (blocks.length != channels)
+            throw new IllegalArgumentException("expected " + channels + " channels, got " + blocks.length);
+        run(new Batch(blocks, null, off, len));
+        return detections;
+    }
+
+    /**
+     * Method analyzes one block of interleaved multi-channel data, i.e. frames of one sample per
+     * channel stored one after another.
+     *
+     * @param samples interleaved waveform data, provided in range from -1 .. 1
+     * @param off index of the first sample of the first frame
+     * @param frames number of frames, i.e. samples per channel, to analyze
+     * @return one detection per channel, reused by the next batch
+     */
+    public DTMFGoertzel.Detection[] detectInterleaved(float[] samples, int off, int frames) {
+        if (off < 0 || frames < 0 || off + (long) frames * channels > samples.length)
+            throw new IndexOutOfBoundsException("off=" + off + ", frames=" + frames + ", length=" + samples.length);
+        run(new Batch(null, samples, off, frames));
+        return detections;
+    }
+
+    public int getChannels() { return channels; }
+    public DTMFGoertzel.Detection getDetection(int channel) { return detections[channel]; }
+
+    private void run(Batch batch) {
+        if (channels <= grain) batch.analyze(0, channels);
+        else pool.invoke(new Range(batch, 0, channels));
+    }
+
+    // the input of one call to detect(...), analyzed one range of channels at a time
+    private final class Batch {
+
+        private final float[][] blocks;
+        private final float[] interleaved;
+        private final int off, len;
+
+        Batch(float[][] blocks, float[] interleaved, int off, int len) {
+            this.blocks = blocks;
+            this.interleaved = interleaved;
+            this.off = off;
+            this.len = len;
+        }
+
+        // channels passing the gate are advanced in pairs, see GoertzelPlan
+        void analyze(int from, int to) {
+            Arrays.fill(state, from * stateSize, to * stateSize, 0);
+            int stride = interleaved == null ? 1 : channels;
+            DetectorMetrics metrics = detector.getMetrics();
+            int pending = -1; // admitted channel waiting for a partner
+            long pendingNanos = 0; // time spent on it so far
+            for (int c = from; c < to; c++) {
+                long start = detector.clock();
+                if (!detector.admit(samples(c), first(c), len, stride)) {
+                    detector.record(len, start, detector.skip(detections[c]), detections[c]);
+                    continue;
+                }
+                if (pending < 0) {
+                    pending = c;
+                    pendingNanos = detector.clock() - start;
+                    continue;
+                }
+                plan.update(samples(pending), first(pending), samples(c), first(c), len, stride,
+                        state, pending * stateSize, c * stateSize);
+                detector.evaluate(state, pending * stateSize, detections[pending]);
+                detector.evaluate(state, c * stateSize, detections[c]);
+                if (metrics != null) { // the pair shares its time, each channel is charged half of it
+                    long half = (pendingNanos + System.nanoTime() - start) / 2;
+                    metrics.record(len, half, detections[pending].getDtmf());
+                    metrics.record(len, half, detections[c].getDtmf());
+                }
+                pending = -1;
+            }
+            if (pending >= 0) {
+                long start = detector.clock() - pendingNanos;
+                plan.update(samples(pending), first(pending), len, stride, state, pending * stateSize);
+                detector.record(len, start, detector.evaluate(state, pending * stateSize, detections[pending]),
+                        detections[pending]);
+            }
+        }
+
+        private float[] samples(int c) { return interleaved == null ? blocks[c] : interleaved; }
+        private int first(int c) { return interleaved == null ? off : off + c; }
+    }
+
+    // splits a range of channels in halves until it is no larger than grain
+    private final class Range extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Batch batch;   // a task is never serialized
+        private final int from, to;
+
+        Range(Batch batch, int from, int to) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                batch.analyze(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Range(batch, from, mid), new Range(batch, mid, to));
+        }
+    }
+}
@@ -0,0 +1,338 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Generator of synthetic, multi-channel DTMF test corpora of any length: on every channel an
+ * independent random sequence of keys, separated by gaps, with noise and speech-like
+ * interference, together with the ground truth of every key.
+ * <p>
+ * Tone and gap durations are drawn uniformly from configurable ranges. Each tone has its own
+ * twist, the level of the row frequency relative to the column frequency, drawn uniformly from
+ * -twist .. twist dB around the configured amplitude. White noise is added at a given RMS level,
+ * and so is speech-like interference: noise low-passed to the band of the DTMF row frequencies,
+ * where speech has most of its energy, and amplitude modulated at a syllabic rate of 4 Hz.
+ * <p>
+ * The corpus is produced in chunks of CHUNK frames, synthesized by ToneSynthesizer and written by
+ * WavWriter through a FileChannel, so memory stays constant and hours of audio take seconds. The
+ * ground truth is a CSV sidecar with one line per tone,
+ * <pre>
+ *   channel,key,onset_sample,offset_sample,twist_db
+ * </pre>
+ * in order of onset for each channel; offset_sample is exclusive. A corpus is determined by its
+ * settings and seed.
+ * <p>
+ * Instances are immutable; each with...(...) method returns a modified copy.
+ * <p>
+ * @see WavWriter
+ * @see ToneSynthesizer
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class DTMFCorpusGenerator {
+
+    static final int CHUNK = 4096;                  // frames synthesized per write
+    static final double SYLLABLE_RATE = 4;          // Hz, of the speech-like envelope
+    static final double SPEECH_CUTOFF = 1000;       // Hz, of the speech-like low pass
+    public static final String CSV_HEADER = "channel,key,onset_sample,offset_sample,twist_db";
+
+    private final int sampleRate, channels;
+    private String keys = "0123456789*#ABCD";
+    private double minToneMs = 50, maxToneMs = 150, minGapMs = 50, maxGapMs = 150;
+    private double amplitude = 1.0D;                // peak of an untwisted tone, 1.0 being full scale
+    private double twistDb = 0;
+    private double noiseDb = Double.NEGATIVE_INFINITY, speechDb = Double.NEGATIVE_INFINITY;
+    private long seed = 0;
+
+    /**
+     * Class constructor specifying the format of the corpus. The remaining settings default to
+     * tones and gaps of 50 .. 150 ms at full scale, as DTMF.generateCompositeTone(...), over all
+     * 16 keys, with neither twist, noise nor interference.
+     *
+     * @param sampleRate the sampling rate, in Hz
+     * @param channels number of independent channels
+     */
+    public DTMFCorpusGenerator(int sampleRate, int channels) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("sampleRate must be positive: " + sampleRate);
+        if (channels <= 0) throw new IllegalArgumentException("channels must be positive: " + channels);
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+    }
+
+    private DTMFCorpusGenerator copy() {
+        DTMFCorpusGenerator copy = new DTMFCorpusGenerator(sampleRate, channels);
+        copy.keys = keys;
+        copy.minToneMs = minToneMs;
+        copy.maxToneMs = maxToneMs;
+        copy.minGapMs = minGapMs;
+        copy.maxGapMs = maxGapMs;
+        copy.amplitude = amplitude;
+        copy.twistDb = twistDb;
+        copy.noiseDb = noiseDb;
+        copy.speechDb = speechDb;
+        copy.seed = seed;
+        return copy;
+    }
+
+    /**
+     * @param keys keys to draw from, each of 0-9, #, *, A-D
+     * @return copy drawing keys from the given alphabet
+     */
+    public DTMFCorpusGenerator withKeys(String keys) {
+        if (keys.isEmpty()) throw new IllegalArgumentException("no keys");
+        for (char key : keys.toCharArray())
+            if (!DTMF.getToneMap().containsKey(key)) throw new IllegalArgumentException("no such key: " + key);
+        DTMFCorpusGenerator copy = copy();
+        copy.keys = keys;
+        return copy;
+    }
+
+    /**
+     * @param minMs shortest tone, in ms
+     * @param maxMs longest tone, in ms
+     * @return copy with tone durations drawn from minMs .. maxMs
+     */
+    public DTMFCorpusGenerator withToneDuration(double minMs, double maxMs) {
+        checkRange(minMs, maxMs);
+        DTMFCorpusGenerator copy = copy();
+        copy.minToneMs = minMs;
+        copy.maxToneMs = maxMs;
+        return copy;
+    }
+
+    /**
+     * @param minMs shortest gap, in ms
+     * @param maxMs longest gap, in ms
+     * @return copy with gap durations, before every tone, drawn from minMs .. maxMs
+     */
+    public DTMFCorpusGenerator withGapDuration(double minMs, double maxMs) {
+        checkRange(minMs, maxMs);
+        DTMFCorpusGenerator copy = copy();
+        copy.minGapMs = minMs;
+        copy.maxGapMs = maxMs;
+        return copy;
+    }
+
+    /**
+     * @param amplitude peak amplitude of an untwisted tone, 1.0 being full scale; each frequency
+     *                  contributes half of it
+     * @return copy generating tones of the given amplitude
+     */
+    public DTMFCorpusGenerator withAmplitude(double amplitude) {
+        DTMFCorpusGenerator copy = copy();
+        copy.amplitude = amplitude;
+        return copy;
+    }
+
+    /**
+     * @param twistDb largest difference, in dB, between the levels of row and column frequency
+     * @return copy drawing the twist of every tone from -twistDb .. twistDb
+     */
+    public DTMFCorpusGenerator withTwist(double twistDb) {
+        DTMFCorpusGenerator copy = copy();
+        copy.twistDb = Math.abs(twistDb);
+        return copy;
+    }
+
+    /**
+     * @param noiseDb RMS level of white noise, in dB relative to full scale, -Infinity for none
+     * @return copy adding noise at the given level
+     */
+    public DTMFCorpusGenerator withNoise(double noiseDb) {
+        DTMFCorpusGenerator copy = copy();
+        copy.noiseDb = noiseDb;
+        return copy;
+    }
+
+    /**
+     * @param speechDb RMS level of speech-like interference, in dB relative to full scale,
+     *                 -Infinity for none
+     * @return copy adding interference at the given level
+     */
+    public DTMFCorpusGenerator withSpeech(double speechDb) {
+        DTMFCorpusGenerator copy = copy();
+        copy.speechDb = speechDb;
+        return copy;
+    }
+
+    /**
+     * @param seed seed of the random sequences
+     * @return copy generating the corpus of the given seed
+     */
+    public DTMFCorpusGenerator withSeed(long seed) {
+        DTMFCorpusGenerator copy = copy();
+        copy.seed = seed;
+        return copy;
+    }
+
+    public int getSampleRate() { return sampleRate; }
+    public int getChannels() { return channels; }
+    public String getKeys() { return keys; }
+    public double getAmplitude() { return amplitude; }
+    public double getTwist() { return twistDb; }
+    public double getNoise() { return noiseDb; }
+    public double getSpeech() { return speechDb; }
+    public long getSeed() { return seed; }
+
+    /**
+     * Method generates a corpus into a WAVE file and its ground truth into a CSV file.
+     *
+     * @param wav WAVE file to write, 16 bit PCM
+     * @param truth CSV file to write
+     * @param seconds duration of the corpus
+     * @return number of tones generated, over all channels
+     * @throws IOException if either file cannot be written
+     */
+    public long generate(Path wav, Path truth, double seconds) throws IOException {
+        try (WavWriter writer = WavWriter.create(wav, sampleRate, channels);
+             BufferedWriter csv = Files.newBufferedWriter(truth, StandardCharsets.UTF_8)) {
+            csv.write(CSV_HEADER);
+            csv.newLine();
+            return generate(writer, csv, Math.round(seconds * sampleRate));
+        }
+    }
+
+    /**
+     * Method generates a corpus into an open writer, whose format must match this generator.
+     *
+     * @param writer receives the frames
+     * @param truth receives one CSV line per tone, without header
+     * @param frames number of frames to generate
+     * @return number of tones generated, over all channels
+     * @throws IOException if either output cannot be written
+     */
+    public long generate(WavWriter writer, Writer truth, long frames) throws IOException {
+        if (writer.getChannels() != channels || writer.getSampleRate() != sampleRate)
+            throw new IllegalArgumentException("writer format differs from the corpus");
+        Channel[] state = new Channel[channels];
+        for (int c = 0; c < channels; c++) state[c] = new Channel(c, frames);
+
+        float[][] chunk = new float[channels][CHUNK];
+        for (long position = 0; position < frames; ) {
+            int n = (int) Math.min(CHUNK, frames - position);
+            for (int c = 0; c < channels; c++) state[c].fill(chunk[c], n, position, truth);
+            writer.write(chunk, 0, n);
+            position += n;
+        }
+        long tones = 0;
+        for (Channel channel : state) tones += channel.tones;
+        return tones;
+    }
+
+    private int toFrames(double ms) {
+        return (int) Math.round(ms * sampleRate / 1000);
+    }
+
+    private static void checkRange(double min, double max) {
+        if (!(min >= 0 && max >= min)) throw new IllegalArgumentException("illegal range: " + min + " .. " + max);
+    }
+
+    // the sequence of gaps and tones of one channel, with its own random stream
+    private class Channel {
+
+        private final int index;
+        private final long frames;
+        private final SplittableRandom random;
+        private final float[] column = new float[CHUNK];
+        private final double noise, speech;     // RMS levels, linear
+        private final double lowPass;           // coefficient of the speech-like one pole low pass
+        private final double syllable;          // envelope phase increment per sample
+
+        private ToneSynthesizer rowTone, columnTone;  // null during a gap
+        private int remaining;                  // frames left in the current gap or tone
+        private double filtered, phase;
+        private double spare = Double.NaN;      // second deviate of the last gaussian() pair
+        private long tones;
+
+        Channel(int index, long frames) {
+            this.index = index;
+            this.frames = frames;
+            this.random = new SplittableRandom(seed + 0x9E3779B97F4A7C15L * index);
+            this.noise = Math.pow(10, noiseDb / 20);
+            this.speech = Math.pow(10, speechDb / 20);
+            this.lowPass = 1 - Math.exp(-2 * Math.PI * SPEECH_CUTOFF / sampleRate);
+            this.syllable = 2 * Math.PI * SYLLABLE_RATE / sampleRate;
+            this.phase = random.nextDouble(2 * Math.PI);
+            this.remaining = Math.max(1, toFrames(uniform(minGapMs, maxGapMs)));
+        }
+
+        // synthesizes the next len frames, starting at stream offset position
+        void fill(float[] dst, int len, long position, Writer truth) throws IOException {
+            for (int i = 0; i < len; ) {
+                if (remaining == 0) next(position + i, truth);
+                int n = Math.min(len - i, remaining);
+                if (rowTone == null) {
+                    for (int k = i; k < i + n; k++) dst[k] = 0;
+                } else {
+                    rowTone.generate(dst, i, n);
+                    columnTone.generate(column, 0, n);
+                    for (int k = 0; k < n; k++) dst[i + k] += column[k];
+                }
+                remaining -= n;
+                i += n;
+            }
+            if (noise > 0) {
+                for (int k = 0; k < len; k++) dst[k] += (float) (noise * gaussian());
+            }
+            if (speech > 0) {
+                // a one pole low pass of unit white noise has variance k / (2 - k), and the
+                // raised cosine envelope a mean square of 3/8
+                double gain = speech * Math.sqrt((2 - lowPass) / lowPass * 8 / 3);
+                for (int k = 0; k < len; k++) {
+                    filtered += lowPass * (gaussian() - filtered);
+                    double envelope = (1 - Math.cos(phase)) / 2;
+                    phase += syllable;
+                    dst[k] += (float) (gain * envelope * filtered);
+                }
+                phase %= 2 * Math.PI;
+            }
+        }
+
+        // ends the current segment: a gap is followed by a tone and a tone by a gap
+        private void next(long position, Writer truth) throws IOException {
+            if (rowTone != null) {
+                rowTone = columnTone = null;
+                remaining = Math.max(1, toFrames(uniform(minGapMs, maxGapMs)));
+                return;
+            }
+            char key = keys.charAt(random.nextInt(keys.length()));
+            double twist = uniform(-twistDb, twistDb);
+            double[] f = DTMF.getToneMap().get(key).getFrequencies();
+            rowTone = new ToneSynthesizer(sampleRate, amplitude / 2 * Math.pow(10, twist / 40), f[0]);
+            columnTone = new ToneSynthesizer(sampleRate, amplitude / 2 * Math.pow(10, -twist / 40), f[1]);
+            remaining = Math.max(1, toFrames(uniform(minToneMs, maxToneMs)));
+            tones++;
+            truth.write(index + "," + key + "," + position + "," + Math.min(frames, position + remaining)
+                    + "," + Math.round(twist * 100) / 100D);
+            truth.write(System.lineSeparator());
+        }
+
+        private double uniform(double min, double max) {
+            return max > min ? random.nextDouble(min, max) : min;
+        }
+
+        // standard normal deviates by the polar Box-Muller method, two per accepted point
+        private double gaussian() {
+            if (!Double.isNaN(spare)) {
+                double g = spare;
+                spare = Double.NaN;
+                return g;
+            }
+            double u, v, s;
+            do {
+                u = 2 * random.nextDouble() - 1;
+                v = 2 * random.nextDouble() - 1;
+                s = u * u + v * v;
+            } while (s >= 1 || s == 0);
+            double m = Math.sqrt(-2 * Math.log(s) / s);
+            spare = v * m;
+            return u * m;
+        }
+    }
+}
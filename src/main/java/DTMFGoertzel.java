@@ -1,7 +1,9 @@
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Class which adapts Goertzel algorithm for application in DTMF tone detection,
@@ -11,6 +13,9 @@ import java.util.Map;
  * method to return a list of detected DTMF keys. The corresponding power levels of
  * each of the constituent frequencies for that DTMF key are reported.
  * <p>
+ * Blocks, detected keys and near misses are reported as JDK Flight Recorder events, when
+ * enabled in a recording, see DetectorEvents.
+ * <p>
  * Goertzel, G. (1958). An Algorithm for the Evaluation of Finite Trigonometric Series.
  * The American Mathematical Monthly, 65(1), 34-35.
  * <p>
@@ -23,7 +28,13 @@ import java.util.Map;
  */
 public class DTMFGoertzel {
 
+    static final int RESONATORS = DTMF.ROW_FREQUENCIES.length + DTMF.COL_FREQUENCIES.length;
+    static final int DEFAULT_BLOCK_SIZE = 256;
+
     private final double powerThreshold, sampleRate;
+    private final GoertzelPlan plan; // ROW_FREQUENCIES followed by COL_FREQUENCIES
+    private final EnergyGate gate;   // null unless withEnergyGate(...) was used
+    private final DetectorMetrics metrics; // null unless withMetrics(...) was used
 
     /**
      *
@@ -33,10 +44,77 @@ public class DTMFGoertzel {
      * @param powerThreshold Minimum level needed to accept when analyzing for target frequencies
      */
     public DTMFGoertzel(double sampleRate, double powerThreshold) {
+        this(GoertzelPlan.dtmf(sampleRate), powerThreshold);
+    }
+
+    /**
+     * Class constructor specifying a precompiled plan and minimum detection threshold. The plan
+     * must hold eight frequencies, the four row frequencies followed by the four column
+     * frequencies, e.g. GoertzelPlan.dtmf(...).
+     *
+     * @param plan precompiled resonators, rows then columns
+     * @param powerThreshold Minimum level needed to accept when analyzing for target frequencies
+     */
+    public DTMFGoertzel(GoertzelPlan plan, double powerThreshold) {
+        this(plan, powerThreshold, null, null);
+    }
+
+    private DTMFGoertzel(GoertzelPlan plan, double powerThreshold, EnergyGate gate, DetectorMetrics metrics) {
+        if (plan.size() != RESONATORS)
+            throw new IllegalArgumentException("plan must hold " + RESONATORS + " frequencies: " + plan);
         this.powerThreshold = powerThreshold;
-        this.sampleRate = sampleRate;
+        this.sampleRate = plan.getSampleRate();
+        this.plan = plan;
+        this.gate = gate;
+        this.metrics = metrics;
     }
 
+    /**
+     * Method returns a copy of this detector which measures the energy of every block before
+     * running the resonators, and skips them for blocks too quiet to hold a key. Blocks are
+     * skipped when even the strongest tone their energy allows stays at or below
+     * powerThreshold + marginDb, see EnergyGate. With a margin of 0 dB results are unchanged.
+     * <p>
+     * The gate applies to the block based keyFilter(...) methods and DTMFBatchDetector; the
+     * streaming detectors carry the recurrence across buffers, so they never skip it.
+     *
+     * @param marginDb floor above the power threshold, in dB
+     * @return a gated copy of this detector, with its own counters
+     */
+    public DTMFGoertzel withEnergyGate(double marginDb) {
+        return new DTMFGoertzel(plan, powerThreshold,
+                new EnergyGate(plan, DTMF.ROW_FREQUENCIES.length, powerThreshold, marginDb), metrics);
+    }
+
+    /**
+     * Method returns a copy of this detector which records every block it analyzes into the
+     * given metrics: the block based keyFilter(...) methods, StreamingDTMFGoertzel and
+     * DTMFBatchDetector. One DetectorMetrics may be shared by many detectors and threads.
+     * <p>
+     * Timing a block costs two calls to System.nanoTime(), some tens of ns; a detector without
+     * metrics only tests a null reference.
+     *
+     * @param metrics receives the figures of every block
+     * @return an instrumented copy of this detector
+     */
+    public DTMFGoertzel withMetrics(DetectorMetrics metrics) {
+        return new DTMFGoertzel(plan, powerThreshold, gate, Objects.requireNonNull(metrics));
+    }
+
+    public double getSampleRate() { return sampleRate; }
+    public double getPowerThreshold() { return powerThreshold; }
+    public GoertzelPlan getPlan() { return plan; }
+
+    /**
+     * @return the energy gate of this detector, or null if it has none
+     */
+    public EnergyGate getEnergyGate() { return gate; }
+
+    /**
+     * @return the metrics of this detector, or null if it has none
+     */
+    public DetectorMetrics getMetrics() { return metrics; }
+
     /**
      * A convenience method to overload the keyFilter(...) method. This method adapts an incoming
      * array of double values to floats, so that the corresponding keyFilter(...) with the
@@ -56,40 +134,32 @@ public class DTMFGoertzel {
     }
 
     /**
-     * Method that implements the Goertzel Algorithm.
-     *
+     * Method that implements the Goertzel Algorithm for all eight DTMF frequencies in a single
+     * pass over the buffer, using the precompiled plan. Resonator state is kept in the state
+     * array, so that a caller may continue the recurrence over a later buffer.
      *
      * @param buffer waveform data to be analyzed, provided in range from -1 .. 1
-     * @param frequencies array of frequencies of interest, in Hz
-     * @param sampleRate the sampling rate of the incoming waveform data, in Hz
-     * @return array of power levels, one for each frequency provided, in dB
+     * @param off index of the first sample to analyze
+     * @param len number of samples to analyze
+     * @param state recurrence state of the plan, see GoertzelPlan
      */
-    private double[] goertzel(float[] buffer, Double[] frequencies, double sampleRate) {
-
-        final double[] precalculatedCosines, precalculatedWnk;
-
-        precalculatedCosines = new double[frequencies.length];
-        precalculatedWnk = new double[frequencies.length];
-
-        for (int i = 0; i < frequencies.length; i++) {
-            precalculatedCosines[i] = 2 * Math.cos(2 * Math.PI * frequencies[i] / sampleRate);
-            precalculatedWnk[i] = Math.exp(-2 * Math.PI * frequencies[i] / sampleRate);
-        }
-
-        double[] powers = new double[frequencies.length];
+    void goertzel(float[] buffer, int off, int len, double[] state) {
+        plan.update(buffer, off, len, state, 0);
+    }
 
-        double skn0, skn1, skn2;
-        for (int j = 0; j < frequencies.length; j++) {
-            skn0 = skn1 = 0;
-            for (float v : buffer) {
-                skn2 = skn1;
-                skn1 = skn0;
-                skn0 = precalculatedCosines[j] * skn1 - skn2 + v;
-            }
-            double wnk = precalculatedWnk[j];
-            powers[j] = 20 * Math.log10(Math.abs(skn0 - wnk * skn1)); // dB
-        }
-        return powers;
+    /**
+     * Method converts resonator state left by goertzel(...) into power levels.
+     *
+     * @param state recurrence state of the plan, see GoertzelPlan
+     * @param stateOffset index of the stream's state within the state array
+     * @param row_powers receives the power level of each of DTMF.ROW_FREQUENCIES, in dB
+     * @param col_powers receives the power level of each of DTMF.COL_FREQUENCIES, in dB
+     */
+    void powers(double[] state, int stateOffset, double[] row_powers, double[] col_powers) {
+        for (int j = 0; j < row_powers.length; j++)
+            row_powers[j] = plan.power(state, stateOffset, j);
+        for (int j = 0; j < col_powers.length; j++)
+            col_powers[j] = plan.power(state, stateOffset, row_powers.length + j);
     }
 
     /**
@@ -101,12 +171,216 @@ public class DTMFGoertzel {
      */
     public ArrayList<PowerLevel> keyFilter(float[] buffer) {
 
-        double[] row_powers = goertzel(buffer, DTMF.ROW_FREQUENCIES, sampleRate);
-        double[] col_powers = goertzel(buffer, DTMF.COL_FREQUENCIES, sampleRate);
+        long start = clock();
+        DetectorEvents.BlockEvent event = DetectorEvents.beginBlock();
+        if (!admit(buffer, 0, buffer.length, 1)) {
+            if (metrics != null) {
+                metrics.recordSkip();
+                metrics.record(buffer.length, clock() - start, null);
+            }
+            DetectorEvents.commitBlock(event, buffer.length, sampleRate, null);
+            return new ArrayList<>();
+        }
+
+        double[] state = new double[plan.stateSize()];
+        goertzel(buffer, 0, buffer.length, state);
+
+        double[] row_powers = new double[DTMF.ROW_FREQUENCIES.length];
+        double[] col_powers = new double[DTMF.COL_FREQUENCIES.length];
+        powers(state, 0, row_powers, col_powers);
 
 //      String p = Arrays.stream(powers).mapToObj(d -> String.format("%10.2f", d)).collect(Collectors.joining("  "));
 //      System.out.println("powers: " + p); // SOP rather than Log.*, can be called from junit
 
+        ArrayList<PowerLevel> levels = levels(row_powers, col_powers);
+        DTMF strongest = null;
+        if (levels.isEmpty()) {
+            DetectorEvents.nearMiss(row_powers, col_powers, powerThreshold, sampleRate);
+        } else {
+            PowerLevel level = levels.get(0);
+            strongest = level.getDtmf();
+            DetectorEvents.keyDetected(strongest, level.getRowPower(), level.getColumnPower(), levels.size(), sampleRate);
+        }
+        if (metrics != null) metrics.record(buffer.length, clock() - start, strongest);
+        DetectorEvents.commitBlock(event, buffer.length, sampleRate, strongest);
+        return levels;
+    }
+
+    /**
+     * Allocation free variant of keyFilter(...), intended for high block rates. Rather than
+     * building a sorted list, the strongest key is written into a caller-owned Detection, which
+     * may be reused for every block.
+     *
+     * @param buffer waveform data to be analyzed, provided in range from -1 .. 1
+     * @param off index of the first sample to analyze
+     * @param len number of samples to analyze
+     * @param result receives the strongest dtmf key which exceeds the power threshold, if any
+     * @return true if a key was detected
+     */
+    public boolean keyFilter(float[] buffer, int off, int len, Detection result) {
+        long start = clock();
+        DetectorEvents.BlockEvent event = DetectorEvents.beginBlock();
+        if (!admit(buffer, off, len, 1)) return record(len, start, event, skip(result), result);
+        Arrays.fill(result.state, 0);
+        goertzel(buffer, off, len, result.state);
+        return record(len, start, event, evaluate(result), result);
+    }
+
+    /**
+     * Allocation free keyFilter(...) for G.711 companded audio. Codes are decoded through the
+     * law's lookup table inside the Goertzel loop, so no float buffer is needed.
+     *
+     * @param buffer companded waveform data to be analyzed
+     * @param off index of the first sample to analyze
+     * @param len number of samples to analyze
+     * @param law companding law of the buffer
+     * @param result receives the strongest dtmf key which exceeds the power threshold, if any
+     * @return true if a key was detected
+     */
+    public boolean keyFilter(byte[] buffer, int off, int len, G711 law, Detection result) {
+        long start = clock();
+        DetectorEvents.BlockEvent event = DetectorEvents.beginBlock();
+        if (gate != null && !gate.admit(buffer, off, len, law.table)) return record(len, start, event, skip(result), result);
+        Arrays.fill(result.state, 0);
+        plan.update(buffer, off, len, law.table, result.state, 0);
+        return record(len, start, event, evaluate(result), result);
+    }
+
+    /**
+     * Variant of keyFilter(byte[], ...) analyzing the remaining bytes of a ByteBuffer, without
+     * changing its position.
+     *
+     * @param buffer companded waveform data to be analyzed
+     * @param law companding law of the buffer
+     * @param result receives the strongest dtmf key which exceeds the power threshold, if any
+     * @return true if a key was detected
+     */
+    public boolean keyFilter(ByteBuffer buffer, G711 law, Detection result) {
+        long start = clock();
+        DetectorEvents.BlockEvent event = DetectorEvents.beginBlock();
+        int len = buffer.remaining();
+        if (gate != null && !gate.admit(buffer, buffer.position(), len, law.table))
+            return record(len, start, event, skip(result), result);
+        Arrays.fill(result.state, 0);
+        plan.update(buffer, buffer.position(), len, law.table, result.state, 0);
+        return record(len, start, event, evaluate(result), result);
+    }
+
+    /**
+     * @return the current time in ns if this detector has metrics, otherwise 0
+     */
+    long clock() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Method records a block into the metrics, if any.
+     *
+     * @param len number of samples in the block
+     * @param start value of clock() when work on the block began
+     * @param detected outcome of the block, passed through
+     * @param result outcome of the block
+     * @return detected
+     */
+    boolean record(int len, long start, boolean detected, Detection result) {
+        if (metrics != null) metrics.record(len, System.nanoTime() - start, result.getDtmf());
+        return detected;
+    }
+
+    // record(...) which also commits the block's flight recorder event, if one was begun
+    private boolean record(int len, long start, DetectorEvents.BlockEvent event, boolean detected, Detection result) {
+        record(len, start, detected, result);
+        DetectorEvents.commitBlock(event, len, sampleRate, result.getDtmf());
+        return detected;
+    }
+
+    /**
+     * @param buffer waveform data, provided in range from -1 .. 1
+     * @param off index of the first sample
+     * @param len number of samples
+     * @param stride distance between consecutive samples in buffer
+     * @return true if the block must be analyzed, i.e. there is no gate or the gate passed it
+     */
+    boolean admit(float[] buffer, int off, int len, int stride) {
+        return gate == null || gate.admit(buffer, off, len, stride);
+    }
+
+    /**
+     * Method records a block skipped by the gate as silent: every power level is -Infinity, as
+     * the resonators report for a block of zeros, and no key is detected.
+     *
+     * @param result receives the outcome
+     * @return false
+     */
+    boolean skip(Detection result) {
+        if (metrics != null) metrics.recordSkip();
+        Arrays.fill(result.rowPowers, Double.NEGATIVE_INFINITY);
+        Arrays.fill(result.colPowers, Double.NEGATIVE_INFINITY);
+        result.clear();
+        return false;
+    }
+
+    /**
+     * Method converts the resonator state held by a Detection into power levels and selects the
+     * strongest key, i.e. the one with the largest sum of row and column power, for which both
+     * levels exceed the power threshold. The key is looked up directly from its placement.
+     *
+     * @param result holds the resonator state on entry, receives the outcome
+     * @return true if a key was detected
+     */
+    boolean evaluate(Detection result) {
+        return evaluate(result.state, 0, result);
+    }
+
+    /**
+     * Variant of evaluate(...) for resonator state held outside the Detection, e.g. the
+     * channel-major state of DTMFBatchDetector.
+     *
+     * @param state recurrence state of the plan, see GoertzelPlan
+     * @param stateOffset index of the stream's state within the state array
+     * @param result receives the outcome
+     * @return true if a key was detected
+     */
+    boolean evaluate(double[] state, int stateOffset, Detection result) {
+        double[] row_powers = result.rowPowers, col_powers = result.colPowers;
+        powers(state, stateOffset, row_powers, col_powers);
+
+        int bestRow = -1, bestCol = -1, hits = 0;
+        double bestSum = Double.NEGATIVE_INFINITY;
+        for (int row = 0; row < row_powers.length; row++) {
+            if (!(row_powers[row] > powerThreshold)) continue;
+            for (int col = 0; col < col_powers.length; col++) {
+                if (!(col_powers[col] > powerThreshold)) continue;
+                hits++;
+                double sum = row_powers[row] + col_powers[col];
+                if (sum > bestSum) {
+                    bestSum = sum;
+                    bestRow = row;
+                    bestCol = col;
+                }
+            }
+        }
+
+        if (hits == 0) {
+            result.clear();
+            DetectorEvents.nearMiss(row_powers, col_powers, powerThreshold, sampleRate);
+            return false;
+        }
+        result.set(DTMF.getTone(bestRow, bestCol), row_powers[bestRow], col_powers[bestCol], hits);
+        DetectorEvents.keyDetected(result.getDtmf(), row_powers[bestRow], col_powers[bestCol], hits, sampleRate);
+        return true;
+    }
+
+    /**
+     * Method reports a list of DTMF keys whose row and column power levels both exceed the
+     * power threshold.
+     *
+     * @param row_powers power levels for each of DTMF.ROW_FREQUENCIES, in dB
+     * @param col_powers power levels for each of DTMF.COL_FREQUENCIES, in dB
+     * @return array list containing every dtmf key which exceeds the power threshold
+     */
+    ArrayList<PowerLevel> levels(double[] row_powers, double[] col_powers) {
+
         ArrayList<PowerLevel> result = new ArrayList<>();
 
         for (Map.Entry<Character, DTMF> entry : DTMF.getToneMap().entrySet()) {
@@ -200,4 +474,75 @@ public class DTMFGoertzel {
             return 0;  // they must be equal!
         }
     }
+
+    /**
+     * Reusable, caller-owned holder for the outcome of analyzing one block, used by the
+     * allocation free keyFilter(...) and the streaming detectors. Only the strongest key is
+     * reported; the power level of every row and column frequency remains available.
+     * <p>
+     * A Detection is overwritten by every block it is handed to, and is not thread safe.
+     */
+    public static final class Detection {
+
+        final double[] state = new double[2 * RESONATORS];
+        final double[] rowPowers = new double[DTMF.ROW_FREQUENCIES.length];
+        final double[] colPowers = new double[DTMF.COL_FREQUENCIES.length];
+
+        private DTMF dtmf;
+        private double rowPower, columnPower;
+        private int hits;
+
+        public Detection() {
+            clear();
+        }
+
+        void set(DTMF dtmf, double rowPower, double columnPower, int hits) {
+            this.dtmf = dtmf;
+            this.rowPower = rowPower;
+            this.columnPower = columnPower;
+            this.hits = hits;
+        }
+
+        void clear() {
+            set(null, Double.NaN, Double.NaN, 0);
+        }
+
+        public boolean isDetected() { return dtmf != null; }
+
+        /**
+         * @return the strongest detected key, or null if no key was detected
+         */
+        public DTMF getDtmf() { return dtmf; }
+
+        /**
+         * @return the strongest detected key, or '\0' if no key was detected
+         */
+        public char getKey() { return dtmf == null ? '\0' : dtmf.getKey(); }
+        public double getRowPower() { return rowPower; }
+        public double getColumnPower() { return columnPower; }
+        public double getAveragePower() { return (rowPower + columnPower) / 2D; }
+
+        /**
+         * @return number of keys which exceeded the power threshold
+         */
+        public int getHits() { return hits; }
+
+        /**
+         * @param row index into DTMF.ROW_FREQUENCIES
+         * @return power level measured at that row frequency, in dB
+         */
+        public double getRowPower(int row) { return rowPowers[row]; }
+
+        /**
+         * @param col index into DTMF.COL_FREQUENCIES
+         * @return power level measured at that column frequency, in dB
+         */
+        public double getColumnPower(int col) { return colPowers[col]; }
+
+        @Override
+        public String toString() {
+            return dtmf == null ? "Detection{none}"
+                    : "Detection{key=" + dtmf.getKey() + ", rowPower=" + rowPower + ", columnPower=" + columnPower + '}';
+        }
+    }
 }
@@ -0,0 +1,127 @@
+/**
+ * Streaming detector for high sample rate input, e.g. 44.1 kHz, which first decimates the audio
+ * to about 8 kHz with a PolyphaseDecimator, then analyzes it with a StreamingDTMFGoertzel at the
+ * reduced rate.
+ * <p>
+ * Every DTMF frequency lies below 2 kHz, so nothing the detector needs is lost, while the
+ * resonators and the block plan run at the reduced rate, whatever the input rate: at 44.1 kHz
+ * the factor is 5, and the filter adds about 6 multiplications per input sample. The resonators
+ * of the eight DTMF frequencies are cheap already, though: at a factor of 2, e.g. 16 or 22.05 kHz,
+ * the filter is relatively long and still takes 6 to 8 multiplications per input sample, while
+ * it only saves half of the resonators' 8, and measured on the JIT the decimating path is slower
+ * than the plain detector. Decimation therefore starts at a factor of 3, i.e. from 24 kHz up;
+ * input below that is analyzed at its own rate, and isDecimating() tells which path is taken.
+ * <p>
+ * Blocks are specified in input samples, and rounded to whole output samples. The decimator's
+ * passband gain equals the factor, so that a tone gives about the same power levels as
+ * DTMFGoertzel analyzing the undecimated block, within 2 dB, and the same thresholds apply.
+ * Sample offsets reported to the listener are in input samples; they do not account for the
+ * filter's delay of getDecimator().getDelay() samples.
+ * <p>
+ * The decimator's filter history, the block in progress and the buffer of decimated samples are
+ * all per stream, so like StreamingDTMFGoertzel an instance is fed by one thread at a time.
+ * <p>
+ * @see PolyphaseDecimator
+ * @see StreamingDTMFGoertzel
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class DecimatingDTMFGoertzel {
+
+    static final int CHUNK = 4096;  // input samples decimated at a time
+    static final int MIN_FACTOR = 3; // below, the filter costs more than the resonator work it saves
+
+    private final PolyphaseDecimator decimator;
+    private final DTMFGoertzel detector;
+    private final StreamingDTMFGoertzel streaming;
+    private final float[] decimated;
+
+    /**
+     * Class constructor specifying the input rate, minimum detection threshold and block size.
+     *
+     * @param inputRate sampling rate of the input, in Hz
+     * @param powerThreshold Minimum level needed to accept, in dB
+     * @param blockSize number of input samples in each analysis block
+     * @param listener callback receiving the result of every completed block
+     */
+    public DecimatingDTMFGoertzel(double inputRate, double powerThreshold, int blockSize,
+                                  StreamingDTMFGoertzel.Listener listener) {
+        if (blockSize <= 0) throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        int factor = factor(inputRate);
+        this.decimator = new PolyphaseDecimator(inputRate, factor, PolyphaseDecimator.DTMF_PASSBAND, factor);
+        int outputBlock = Math.max(1, Math.round((float) blockSize / factor));
+        this.detector = new DTMFGoertzel(GoertzelPlan.dtmf(decimator.getOutputRate()), powerThreshold);
+        this.streaming = new StreamingDTMFGoertzel(detector, outputBlock,
+                (offset, detection) -> listener.onBlock(offset * factor, detection));
+        this.decimated = new float[decimator.getMaxOutput(CHUNK)];
+    }
+
+    // the factor of PolyphaseDecimator.forDTMF(...), if decimating pays off at all, else 1
+    static int factor(double inputRate) {
+        int factor = PolyphaseDecimator.dtmfFactor(inputRate);
+        return factor < MIN_FACTOR ? 1 : factor;
+    }
+
+    /**
+     * Convenience method to push an entire chunk.
+     *
+     * @param chunk waveform data to be analyzed, provided in range from -1 .. 1
+     */
+    public void push(float[] chunk) {
+        push(chunk, 0, chunk.length);
+    }
+
+    /**
+     * Method feeds a chunk of waveform data, at the input rate, into the detector. The listener
+     * is called once for every block completed by this chunk.
+     *
+     * @param chunk waveform data to be analyzed, provided in range from -1 .. 1
+     * @param off index of the first sample to consume
+     * @param len number of samples to consume
+     */
+    public void push(float[] chunk, int off, int len) {
+        if (off < 0 || len < 0 || off + len > chunk.length)
+            throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", length=" + chunk.length);
+        if (!isDecimating()) {
+            streaming.push(chunk, off, len);
+            return;
+        }
+        while (len > 0) {
+            int n = Math.min(len, CHUNK);
+            streaming.push(decimated, 0, decimator.process(chunk, off, n, decimated, 0));
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Discards the filter state and any partially consumed block, and restarts sample offsets
+     * from zero.
+     */
+    public void reset() {
+        decimator.reset();
+        streaming.reset();
+    }
+
+    /**
+     * @return the decimator, whose factor is 1 if the input is analyzed as it is
+     */
+    public PolyphaseDecimator getDecimator() { return decimator; }
+
+    /**
+     * @return true if the input is decimated before analysis, false if it is analyzed at its own rate
+     */
+    public boolean isDecimating() { return decimator.getFactor() > 1; }
+
+    /**
+     * @return the detector running at the output rate of the decimator, or at the input rate
+     */
+    public DTMFGoertzel getDetector() { return detector; }
+
+    /**
+     * @return number of input samples in each analysis block
+     */
+    public int getBlockSize() { return streaming.getBlockSize() * decimator.getFactor(); }
+}
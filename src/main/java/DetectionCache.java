@@ -0,0 +1,365 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content-addressed cache of detection results, so that audio analyzed before with the same
+ * parameters is not analyzed again, e.g. when a batch is re-run over an archive of which only a
+ * few files changed.
+ * <p>
+ * Results are looked up by a Key: a 64-bit hash of the samples, together with their shape and
+ * the parameters of the detector (sample rate, power threshold and block size). The hash takes
+ * the rounds of xxHash64 over the raw bits of the samples, two per 64-bit lane, and runs at
+ * several GB/s, a small fraction of the cost of the resonators. Two different recordings of the
+ * same shape share a key only if their hashes collide, with a probability of about 2^-64 per
+ * pair.
+ * <p>
+ * The memory tier keeps the most recently used maxEntries results, evicting the least recently
+ * used first, like ToneCache. withDirectory(...) adds a disk tier, which outlives the process:
+ * every result put is also written to a file named by its key, and a memory miss falls back to
+ * that file, and promotes what it finds. The disk tier is not bounded; delete the directory to
+ * reset it. A file is written under a temporary name and then moved in place, so a reader never
+ * sees it half written, and one that does not match its key, e.g. truncated by a crash, counts
+ * as a miss.
+ * <p>
+ * One cache may be shared by any number of threads. As in ToneCache, lookups hold a lock only for
+ * the map operation, and two threads missing the same key at the same time both analyze it.
+ * <p>
+ * @see ArchiveScanner#withCache(DetectionCache)
+ * @see ToneCache
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class DetectionCache {
+
+    static final int DEFAULT_ENTRIES = 1 << 16;
+
+    private static final long MAGIC = 0x0148434346544D44L;  // "DTMFCCH" and version 1
+    private static final int FILE_HEADER_SIZE = 48;
+
+    // xxHash64 primes
+    private static final long P1 = 0x9E3779B185EBCA87L, P2 = 0xC2B2AE3D27D4EB4FL, P3 = 0x165667B19E3779F9L,
+            P4 = 0x85EBCA77C2B2AE63L, P5 = 0x27D4EB2F165667C5L;
+
+    private final int maxEntries;
+    private final Path directory;                // null without a disk tier
+    private final LinkedHashMap<Key, List<DetectionIndex.Press>> entries;  // LRU order
+
+    private final LongAdder memoryHits = new LongAdder(), diskHits = new LongAdder(), misses = new LongAdder(),
+            evictions = new LongAdder();
+
+    /**
+     * @param maxEntries bound on the results held in memory
+     */
+    public DetectionCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    private DetectionCache(int maxEntries, Path directory) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        this.maxEntries = maxEntries;
+        this.directory = directory;
+        this.entries = new LinkedHashMap<>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<DetectionIndex.Press>> eldest) {
+                if (size() <= DetectionCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Method returns an empty cache of the same size, which also keeps its results in the given
+     * directory, and finds those put there before, by any process.
+     *
+     * @param directory the disk tier, created if it does not exist
+     * @return a cache with a disk tier, with its own counters
+     * @throws IOException if the directory cannot be created
+     */
+    public DetectionCache withDirectory(Path directory) throws IOException {
+        return new DetectionCache(maxEntries, Files.createDirectories(directory));
+    }
+
+    /**
+     * Method computes the key of a recording, all of whose channels are analyzed alike.
+     *
+     * @param samples the channels of the recording
+     * @param length number of samples of each channel
+     * @param sampleRate sampling rate of the recording, in Hz
+     * @param powerThreshold threshold of the detector, in dB
+     * @param blockSize block size of the detector, in samples
+     * @return the key
+     */
+    public static Key key(float[][] samples, int length, int sampleRate, double powerThreshold, int blockSize) {
+        long hash = samples.length;
+        for (float[] channel : samples) hash = hash(channel, 0, length, hash);
+        return new Key(hash, samples.length, length, sampleRate, powerThreshold, blockSize);
+    }
+
+    /**
+     * Method computes a 64-bit hash of the raw bits of the samples, e.g. of one block.
+     *
+     * @param samples buffer of samples
+     * @param off offset of the first sample
+     * @param len number of samples
+     * @param seed hash to continue, e.g. of the previous channel, or 0
+     * @return the hash
+     */
+    public static long hash(float[] samples, int off, int len, long seed) {
+        Objects.checkFromIndexSize(off, len, samples.length);
+        int i = off, end = off + len;
+        long h;
+        if (len >= 8) {
+            long v1 = seed + P1 + P2, v2 = seed + P2, v3 = seed, v4 = seed - P1;
+            for (; i <= end - 8; i += 8) {
+                v1 = round(v1, lane(samples, i));
+                v2 = round(v2, lane(samples, i + 2));
+                v3 = round(v3, lane(samples, i + 4));
+                v4 = round(v4, lane(samples, i + 6));
+            }
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = merge(merge(merge(merge(h, v1), v2), v3), v4);
+        } else {
+            h = seed + P5;
+        }
+        h += 4L * len;
+        for (; i < end; i++) h = Long.rotateLeft(h ^ (Float.floatToRawIntBits(samples[i]) & 0xFFFFFFFFL) * P1, 23) * P2 + P3;
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        return h ^ h >>> 32;
+    }
+
+    private static long lane(float[] samples, int i) {
+        return Float.floatToRawIntBits(samples[i]) & 0xFFFFFFFFL | (long) Float.floatToRawIntBits(samples[i + 1]) << 32;
+    }
+
+    private static long round(long acc, long input) {
+        return Long.rotateLeft(acc + input * P2, 31) * P1;
+    }
+
+    private static long merge(long h, long acc) {
+        return (h ^ round(0, acc)) * P1 + P4;
+    }
+
+    /**
+     * Method looks up the result of a key, in memory and then on disk.
+     *
+     * @param key the key, see key(...)
+     * @return the presses put with the key, or null if none were
+     * @throws IOException if the disk tier cannot be read
+     */
+    public List<DetectionIndex.Press> get(Key key) throws IOException {
+        List<DetectionIndex.Press> presses;
+        synchronized (entries) {
+            presses = entries.get(key);
+        }
+        if (presses != null) {
+            memoryHits.increment();
+            return presses;
+        }
+        if (directory != null && (presses = read(key)) != null) {
+            diskHits.increment();
+            synchronized (entries) {
+                entries.put(key, presses);
+            }
+            return presses;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Method stores the result of a key, in memory and on disk.
+     *
+     * @param key the key, see key(...)
+     * @param presses the presses found in the samples of the key
+     * @throws IOException if the disk tier cannot be written
+     */
+    public void put(Key key, List<DetectionIndex.Press> presses) throws IOException {
+        List<DetectionIndex.Press> copy = List.copyOf(presses);
+        synchronized (entries) {
+            entries.put(key, copy);
+        }
+        if (directory != null) write(key, copy);
+    }
+
+    /**
+     * Evicts every result from memory; the disk tier is kept.
+     */
+    public void clear() {
+        synchronized (entries) {
+            evictions.add(entries.size());
+            entries.clear();
+        }
+    }
+
+    public int getMaxEntries() { return maxEntries; }
+
+    /**
+     * @return the directory of the disk tier, or null if there is none
+     */
+    public Path getDirectory() { return directory; }
+
+    public long getMemoryHits() { return memoryHits.sum(); }
+    public long getDiskHits() { return diskHits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+
+    /**
+     * @return number of results held in memory
+     */
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return fraction of lookups served from either tier, NaN before the first lookup
+     */
+    public double getHitRatio() {
+        long hits = memoryHits.sum() + diskHits.sum(), total = hits + misses.sum();
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+
+    /**
+     * @return fraction of lookups served from memory, NaN before the first lookup
+     */
+    public double getMemoryHitRatio() {
+        long hits = memoryHits.sum(), total = hits + diskHits.sum() + misses.sum();
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "DetectionCache{size=" + getSize() + ", maxEntries=" + maxEntries + ", directory=" + directory
+                + ", memoryHits=" + getMemoryHits() + ", diskHits=" + getDiskHits() + ", misses=" + getMisses()
+                + ", evictions=" + getEvictions() + String.format(Locale.ROOT, ", hitRatio=%.3f}", getHitRatio());
+    }
+
+    // files are spread over 256 subdirectories by the first two digits of their name
+    private Path file(Key key) {
+        String name = String.format("%016x", key.digest());
+        return directory.resolve(name.substring(0, 2)).resolve(name + ".dtc");
+    }
+
+    private List<DetectionIndex.Press> read(Key key) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.length < FILE_HEADER_SIZE || buffer.getLong() != MAGIC || buffer.getLong() != key.hash
+                || buffer.getInt() != key.channels || buffer.getInt() != key.length || buffer.getInt() != key.sampleRate
+                || buffer.getInt() != key.blockSize || Double.compare(buffer.getDouble(), key.powerThreshold) != 0)
+            return null;
+        int count = buffer.getInt();
+        buffer.getInt();
+        if (count < 0 || bytes.length != FILE_HEADER_SIZE + (long) count * DetectionIndex.PRESS_SIZE) return null;
+        List<DetectionIndex.Press> presses = new ArrayList<>(count);
+        for (int p = 0; p < count; p++) {
+            long onset = buffer.getLong();
+            int length = buffer.getInt();
+            float rowPower = buffer.getFloat(), columnPower = buffer.getFloat();
+            int placement = buffer.get(), channel = buffer.get();
+            buffer.getShort();
+            if (length < 0 || placement < 0 || placement >= DetectionIndex.KEYS || channel < 0) return null;
+            presses.add(new DetectionIndex.Press(channel, DTMF.getTone(placement / 4, placement % 4),
+                    onset, onset + length, rowPower, columnPower));
+        }
+        return List.copyOf(presses);
+    }
+
+    private void write(Key key, List<DetectionIndex.Press> presses) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(FILE_HEADER_SIZE + presses.size() * DetectionIndex.PRESS_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(MAGIC).putLong(key.hash).putInt(key.channels).putInt(key.length).putInt(key.sampleRate)
+                .putInt(key.blockSize).putDouble(key.powerThreshold).putInt(presses.size()).putInt(0);
+        for (DetectionIndex.Press press : presses) {
+            buffer.putLong(press.getOnset()).putInt((int) (press.getOffset() - press.getOnset()))
+                    .putFloat((float) press.getRowPower()).putFloat((float) press.getColumnPower())
+                    .put((byte) DetectionIndex.keyIndex(press.getKey())).put((byte) press.getChannel()).putShort((short) 0);
+        }
+        Path file = file(key);
+        Files.createDirectories(file.getParent());
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, buffer.array());
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Content hash of some samples, with their shape and the parameters they were analyzed with.
+     */
+    public static final class Key {
+
+        private final long hash;
+        private final int channels, length, sampleRate, blockSize;
+        private final double powerThreshold;
+
+        Key(long hash, int channels, int length, int sampleRate, double powerThreshold, int blockSize) {
+            this.hash = hash;
+            this.channels = channels;
+            this.length = length;
+            this.sampleRate = sampleRate;
+            this.powerThreshold = powerThreshold;
+            this.blockSize = blockSize;
+        }
+
+        public long getHash() { return hash; }
+
+        // one 64-bit value for the whole key, to name its file
+        long digest() {
+            long h = hash;
+            for (long field : new long[] {channels, length, sampleRate, blockSize, Double.doubleToLongBits(powerThreshold)})
+                h = merge(h, field);
+            return h;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof Key)) return false;
+            Key k = (Key) other;
+            return hash == k.hash && channels == k.channels && length == k.length && sampleRate == k.sampleRate
+                    && blockSize == k.blockSize && Double.compare(powerThreshold, k.powerThreshold) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Key{hash=%016x, channels=%d, length=%d, sampleRate=%d, powerThreshold=%s, blockSize=%d}",
+                    hash, channels, length, sampleRate, powerThreshold, blockSize);
+        }
+    }
+}
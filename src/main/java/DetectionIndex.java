@@ -0,0 +1,320 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Memory-mapped reader of a detection index written by DetectionIndexWriter, which answers key
+ * and sequence queries over any number of recordings without touching their audio again.
+ * <p>
+ * The file is mapped read-only in segments of 1 GB, so indexes beyond the 2 GB limit of a single
+ * mapping are supported, and only the pages a query touches are ever read from disk; opening an
+ * index costs a few system calls, whatever its size. Every field of the format is aligned to its
+ * own size, so none straddles two segments.
+ * <p>
+ * For each key, and each pair of keys pressed in succession on one channel, the index holds a
+ * posting list of the recordings in which it occurs, in ascending order. withKey(...) returns
+ * one list; withSequence(...) takes the rarest list of its pairs, keeps the recordings found in
+ * the lists of its other pairs too, by binary search, and checks the presses of what remains.
+ * Longer sequences thus get cheaper, not dearer, as their lists rarely all intersect. An index is
+ * immutable once written, so one reader may be shared by any number of threads.
+ * <p>
+ * Format, all little-endian:
+ * <pre>
+ *   header     magic, recordings, table offset, postings offset, presses     (64 bytes)
+ *   recordings per recording: name length (int), UTF-8 name, padding to 8,
+ *              then its presses, 24 bytes each: onset (long), length (int),
+ *              row and column power (float), key as row * 4 + column (byte), channel (byte)
+ *   table      per recording: offset of its name (long), presses (int), keys pressed (bit mask)
+ *   postings   per list, 16 keys then 256 pairs of keys: offset (long), count (int), padding;
+ *              then the recording ids (int) of every list
+ * </pre>
+ * <p>
+ * @see DetectionIndexWriter
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class DetectionIndex implements Closeable {
+
+    static final long MAGIC = 0x0158444946544D44L;  // "DTMFIDX" and version 1
+    static final int HEADER_SIZE = 64;
+    static final int PRESS_SIZE = 24;
+    static final int TABLE_ENTRY_SIZE = 16;
+    static final int KEYS = DTMF.ROW_FREQUENCIES.length * DTMF.COL_FREQUENCIES.length;
+    static final int LISTS = KEYS + KEYS * KEYS;         // posting lists by key, then by pair of keys
+
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int recordings;
+    private final long tableOffset, postingsOffset, presses;
+
+    private DetectionIndex(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+        for (int s = 0; s < segments.length; s++) {
+            long position = (long) s << SEGMENT_BITS;
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, 1L << SEGMENT_BITS));
+            segments[s].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (size < HEADER_SIZE || getLong(0) != MAGIC) throw new IOException("Not a detection index");
+        long count = getLong(8);
+        tableOffset = getLong(16);
+        postingsOffset = getLong(24);
+        presses = getLong(32);
+        if (count < 0 || count > Integer.MAX_VALUE || tableOffset < HEADER_SIZE
+                || tableOffset + count * TABLE_ENTRY_SIZE > postingsOffset || postingsOffset + LISTS * 16L > size)
+            throw new IOException("Corrupt detection index: " + count + " recordings, table at " + tableOffset
+                    + ", postings at " + postingsOffset + ", size " + size);
+        recordings = (int) count;
+    }
+
+    /**
+     * Opens an index for queries.
+     *
+     * @param path index written by DetectionIndexWriter
+     * @return the index
+     * @throws IOException if the file cannot be mapped, or is not a complete index
+     */
+    public static DetectionIndex open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new DetectionIndex(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getRecordings() { return recordings; }
+
+    /**
+     * @return number of presses, over all recordings
+     */
+    public long getPresses() { return presses; }
+
+    /**
+     * @param id recording, from 0 .. getRecordings() - 1, in the order they were added
+     * @return name the recording was added with
+     */
+    public String getName(int id) {
+        long position = getLong(entry(id));
+        byte[] name = new byte[getInt(position)];
+        for (int i = 0; i < name.length; i++) name[i] = getByte(position + 4 + i);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param id recording, from 0 .. getRecordings() - 1
+     * @return presses of the recording, by channel and onset
+     */
+    public List<Press> getPresses(int id) {
+        long first = firstPress(id);
+        int count = getInt(entry(id) + 8);
+        List<Press> result = new ArrayList<>(count);
+        for (int p = 0; p < count; p++) {
+            long position = first + (long) p * PRESS_SIZE;
+            long onset = getLong(position);
+            result.add(new Press(getByte(position + 21), DTMF.getTone(getByte(position + 20) / 4, getByte(position + 20) % 4),
+                    onset, onset + getInt(position + 8), getFloat(position + 12), getFloat(position + 16)));
+        }
+        return result;
+    }
+
+    /**
+     * @param key the key: 0-9, #, *, A-D
+     * @return ids of the recordings in which the key was pressed, in ascending order
+     */
+    public int[] withKey(char key) {
+        return postings(keyIndex(key));
+    }
+
+    /**
+     * Method finds the recordings in which the keys were pressed in the given order, one right
+     * after the other on the same channel, e.g. "12#".
+     *
+     * @param keys the keys: 0-9, #, *, A-D
+     * @return ids of the matching recordings, in ascending order
+     */
+    public int[] withSequence(String keys) {
+        if (keys.isEmpty()) throw new IllegalArgumentException("empty sequence");
+        byte[] sequence = new byte[keys.length()];
+        for (int i = 0; i < sequence.length; i++) sequence[i] = (byte) keyIndex(keys.charAt(i));
+        if (sequence.length == 1) return postings(sequence[0]);
+
+        // candidates: the rarest pair of successive keys, intersected with the lists of the others
+        int[] lists = new int[sequence.length - 1];
+        for (int i = 0; i < lists.length; i++) lists[i] = KEYS + sequence[i] * KEYS + sequence[i + 1];
+        int rarest = lists[0];
+        for (int list : lists) if (postingCount(list) < postingCount(rarest)) rarest = list;
+        int[] candidates = postings(rarest);
+        int n = 0;
+        next:
+        for (int id : candidates) {
+            for (int list : lists) if (list != rarest && !posted(list, id)) continue next;
+            if (sequence.length == 2 || contains(id, sequence)) candidates[n++] = id;
+        }
+        return Arrays.copyOf(candidates, n);
+    }
+
+    // whether consecutive presses of one channel of a recording spell the sequence
+    private boolean contains(int id, byte[] sequence) {
+        long first = firstPress(id);
+        int count = getInt(entry(id) + 8);
+        for (int start = 0; start + sequence.length <= count; start++) {
+            long position = first + (long) start * PRESS_SIZE;
+            byte channel = getByte(position + 21);
+            int i = 0;
+            while (i < sequence.length && getByte(position + 20) == sequence[i] && getByte(position + 21) == channel) {
+                i++;
+                position += PRESS_SIZE;
+            }
+            if (i == sequence.length) return true;
+        }
+        return false;
+    }
+
+    private long entry(int id) {
+        if (id < 0 || id >= recordings) throw new IndexOutOfBoundsException("no recording " + id + " of " + recordings);
+        return tableOffset + (long) id * TABLE_ENTRY_SIZE;
+    }
+
+    private long firstPress(int id) {
+        long position = getLong(entry(id));
+        return align(position + 4 + getInt(position));
+    }
+
+    private int postingCount(int list) {
+        return getInt(postingsOffset + 16L * list + 8);
+    }
+
+    private int[] postings(int list) {
+        long position = getLong(postingsOffset + 16L * list);
+        int[] ids = new int[postingCount(list)];
+        for (int i = 0; i < ids.length; i++) ids[i] = getInt(position + 4L * i);
+        return ids;
+    }
+
+    // binary search of a posting list
+    private boolean posted(int list, int id) {
+        long position = getLong(postingsOffset + 16L * list);
+        int low = 0, high = postingCount(list) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1, value = getInt(position + 4L * mid);
+            if (value < id) low = mid + 1;
+            else if (value > id) high = mid - 1;
+            else return true;
+        }
+        return false;
+    }
+
+    static int keyIndex(char key) {
+        DTMF dtmf = DTMF.getToneMap().get(key);
+        if (dtmf == null) throw new IllegalArgumentException("no such key: " + key);
+        return dtmf.getPlacement()[0] * DTMF.COL_FREQUENCIES.length + dtmf.getPlacement()[1];
+    }
+
+    static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private byte getByte(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_MASK));
+    }
+
+    private int getInt(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getInt((int) (position & SEGMENT_MASK));
+    }
+
+    private long getLong(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getLong((int) (position & SEGMENT_MASK));
+    }
+
+    private float getFloat(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getFloat((int) (position & SEGMENT_MASK));
+    }
+
+    /**
+     * Closes the file. The mappings are released once they are no longer reachable.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * One key press of a recording, from the block in which it was first detected to the end of
+     * the last block in which it was.
+     */
+    public static final class Press {
+
+        private final int channel;
+        private final DTMF dtmf;
+        private final long onset, offset;
+        private final float rowPower, columnPower;
+
+        /**
+         * @param channel channel of the recording
+         * @param dtmf the key
+         * @param onset sample offset of the press
+         * @param offset sample offset of the release
+         * @param rowPower power level of the row frequency when pressed, in dB
+         * @param columnPower power level of the column frequency when pressed, in dB
+         */
+        public Press(int channel, DTMF dtmf, long onset, long offset, double rowPower, double columnPower) {
+            if (channel < 0 || channel > Byte.MAX_VALUE) throw new IllegalArgumentException("channel out of range: " + channel);
+            if (offset < onset || offset - onset > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("offset " + offset + " does not follow onset " + onset);
+            this.channel = channel;
+            this.dtmf = dtmf;
+            this.onset = onset;
+            this.offset = offset;
+            this.rowPower = (float) rowPower;
+            this.columnPower = (float) columnPower;
+        }
+
+        public int getChannel() { return channel; }
+        public DTMF getDtmf() { return dtmf; }
+        public char getKey() { return dtmf.getKey(); }
+        public long getOnset() { return onset; }
+        public long getOffset() { return offset; }
+        public double getRowPower() { return rowPower; }
+        public double getColumnPower() { return columnPower; }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof Press)) return false;
+            Press p = (Press) other;
+            return channel == p.channel && dtmf.equals(p.dtmf) && onset == p.onset && offset == p.offset
+                    && Float.compare(rowPower, p.rowPower) == 0 && Float.compare(columnPower, p.columnPower) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = channel;
+            result = 31 * result + dtmf.hashCode();
+            result = 31 * result + Long.hashCode(onset);
+            result = 31 * result + Long.hashCode(offset);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "Press{channel=" + channel + ", key=" + dtmf.getKey() + ", onset=" + onset + ", offset=" + offset
+                    + ", rowPower=" + rowPower + ", columnPower=" + columnPower + '}';
+        }
+    }
+}
@@ -0,0 +1,191 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writer of a detection index, the key presses found in any number of recordings, for queries by
+ * DetectionIndex without rescanning the audio, see ArchiveScanner.withIndex(...).
+ * <p>
+ * Recordings are appended as they are added, through a direct ByteBuffer and a FileChannel, so
+ * the writer holds only the table and the posting lists in memory, 16 bytes per recording and
+ * 4 per key and pair of successive keys it contains. close() appends those and completes the header; an index whose writer
+ * did not get to close it is rejected by DetectionIndex. The format is described there.
+ * <p>
+ * add(...) is synchronized, so the analysis threads of a scan may share one writer; recordings
+ * are numbered in the order they were added.
+ * <p>
+ * @see DetectionIndex
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class DetectionIndexWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(WavDecoder.DEFAULT_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private long position = DetectionIndex.HEADER_SIZE;  // file position of the next byte in buffer
+    private int recordings;
+    private long presses;
+    private long[] names = new long[1024];               // file position of each recording
+    private int[] counts = new int[1024];
+    private short[] masks = new short[1024];
+    private final int[][] postings = new int[DetectionIndex.LISTS][];   // by key, then by pair of keys
+    private final int[] postingCounts = new int[DetectionIndex.LISTS];
+    private boolean closed;
+
+    private DetectionIndexWriter(FileChannel channel) {
+        this.channel = channel;
+        for (int k = 0; k < DetectionIndex.LISTS; k++) postings[k] = new int[16];
+    }
+
+    /**
+     * Creates, or truncates, an index for writing.
+     *
+     * @param path file to write
+     * @return the writer
+     * @throws IOException if the file cannot be created
+     */
+    public static DetectionIndexWriter create(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            channel.write(ByteBuffer.allocate(DetectionIndex.HEADER_SIZE), 0); // completed by close()
+            return new DetectionIndexWriter(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Method appends a recording to the index.
+     *
+     * @param name name to find the recording by, e.g. its path
+     * @param presses presses of the recording, in any order
+     * @return id of the recording in the index
+     * @throws IOException if the index cannot be written
+     */
+    public synchronized int add(String name, List<DetectionIndex.Press> presses) throws IOException {
+        if (closed) throw new IOException("index is closed");
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        List<DetectionIndex.Press> sorted = new ArrayList<>(presses);
+        sorted.sort(Comparator.comparingInt(DetectionIndex.Press::getChannel).thenComparingLong(DetectionIndex.Press::getOnset));
+
+        int id = recordings;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, 2 * id);
+            counts = Arrays.copyOf(counts, 2 * id);
+            masks = Arrays.copyOf(masks, 2 * id);
+        }
+        names[id] = position + buffer.position();
+        counts[id] = sorted.size();
+        reserve(4);
+        buffer.putInt(bytes.length);
+        for (int off = 0; off < bytes.length; ) {
+            reserve(1);
+            int n = Math.min(buffer.remaining(), bytes.length - off);
+            buffer.put(bytes, off, n);
+            off += n;
+        }
+        pad();
+
+        int mask = 0;
+        long[] pairs = new long[DetectionIndex.KEYS * DetectionIndex.KEYS / 64];
+        DetectionIndex.Press previous = null;
+        for (DetectionIndex.Press press : sorted) {
+            int key = DetectionIndex.keyIndex(press.getKey());
+            reserve(DetectionIndex.PRESS_SIZE);
+            buffer.putLong(press.getOnset()).putInt((int) (press.getOffset() - press.getOnset()))
+                    .putFloat((float) press.getRowPower()).putFloat((float) press.getColumnPower())
+                    .put((byte) key).put((byte) press.getChannel()).putShort((short) 0);
+            mask |= 1 << key;
+            if (previous != null && previous.getChannel() == press.getChannel()) {
+                int pair = DetectionIndex.keyIndex(previous.getKey()) * DetectionIndex.KEYS + key;
+                pairs[pair >>> 6] |= 1L << pair;
+            }
+            previous = press;
+        }
+        masks[id] = (short) mask;
+        for (int k = 0; k < DetectionIndex.KEYS; k++)
+            if ((mask & 1 << k) != 0) post(k, id);
+        for (int pair = 0; pair < DetectionIndex.KEYS * DetectionIndex.KEYS; pair++)
+            if ((pairs[pair >>> 6] & 1L << pair) != 0) post(DetectionIndex.KEYS + pair, id);
+        recordings++;
+        this.presses += sorted.size();
+        return id;
+    }
+
+    private void post(int list, int id) {
+        if (postingCounts[list] == postings[list].length) postings[list] = Arrays.copyOf(postings[list], 2 * postingCounts[list]);
+        postings[list][postingCounts[list]++] = id;
+    }
+
+    public synchronized int getRecordings() { return recordings; }
+
+    /**
+     * Writes the table, the posting lists and the header, and closes the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            pad();
+            long tableOffset = position + buffer.position();
+            for (int id = 0; id < recordings; id++) {
+                reserve(DetectionIndex.TABLE_ENTRY_SIZE);
+                buffer.putLong(names[id]).putInt(counts[id]).putShort(masks[id]).putShort((short) 0);
+            }
+
+            long postingsOffset = position + buffer.position();
+            long ids = postingsOffset + 16L * DetectionIndex.LISTS;
+            for (int k = 0; k < DetectionIndex.LISTS; k++) {
+                reserve(16);
+                buffer.putLong(ids).putInt(postingCounts[k]).putInt(0);
+                ids += 4L * postingCounts[k];
+            }
+            for (int k = 0; k < DetectionIndex.LISTS; k++) {
+                for (int i = 0; i < postingCounts[k]; i++) {
+                    reserve(4);
+                    buffer.putInt(postings[k][i]);
+                }
+            }
+            flush();
+
+            ByteBuffer header = ByteBuffer.allocate(DetectionIndex.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(DetectionIndex.MAGIC).putLong(recordings).putLong(tableOffset).putLong(postingsOffset)
+                    .putLong(presses).flip();
+            while (header.hasRemaining()) channel.write(header, header.position());
+        } finally {
+            channel.close();
+        }
+    }
+
+    // make room for bytes in the buffer
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush();
+    }
+
+    // pad to a multiple of 8 bytes in the file
+    private void pad() throws IOException {
+        reserve(8);
+        while (((position + buffer.position()) & 7) != 0) buffer.put((byte) 0);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) position += channel.write(buffer, position);
+        buffer.clear();
+    }
+}
@@ -0,0 +1,190 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Frequency;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events of the detector, for correlating its behaviour with the GC, CPU and
+ * lock events of the same recording:
+ * <ul>
+ *     <li>goertzel.Block, one block analyzed by a keyFilter(...) method, with its duration</li>
+ *     <li>goertzel.KeyDetected, the strongest key of a block, with its power levels</li>
+ *     <li>goertzel.NearMiss, a block without a key in which the strongest row and column
+ *     frequencies both came within NEAR_MISS_DB of the power threshold</li>
+ * </ul>
+ * Like any JFR event, each is switched on and off, and given a duration threshold, in the
+ * settings of a recording, e.g. -XX:StartFlightRecording:goertzel.Block#enabled=true, or
+ * Recording.enable("goertzel.KeyDetected"). They are off by default, so that a continuous
+ * recording does not pick them up unasked. While an event is off, the detector only asks a
+ * static probe instance whether it is enabled, which the JIT reduces to reading a flag; no event
+ * object is allocated. Stack traces are not recorded, as they would cost more than the block.
+ * <p>
+ * The near-miss margin is taken from the system property goertzel.jfr.nearMissDb, 6 dB by default.
+ * <p>
+ * @see DTMFGoertzel
+ * @see DetectorMetrics
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+final class DetectorEvents {
+
+    static final double NEAR_MISS_DB = Double.parseDouble(System.getProperty("goertzel.jfr.nearMissDb", "6"));
+
+    // probes, never committed, which tell whether each event type is enabled
+    private static final BlockEvent BLOCK = new BlockEvent();
+    private static final KeyDetectedEvent KEY_DETECTED = new KeyDetectedEvent();
+    private static final NearMissEvent NEAR_MISS = new NearMissEvent();
+
+    private DetectorEvents() { }
+
+    @Name("goertzel.Block")
+    @Label("DTMF Block")
+    @Category("DTMF Goertzel")
+    @Description("Analysis of one block of samples")
+    @StackTrace(false)
+    @Enabled(false)
+    static final class BlockEvent extends Event {
+
+        @Label("Samples")
+        int samples;
+
+        @Label("Sample Rate")
+        @Frequency
+        double sampleRate;
+
+        @Label("Key")
+        @Description("Strongest key detected, or '\\0' if none")
+        char key;
+    }
+
+    @Name("goertzel.KeyDetected")
+    @Label("DTMF Key Detected")
+    @Category("DTMF Goertzel")
+    @Description("Strongest key of a block in which both of its frequencies exceeded the power threshold")
+    @StackTrace(false)
+    @Enabled(false)
+    static final class KeyDetectedEvent extends Event {
+
+        @Label("Key")
+        char key;
+
+        @Label("Row Power")
+        @Description("Power level of the row frequency, in dB")
+        double rowPower;
+
+        @Label("Column Power")
+        @Description("Power level of the column frequency, in dB")
+        double columnPower;
+
+        @Label("Hits")
+        @Description("Number of keys which exceeded the power threshold")
+        int hits;
+
+        @Label("Sample Rate")
+        @Frequency
+        double sampleRate;
+    }
+
+    @Name("goertzel.NearMiss")
+    @Label("DTMF Near Miss")
+    @Category("DTMF Goertzel")
+    @Description("Block without a key whose strongest row and column frequencies came close to the power threshold")
+    @StackTrace(false)
+    @Enabled(false)
+    static final class NearMissEvent extends Event {
+
+        @Label("Candidate Key")
+        @Description("Key of the strongest row and column frequency")
+        char key;
+
+        @Label("Row Power")
+        @Description("Power level of the strongest row frequency, in dB")
+        double rowPower;
+
+        @Label("Column Power")
+        @Description("Power level of the strongest column frequency, in dB")
+        double columnPower;
+
+        @Label("Power Threshold")
+        @Description("Minimum level of the detector, in dB")
+        double powerThreshold;
+
+        @Label("Sample Rate")
+        @Frequency
+        double sampleRate;
+    }
+
+    /**
+     * @return a started block event, or null if the event is not enabled
+     */
+    static BlockEvent beginBlock() {
+        if (!BLOCK.isEnabled()) return null;
+        BlockEvent event = new BlockEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Method ends a block event and commits it, if it passes the recording's threshold.
+     *
+     * @param event event returned by beginBlock(), may be null
+     * @param samples number of samples in the block
+     * @param sampleRate sample rate of the detector
+     * @param dtmf key detected in the block, null if none
+     */
+    static void commitBlock(BlockEvent event, int samples, double sampleRate, DTMF dtmf) {
+        if (event == null) return;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.samples = samples;
+        event.sampleRate = sampleRate;
+        event.key = dtmf == null ? '\0' : dtmf.getKey();
+        event.commit();
+    }
+
+    static void keyDetected(DTMF dtmf, double rowPower, double columnPower, int hits, double sampleRate) {
+        if (!KEY_DETECTED.isEnabled()) return;
+        KeyDetectedEvent event = new KeyDetectedEvent();
+        event.key = dtmf.getKey();
+        event.rowPower = rowPower;
+        event.columnPower = columnPower;
+        event.hits = hits;
+        event.sampleRate = sampleRate;
+        event.commit();
+    }
+
+    /**
+     * Method commits a near-miss event if the strongest row and column of a block without a key
+     * both reached powerThreshold - NEAR_MISS_DB.
+     *
+     * @param rowPowers power level of each row frequency, in dB
+     * @param colPowers power level of each column frequency, in dB
+     * @param powerThreshold minimum level of the detector, in dB
+     * @param sampleRate sample rate of the detector
+     */
+    static void nearMiss(double[] rowPowers, double[] colPowers, double powerThreshold, double sampleRate) {
+        if (!NEAR_MISS.isEnabled()) return;
+        int row = strongest(rowPowers), col = strongest(colPowers);
+        double floor = powerThreshold - NEAR_MISS_DB;
+        if (!(rowPowers[row] > floor && colPowers[col] > floor)) return;
+        NearMissEvent event = new NearMissEvent();
+        event.key = DTMF.getTone(row, col).getKey();
+        event.rowPower = rowPowers[row];
+        event.columnPower = colPowers[col];
+        event.powerThreshold = powerThreshold;
+        event.sampleRate = sampleRate;
+        event.commit();
+    }
+
+    private static int strongest(double[] powers) {
+        int best = 0;
+        for (int j = 1; j < powers.length; j++) if (powers[j] > powers[best]) best = j;
+        return best;
+    }
+}
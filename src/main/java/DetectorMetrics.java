@@ -0,0 +1,221 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional instrumentation of a detector: blocks and samples analyzed, detections per key, blocks
+ * skipped by the energy gate, and a histogram of the time spent on each block.
+ * <p>
+ * Every counter is a LongAdder, which spreads concurrent increments over striped cells, so one
+ * instance may be shared by the detectors of many threads, e.g. all channels of a server,
+ * without contending on a single memory location. Block times are kept in a log-linear
+ * histogram: values below 32 ns each have their own bucket, and every power of two above is
+ * divided into SUB_BUCKETS buckets of equal width, so any percentile is resolved to within
+ * 1/SUB_BUCKETS of its value, from nanoseconds to minutes, in a fixed array of counters.
+ * <p>
+ * The figures are read through snapshot(), which copies them into an immutable Snapshot for
+ * export. Counters keep running while a snapshot is taken, so it is not an atomic cut: a block
+ * recorded meanwhile may be reflected in some figures but not in others.
+ * <p>
+ * @see DTMFGoertzel#withMetrics(DetectorMetrics)
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public final class DetectorMetrics {
+
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int MAX_EXPONENT = 40;      // block times up to 2^41 ns, about 36 minutes, are resolved
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private static final int KEYS = DTMF.ROW_FREQUENCIES.length * DTMF.COL_FREQUENCIES.length;
+
+    private final long startNanos = System.nanoTime();
+    private final LongAdder blocks = new LongAdder(), samples = new LongAdder(),
+            skipped = new LongAdder(), busyNanos = new LongAdder();
+    private final LongAdder[] detections = new LongAdder[KEYS];    // by row * columns + column
+    private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+    public DetectorMetrics() {
+        for (int k = 0; k < KEYS; k++) detections[k] = new LongAdder();
+        for (int b = 0; b < BUCKETS; b++) histogram[b] = new LongAdder();
+    }
+
+    /**
+     * Method records one analyzed block.
+     *
+     * @param samples number of samples in the block
+     * @param nanos time spent on the block, in ns
+     * @param dtmf key detected in the block, null if none
+     */
+    public void record(int samples, long nanos, DTMF dtmf) {
+        blocks.increment();
+        this.samples.add(samples);
+        busyNanos.add(nanos);
+        histogram[bucket(nanos)].increment();
+        if (dtmf != null) {
+            int[] placement = dtmf.getPlacement();
+            detections[placement[0] * DTMF.COL_FREQUENCIES.length + placement[1]].increment();
+        }
+    }
+
+    /**
+     * Method records that a block skipped the resonators, see EnergyGate. The block itself is
+     * recorded by record(...) as well.
+     */
+    public void recordSkip() {
+        skipped.increment();
+    }
+
+    /**
+     * @return copy of the current figures
+     */
+    public Snapshot snapshot() {
+        long[] keys = new long[KEYS], counts = new long[BUCKETS];
+        for (int k = 0; k < KEYS; k++) keys[k] = detections[k].sum();
+        for (int b = 0; b < BUCKETS; b++) counts[b] = histogram[b].sum();
+        return new Snapshot(System.nanoTime() - startNanos, blocks.sum(), samples.sum(), skipped.sum(),
+                busyNanos.sum(), keys, counts);
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    // log-linear bucket of a value: exact below 2 * SUB_BUCKETS, SUB_BUCKETS per power of two above
+    static int bucket(long nanos) {
+        if (nanos < 2 * SUB_BUCKETS) return (int) Math.max(0, nanos);
+        int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(nanos));
+        if (exponent == MAX_EXPONENT && nanos >>> MAX_EXPONENT > 1) return BUCKETS - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+    }
+
+    // largest value which falls into a bucket
+    static long highestValue(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Immutable copy of the figures of a DetectorMetrics at one point in time.
+     */
+    public static final class Snapshot {
+
+        private final long elapsedNanos, blocks, samples, skipped, busyNanos;
+        private final long[] detections, histogram;
+
+        Snapshot(long elapsedNanos, long blocks, long samples, long skipped, long busyNanos,
+                 long[] detections, long[] histogram) {
+            this.elapsedNanos = elapsedNanos;
+            this.blocks = blocks;
+            this.samples = samples;
+            this.skipped = skipped;
+            this.busyNanos = busyNanos;
+            this.detections = detections;
+            this.histogram = histogram;
+        }
+
+        /**
+         * @return time since the metrics were created, in ns
+         */
+        public long getElapsedNanos() { return elapsedNanos; }
+        public long getBlocks() { return blocks; }
+        public long getSamples() { return samples; }
+
+        /**
+         * @return number of blocks which skipped the resonators
+         */
+        public long getSkipped() { return skipped; }
+
+        /**
+         * @return total time spent on blocks, in ns, summed over all threads
+         */
+        public long getBusyNanos() { return busyNanos; }
+
+        /**
+         * @return samples analyzed per second of elapsed time, the rate the detector keeps up with
+         */
+        public double getSamplesPerSecond() {
+            return elapsedNanos == 0 ? 0 : samples * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return samples analyzed per second spent on blocks, the rate one thread could sustain
+         */
+        public double getBusySamplesPerSecond() {
+            return busyNanos == 0 ? 0 : samples * 1e9 / busyNanos;
+        }
+
+        /**
+         * @param key the key: 0-9, #, *, A-D
+         * @return number of blocks in which the key was detected
+         */
+        public long getDetections(char key) {
+            DTMF dtmf = DTMF.getToneMap().get(key);
+            if (dtmf == null) throw new IllegalArgumentException("no such key: " + key);
+            return detections[dtmf.getPlacement()[0] * DTMF.COL_FREQUENCIES.length + dtmf.getPlacement()[1]];
+        }
+
+        /**
+         * @return number of blocks in which any key was detected
+         */
+        public long getDetections() {
+            long total = 0;
+            for (long count : detections) total += count;
+            return total;
+        }
+
+        /**
+         * @return number of detections of every key, in keypad order
+         */
+        public Map<Character, Long> getDetectionsPerKey() {
+            Map<Character, Long> result = new LinkedHashMap<>();
+            for (int row = 0; row < DTMF.ROW_FREQUENCIES.length; row++)
+                for (int col = 0; col < DTMF.COL_FREQUENCIES.length; col++)
+                    result.put(DTMF.getTone(row, col).getKey(), detections[row * DTMF.COL_FREQUENCIES.length + col]);
+            return result;
+        }
+
+        /**
+         * @return mean time spent on a block, in ns, NaN if no block was recorded
+         */
+        public double getMeanNanos() {
+            return blocks == 0 ? Double.NaN : (double) busyNanos / blocks;
+        }
+
+        /**
+         * @param percentile from 0 .. 100
+         * @return time within which the given percentage of blocks completed, in ns, as the upper
+         *         end of its histogram bucket; 0 if no block was recorded
+         */
+        public long getPercentileNanos(double percentile) {
+            long total = 0;
+            for (long count : histogram) total += count;
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int b = 0; b < histogram.length; b++) {
+                seen += histogram[b];
+                if (seen >= rank) return highestValue(b);
+            }
+            return highestValue(histogram.length - 1);
+        }
+
+        public long getP50Nanos() { return getPercentileNanos(50); }
+        public long getP99Nanos() { return getPercentileNanos(99); }
+        public long getP999Nanos() { return getPercentileNanos(99.9); }
+
+        @Override
+        public String toString() {
+            return "DetectorMetrics{blocks=" + blocks + ", samples=" + samples + ", skipped=" + skipped
+                    + ", detections=" + getDetections() + ", samplesPerSecond=" + Math.round(getSamplesPerSecond())
+                    + ", p50=" + getP50Nanos() + "ns, p99=" + getP99Nanos() + "ns, p999=" + getP999Nanos() + "ns}";
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cheap pre-gate which decides from the energy of a block whether running the resonators can
+ * possibly yield a key, so that silent and low level blocks skip the Goertzel loop entirely.
+ * <p>
+ * The Goertzel output of a resonator is a weighted sum of the block's samples, so by the
+ * Cauchy-Schwarz inequality its magnitude is at most sqrt(energy) times the norm of the weights.
+ * With h(n) = sin((n+1)w)/sin(w) the impulse response of the resonator, each weight is bounded
+ * by (1 + wnk)/|sin(w)|, which gives an upper bound on the power any resonator can report for a
+ * block of a given length and energy. A key needs a row and a column frequency above the power
+ * threshold, so when the bound of either group falls at or below the floor, the block is
+ * skipped. With a margin of 0 dB the floor is the power threshold itself and skipping never
+ * changes a result; a positive margin skips more blocks, at the risk of missing weak keys.
+ * <p>
+ * Counters of passed and skipped blocks are kept with LongAdder, so a gate may be shared by
+ * detectors on many threads.
+ * <p>
+ * @see DTMFGoertzel#withEnergyGate(double)
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public final class EnergyGate {
+
+    private final double marginDb;
+    private final double floor; // block energy times length at or below which a block is skipped
+    private final LongAdder passed = new LongAdder(), skipped = new LongAdder();
+
+    /**
+     * @param plan resonators of the detector, rows then columns
+     * @param rows number of row frequencies, at the start of the plan
+     * @param powerThreshold minimum level of the detector, in dB
+     * @param marginDb floor above the power threshold, in dB
+     */
+    EnergyGate(GoertzelPlan plan, int rows, double powerThreshold, double marginDb) {
+        this.marginDb = marginDb;
+
+        double rowGain = 0, colGain = 0; // largest squared weight bound of each group
+        for (int j = 0; j < plan.size(); j++) {
+            double gain = plan.weightBound(j) * plan.weightBound(j);
+            if (j < rows) rowGain = Math.max(rowGain, gain);
+            else colGain = Math.max(colGain, gain);
+        }
+        // 10 log10(energy * length * gain) <= powerThreshold + marginDb
+        floor = Math.pow(10, (powerThreshold + marginDb) / 10) / Math.min(rowGain, colGain);
+    }
+
+    /**
+     * @param buffer waveform data, provided in range from -1 .. 1
+     * @param off index of the first sample
+     * @param len number of samples
+     * @param stride distance between consecutive samples in buffer
+     * @return true if the block must be analyzed, false if it can be skipped
+     */
+    boolean admit(float[] buffer, int off, int len, int stride) {
+        double energy = 0;
+        for (int i = off, end = off + len * stride; i < end; i += stride) {
+            double v = buffer[i];
+            energy += v * v;
+        }
+        return count(energy, len);
+    }
+
+    /**
+     * @param buffer companded waveform data
+     * @param off index of the first sample
+     * @param len number of samples
+     * @param table 256 entry table of linear values, indexed by code, see G711
+     * @return true if the block must be analyzed, false if it can be skipped
+     */
+    boolean admit(byte[] buffer, int off, int len, float[] table) {
+        double energy = 0;
+        for (int i = off, end = off + len; i < end; i++) {
+            double v = table[buffer[i] & 0xff];
+            energy += v * v;
+        }
+        return count(energy, len);
+    }
+
+    boolean admit(ByteBuffer buffer, int off, int len, float[] table) {
+        if (buffer.hasArray()) return admit(buffer.array(), buffer.arrayOffset() + off, len, table);
+        double energy = 0;
+        for (int i = off, end = off + len; i < end; i++) {
+            double v = table[buffer.get(i) & 0xff];
+            energy += v * v;
+        }
+        return count(energy, len);
+    }
+
+    private boolean count(double energy, int len) {
+        if (energy * len > floor) {
+            passed.increment();
+            return true;
+        }
+        skipped.increment();
+        return false;
+    }
+
+    public double getMarginDb() { return marginDb; }
+
+    /**
+     * @return number of blocks for which the resonators were run
+     */
+    public long getPassed() { return passed.sum(); }
+
+    /**
+     * @return number of blocks which skipped the resonators
+     */
+    public long getSkipped() { return skipped.sum(); }
+
+    /**
+     * @return fraction of blocks which skipped the resonators, 0 if none were seen
+     */
+    public double getSkipRatio() {
+        long skips = skipped.sum(), total = skips + passed.sum();
+        return total == 0 ? 0 : (double) skips / total;
+    }
+
+    @Override
+    public String toString() {
+        return "EnergyGate{marginDb=" + marginDb + ", passed=" + getPassed() + ", skipped=" + getSkipped() + '}';
+    }
+}
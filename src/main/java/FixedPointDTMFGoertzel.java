@@ -0,0 +1,265 @@
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * Integer variant of DTMFGoertzel, which analyzes 16 bit PCM as it comes, in short[] arrays or
+ * ShortBuffers (e.g. WavFile.samples()), without converting it to floats first.
+ * <p>
+ * The coefficients 2cos(w) are held in Q28 fixed point, i.e. scaled by 2^28, which covers
+ * their range of -2 .. 2 in a 32 bit integer; products are rounded back to the sample scale
+ * after every multiplication. The recurrence runs on long integers. 16 bit coefficients (Q14)
+ * would shift each resonator's frequency enough to move levels by a tenth of a dB, as the
+ * metric is sensitive to phase. The resonator state grows by at most 32768/|sin(w)| per sample,
+ * so blocks are limited to getMaxBlockSize() samples, over a second at 44.1 kHz, to keep the
+ * products within 64 bits. Only the final skn0 - wnk*skn1 of each block is formed in floating
+ * point.
+ * <p>
+ * Rather than taking 20*log10(abs(...)) of every resonator, the squared magnitude
+ * (skn0 - wnk*skn1)^2 is compared against the power threshold converted once into the same
+ * linear, 16 bit PCM scale, so the hot path holds no logarithm. Power levels in dB, on the
+ * scale used by DTMFGoertzel, are computed by the Result only when they are asked for.
+ * <p>
+ * @see DTMFGoertzel
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class FixedPointDTMFGoertzel {
+
+    static final int Q = 28;                    // fraction bits of the coefficients
+    private static final long HALF = 1L << (Q - 1);
+    private static final double FULL_SCALE = 32767.0D;  // PCM value of 1.0 in DTMFGoertzel
+
+    private final double sampleRate, powerThreshold;
+    private final double threshold;             // powerThreshold as a squared magnitude on the PCM scale
+    private final int maxBlockSize;
+    private final long[] cosines = new long[DTMFGoertzel.RESONATORS]; // 2cos(w) in Q28, rows then columns
+    private final double[] wnk = new double[DTMFGoertzel.RESONATORS]; // exp(-w), applied once per block
+
+    public FixedPointDTMFGoertzel(double sampleRate, double powerThreshold) {
+        this(GoertzelPlan.dtmf(sampleRate), powerThreshold);
+    }
+
+    /**
+     * Class constructor specifying the frequencies, as a plan of the four row frequencies
+     * followed by the four column frequencies, and minimum detection threshold.
+     *
+     * @param plan resonators, rows then columns
+     * @param powerThreshold Minimum level needed to accept, in dB on the scale of DTMFGoertzel
+     */
+    public FixedPointDTMFGoertzel(GoertzelPlan plan, double powerThreshold) {
+        if (plan.size() != DTMFGoertzel.RESONATORS)
+            throw new IllegalArgumentException("plan must hold " + DTMFGoertzel.RESONATORS + " frequencies: " + plan);
+        this.sampleRate = plan.getSampleRate();
+        this.powerThreshold = powerThreshold;
+        this.threshold = FULL_SCALE * FULL_SCALE * Math.pow(10, powerThreshold / 10);
+
+        double growth = 0; // largest growth of the state per sample
+        for (int j = 0; j < cosines.length; j++) {
+            double w = 2 * Math.PI * plan.getFrequency(j) / sampleRate;
+            cosines[j] = Math.round(2 * Math.cos(w) * (1 << Q));
+            wnk[j] = Math.exp(-w);
+            growth = Math.max(growth, 32768 / Math.abs(Math.sin(w)));
+        }
+        // |state| <= len * growth, and |cosine * state| must stay below 2^63
+        maxBlockSize = (int) Math.min(Integer.MAX_VALUE, Math.pow(2, 63 - Q - 1) / growth) - 1;
+    }
+
+    public double getSampleRate() { return sampleRate; }
+    public double getPowerThreshold() { return powerThreshold; }
+
+    /**
+     * @return largest number of samples analyzed by one call to keyFilter(...)
+     */
+    public int getMaxBlockSize() { return maxBlockSize; }
+
+    /**
+     * Method analyzes a block of 16 bit PCM and selects the strongest key, as does
+     * DTMFGoertzel.keyFilter(float[], int, int, Detection).
+     *
+     * @param buffer waveform data to be analyzed, as 16 bit PCM
+     * @param off index of the first sample to analyze
+     * @param len number of samples to analyze
+     * @param result receives the strongest dtmf key which exceeds the power threshold, if any
+     * @return true if a key was detected
+     */
+    public boolean keyFilter(short[] buffer, int off, int len, Result result) {
+        if (off < 0 || len < 0 || off + len > buffer.length)
+            throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", length=" + buffer.length);
+        if (len > maxBlockSize)
+            throw new IllegalArgumentException("block of " + len + " samples exceeds " + maxBlockSize);
+
+        final long c0 = cosines[0], c1 = cosines[1], c2 = cosines[2], c3 = cosines[3],
+                   c4 = cosines[4], c5 = cosines[5], c6 = cosines[6], c7 = cosines[7];
+
+        long a0 = 0, a1 = 0, a2 = 0, a3 = 0, a4 = 0, a5 = 0, a6 = 0, a7 = 0;
+        long b0 = 0, b1 = 0, b2 = 0, b3 = 0, b4 = 0, b5 = 0, b6 = 0, b7 = 0;
+
+        long t;
+        for (int i = off, end = off + len; i < end; i++) {
+            final long v = buffer[i];
+            t = a0; a0 = ((c0 * a0 + HALF) >> Q) - b0 + v; b0 = t;
+            t = a1; a1 = ((c1 * a1 + HALF) >> Q) - b1 + v; b1 = t;
+            t = a2; a2 = ((c2 * a2 + HALF) >> Q) - b2 + v; b2 = t;
+            t = a3; a3 = ((c3 * a3 + HALF) >> Q) - b3 + v; b3 = t;
+            t = a4; a4 = ((c4 * a4 + HALF) >> Q) - b4 + v; b4 = t;
+            t = a5; a5 = ((c5 * a5 + HALF) >> Q) - b5 + v; b5 = t;
+            t = a6; a6 = ((c6 * a6 + HALF) >> Q) - b6 + v; b6 = t;
+            t = a7; a7 = ((c7 * a7 + HALF) >> Q) - b7 + v; b7 = t;
+        }
+
+        double[] m = result.magnitudes;
+        m[0] = magnitude(0, a0, b0); m[1] = magnitude(1, a1, b1);
+        m[2] = magnitude(2, a2, b2); m[3] = magnitude(3, a3, b3);
+        m[4] = magnitude(4, a4, b4); m[5] = magnitude(5, a5, b5);
+        m[6] = magnitude(6, a6, b6); m[7] = magnitude(7, a7, b7);
+        return evaluate(result);
+    }
+
+    /**
+     * Variant of keyFilter(short[], ...) analyzing the remaining samples of a ShortBuffer, e.g. a
+     * memory-mapped file, without changing its position.
+     *
+     * @param buffer waveform data to be analyzed, as 16 bit PCM
+     * @param result receives the strongest dtmf key which exceeds the power threshold, if any
+     * @return true if a key was detected
+     */
+    public boolean keyFilter(ShortBuffer buffer, Result result) {
+        if (buffer.hasArray())
+            return keyFilter(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), result);
+
+        if (buffer.remaining() > maxBlockSize)
+            throw new IllegalArgumentException("block of " + buffer.remaining() + " samples exceeds " + maxBlockSize);
+
+        long[] s = result.state;
+        Arrays.fill(s, 0);
+        long[] c = cosines;
+        int n = c.length;
+        for (int i = buffer.position(), end = buffer.limit(); i < end; i++) {
+            final long v = buffer.get(i);
+            for (int j = 0; j < n; j++) {
+                long a = s[j];
+                s[j] = ((c[j] * a + HALF) >> Q) - s[n + j] + v;
+                s[n + j] = a;
+            }
+        }
+        for (int j = 0; j < n; j++) result.magnitudes[j] = magnitude(j, s[j], s[n + j]);
+        return evaluate(result);
+    }
+
+    // (skn0 - wnk*skn1)^2, on the PCM scale; skn0 and wnk*skn1 nearly cancel, so wnk is not quantized
+    private double magnitude(int j, long skn0, long skn1) {
+        double m = skn0 - wnk[j] * skn1;
+        return m * m;
+    }
+
+    // strongest key with both magnitudes above threshold; the largest sum of dB is the largest product
+    private boolean evaluate(Result result) {
+        double[] m = result.magnitudes;
+        int rows = DTMF.ROW_FREQUENCIES.length;
+        int bestRow = -1, bestCol = -1, hits = 0;
+        double best = -1;
+        for (int row = 0; row < rows; row++) {
+            if (!(m[row] > threshold)) continue;
+            for (int col = 0; col < DTMF.COL_FREQUENCIES.length; col++) {
+                if (!(m[rows + col] > threshold)) continue;
+                hits++;
+                double product = m[row] * m[rows + col];
+                if (product > best) {
+                    best = product;
+                    bestRow = row;
+                    bestCol = col;
+                }
+            }
+        }
+        result.set(hits == 0 ? null : DTMF.getTone(bestRow, bestCol), bestRow, bestCol, hits);
+        return hits > 0;
+    }
+
+    /**
+     * Reusable, caller-owned holder for the outcome of analyzing one block, as
+     * DTMFGoertzel.Detection, except that squared magnitudes are kept and converted to dB
+     * only on request.
+     * <p>
+     * A Result is overwritten by every block it is handed to, and is not thread safe.
+     */
+    public static class Result {
+
+        final double[] magnitudes = new double[DTMFGoertzel.RESONATORS]; // squared, rows then columns
+        final long[] state = new long[2 * DTMFGoertzel.RESONATORS];
+
+        private DTMF dtmf;
+        private int row = -1, col = -1, hits;
+
+        void set(DTMF dtmf, int row, int col, int hits) {
+            this.dtmf = dtmf;
+            this.row = row;
+            this.col = col;
+            this.hits = hits;
+        }
+
+        public boolean isDetected() { return dtmf != null; }
+
+        /**
+         * @return the strongest detected key, or null if no key was detected
+         */
+        public DTMF getDtmf() { return dtmf; }
+
+        /**
+         * @return the strongest detected key, or '\0' if no key was detected
+         */
+        public char getKey() { return dtmf == null ? '\0' : dtmf.getKey(); }
+
+        /**
+         * @return number of keys which exceeded the power threshold
+         */
+        public int getHits() { return hits; }
+
+        /**
+         * @return power level of the detected key's row frequency, in dB, NaN if none was detected
+         */
+        public double getRowPower() { return dtmf == null ? Double.NaN : getRowPower(row); }
+
+        /**
+         * @return power level of the detected key's column frequency, in dB, NaN if none was detected
+         */
+        public double getColumnPower() { return dtmf == null ? Double.NaN : getColumnPower(col); }
+        public double getAveragePower() { return (getRowPower() + getColumnPower()) / 2D; }
+
+        /**
+         * @param row index into DTMF.ROW_FREQUENCIES
+         * @return power level measured at that row frequency, in dB
+         */
+        public double getRowPower(int row) { return decibels(magnitudes[row]); }
+
+        /**
+         * @param col index into DTMF.COL_FREQUENCIES
+         * @return power level measured at that column frequency, in dB
+         */
+        public double getColumnPower(int col) { return decibels(magnitudes[DTMF.ROW_FREQUENCIES.length + col]); }
+
+        /**
+         * @param row index into DTMF.ROW_FREQUENCIES
+         * @return squared magnitude measured at that row frequency, on the 16 bit PCM scale
+         */
+        public double getRowMagnitude(int row) { return magnitudes[row]; }
+
+        /**
+         * @param col index into DTMF.COL_FREQUENCIES
+         * @return squared magnitude measured at that column frequency, on the 16 bit PCM scale
+         */
+        public double getColumnMagnitude(int col) { return magnitudes[DTMF.ROW_FREQUENCIES.length + col]; }
+
+        // squared magnitude on the PCM scale to the dB of DTMFGoertzel, whose samples are PCM / 32767
+        private static double decibels(double magnitude) {
+            return 10 * Math.log10(magnitude / (FULL_SCALE * FULL_SCALE));
+        }
+
+        @Override
+        public String toString() {
+            return dtmf == null ? "Result{none}"
+                    : "Result{key=" + dtmf.getKey() + ", rowPower=" + getRowPower() + ", columnPower=" + getColumnPower() + '}';
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * ITU-T G.711 companding laws, as used for 8 bit telephony audio.
+ * <p>
+ * Each law carries a 256 entry table mapping every code to its linear value as a float in range
+ * from -1 .. 1 (scaled by 1/32767, as for 16 bit PCM elsewhere in this project). The detector
+ * kernels look codes up in this table inside their inner loop, so companded audio never needs
+ * to be expanded into a temporary buffer.
+ * <p>
+ * @see <a href="https://www.itu.int/rec/T-REC-G.711-198811-I">https://www.itu.int/rec/T-REC-G.711-198811-I</a>
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public enum G711 {
+
+    MU_LAW {
+        @Override
+        public short decodeLinear(byte code) {
+            int u = ~code & 0xff;
+            int t = (((u & 0x0f) << 3) + BIAS) << ((u & 0x70) >> 4);
+            return (short) ((u & 0x80) != 0 ? BIAS - t : t - BIAS);
+        }
+
+        @Override
+        public byte encode(short pcm) {
+            int value = pcm >> 2, mask;
+            if (value < 0) {
+                value = -value;
+                mask = 0x7f;
+            } else {
+                mask = 0xff;
+            }
+            if (value > MU_CLIP) value = MU_CLIP;
+            value += BIAS >> 2;
+            int segment = segment(value, 0x3f);
+            if (segment >= 8) return (byte) (0x7f ^ mask);
+            return (byte) (((segment << 4) | ((value >> (segment + 1)) & 0x0f)) ^ mask);
+        }
+    },
+
+    A_LAW {
+        @Override
+        public short decodeLinear(byte code) {
+            int a = (code & 0xff) ^ 0x55;
+            int t = (a & 0x0f) << 4;
+            int segment = (a & 0x70) >> 4;
+            if (segment == 0) t += 8;
+            else t = (t + 0x108) << (segment - 1);
+            return (short) ((a & 0x80) != 0 ? t : -t);
+        }
+
+        @Override
+        public byte encode(short pcm) {
+            int value = pcm >> 3, mask;
+            if (value >= 0) {
+                mask = 0xd5;
+            } else {
+                mask = 0x55;
+                value = -value - 1;
+            }
+            int segment = segment(value, 0x1f);
+            if (segment >= 8) return (byte) (0x7f ^ mask);
+            int code = segment << 4;
+            code |= segment < 2 ? (value >> 1) & 0x0f : (value >> segment) & 0x0f;
+            return (byte) (code ^ mask);
+        }
+    };
+
+    private static final int BIAS = 0x84, MU_CLIP = 8159;
+
+    final float[] table = new float[256]; // indexed by code & 0xff
+
+    static {
+        for (G711 law : values())
+            for (int code = 0; code < 256; code++)
+                law.table[code] = law.decodeLinear((byte) code) / 32767.0F;
+    }
+
+    /**
+     * @param code companded sample
+     * @return linear value, as 16 bit PCM
+     */
+    public abstract short decodeLinear(byte code);
+
+    /**
+     * @param pcm linear value, as 16 bit PCM
+     * @return companded sample
+     */
+    public abstract byte encode(short pcm);
+
+    /**
+     * @param code companded sample
+     * @return linear value, in range from -1 .. 1
+     */
+    public float decode(byte code) {
+        return table[code & 0xff];
+    }
+
+    // index of the first segment whose end, doubling from first, is not below value; 8 if none
+    private static int segment(int value, int first) {
+        int segment = 0;
+        for (int end = first; segment < 8 && value > end; end = (end << 1) | 1) segment++;
+        return segment;
+    }
+}
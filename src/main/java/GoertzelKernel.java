@@ -0,0 +1,28 @@
+/**
+ * Optional kernel advancing the eight DTMF resonators of two streams at once, e.g. two channels
+ * of a batch, loaded by GoertzelPlan when the runtime provides it. State is laid out as described
+ * by GoertzelPlan, and results must agree with the scalar recurrence.
+ * <p>
+ * @see GoertzelPlan#update(float[], int, float[], int, int, int, double[], int, int)
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+interface GoertzelKernel {
+
+    /**
+     * @param cosines the eight coefficients 2cos(w) of the plan
+     * @param buffer0 waveform data of the first stream, provided in range from -1 .. 1
+     * @param off0 index of the first sample of the first stream
+     * @param buffer1 waveform data of the second stream, provided in range from -1 .. 1
+     * @param off1 index of the first sample of the second stream
+     * @param len number of samples to analyze in each stream
+     * @param stride distance between consecutive samples of a stream
+     * @param state recurrence state, see GoertzelPlan
+     * @param stateOffset0 index of the first stream's state within the state array
+     * @param stateOffset1 index of the second stream's state within the state array
+     */
+    void update(double[] cosines, float[] buffer0, int off0, float[] buffer1, int off1, int len, int stride,
+                double[] state, int stateOffset0, int stateOffset1);
+}
@@ -0,0 +1,454 @@
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable, precompiled set of Goertzel resonators for an arbitrary list of frequencies.
+ * <p>
+ * A plan is compiled once per (sample rate, frequency list) and holds the coefficients of every
+ * resonator in primitive arrays, so that analyzing a block costs nothing beyond the recurrence
+ * itself. It does not depend on the block size, which is chosen by the caller of update(...).
+ * Plans are cached, and compile(...) hands the same instance to every caller asking for the same
+ * configuration, so they can be shared freely between detectors and threads. The cache is not
+ * bounded: it holds one plan of a few hundred bytes for every distinct sample rate and frequency
+ * list ever compiled, which is meant for the handful of configurations of a deployment, not for
+ * frequencies computed from untrusted input.
+ * <p>
+ * A plan holds no recurrence state. Callers supply a state array of stateSize() doubles per
+ * stream, laid out as skn0 of every resonator followed by skn1 of every resonator, which allows
+ * the state of several streams to live side by side in one array.
+ * <p>
+ * Two streams of eight resonators can be advanced together with the Vector API kernel, when
+ * the jdk.incubator.vector module is present (--add-modules jdk.incubator.vector) and the
+ * platform has 256 bit vectors. It may be turned off with -Dgoertzel.vector=false; without it,
+ * the scalar kernels are used.
+ * <p>
+ * @see DTMFGoertzel
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public final class GoertzelPlan {
+
+    private static final ConcurrentMap<Key, GoertzelPlan> CACHE = new ConcurrentHashMap<>();
+    private static final GoertzelKernel VECTOR_KERNEL = loadVectorKernel();
+
+    private final double sampleRate;
+    private final double[] frequencies, cosines, wnk;
+
+    private GoertzelPlan(Key key) {
+        this.sampleRate = key.sampleRate;
+        this.frequencies = key.frequencies;
+
+        cosines = new double[frequencies.length];
+        wnk = new double[frequencies.length];
+        for (int i = 0; i < frequencies.length; i++) {
+            cosines[i] = 2 * Math.cos(2 * Math.PI * frequencies[i] / sampleRate);
+            wnk[i] = Math.exp(-2 * Math.PI * frequencies[i] / sampleRate);
+        }
+    }
+
+    /**
+     * Returns the plan for the given configuration, compiling it on first use.
+     *
+     * @param sampleRate the sampling rate of the waveform data to be analyzed, in Hz
+     * @param frequencies frequencies of interest, in Hz
+     * @return shared plan for the configuration
+     */
+    public static GoertzelPlan compile(double sampleRate, double... frequencies) {
+        if (!(sampleRate > 0)) throw new IllegalArgumentException("sampleRate must be positive: " + sampleRate);
+        if (frequencies.length == 0) throw new IllegalArgumentException("no frequencies given");
+        for (double f : frequencies)
+            if (!(f > 0 && f < sampleRate / 2))
+                throw new IllegalArgumentException("frequency " + f + " Hz out of range for sample rate " + sampleRate);
+        return CACHE.computeIfAbsent(new Key(sampleRate, frequencies.clone()), GoertzelPlan::new);
+    }
+
+    /**
+     * Returns the plan for the eight DTMF frequencies, DTMF.ROW_FREQUENCIES followed by
+     * DTMF.COL_FREQUENCIES.
+     *
+     * @param sampleRate the sampling rate of the waveform data to be analyzed, in Hz
+     * @return shared plan for the configuration
+     */
+    public static GoertzelPlan dtmf(double sampleRate) {
+        double[] frequencies = new double[DTMF.ROW_FREQUENCIES.length + DTMF.COL_FREQUENCIES.length];
+        for (int i = 0; i < DTMF.ROW_FREQUENCIES.length; i++)
+            frequencies[i] = DTMF.ROW_FREQUENCIES[i];
+        for (int i = 0; i < DTMF.COL_FREQUENCIES.length; i++)
+            frequencies[DTMF.ROW_FREQUENCIES.length + i] = DTMF.COL_FREQUENCIES[i];
+        return compile(sampleRate, frequencies);
+    }
+
+    /**
+     * Method advances the recurrence of every resonator over buffer[off .. off+len), in a single
+     * pass over the buffer. Resonator state is loaded from, and stored back into, the state array
+     * so that the recurrence may be continued over a later buffer.
+     *
+     * @param buffer waveform data to be analyzed, provided in range from -1 .. 1
+     * @param off index of the first sample to analyze
+     * @param len number of samples to analyze
+     * @param state recurrence state, see class description
+     * @param stateOffset index of this stream's state within the state array
+     */
+    public void update(float[] buffer, int off, int len, double[] state, int stateOffset) {
+        update(buffer, off, len, 1, state, stateOffset);
+    }
+
+    /**
+     * Method advances the recurrence of every resonator over len samples taken stride apart,
+     * starting at buffer[off]. With stride set to the channel count, this analyzes one channel
+     * of interleaved multi-channel data in place.
+     *
+     * @param buffer waveform data to be analyzed, provided in range from -1 .. 1
+     * @param off index of the first sample to analyze
+     * @param len number of samples to analyze
+     * @param stride distance between consecutive samples in buffer
+     * @param state recurrence state, see class description
+     * @param stateOffset index of this stream's state within the state array
+     */
+    public void update(float[] buffer, int off, int len, int stride, double[] state, int stateOffset) {
+        if (cosines.length == 8) {
+            update8(buffer, off, len, stride, state, stateOffset);
+            return;
+        }
+
+        final int n = cosines.length;
+        final int s1 = stateOffset + n;
+        for (int i = off, end = off + len * stride; i < end; i += stride) {
+            final double v = buffer[i];
+            for (int j = 0; j < n; j++) {
+                double t = state[stateOffset + j];
+                state[stateOffset + j] = cosines[j] * t - state[s1 + j] + v;
+                state[s1 + j] = t;
+            }
+        }
+    }
+
+    /**
+     * Variant of update(float[], ...) for samples held in a FloatBuffer, e.g. a SampleRing backed
+     * by off-heap memory, which is read in place. Samples are read with absolute gets, so the
+     * buffer's position is not changed.
+     *
+     * @param buffer waveform data to be analyzed, provided in range from -1 .. 1
+     * @param off index of the first sample to analyze
+     * @param len number of samples to analyze
+     * @param state recurrence state, see class description
+     * @param stateOffset index of this stream's state within the state array
+     */
+    public void update(FloatBuffer buffer, int off, int len, double[] state, int stateOffset) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + off, len, state, stateOffset);
+            return;
+        }
+        if (cosines.length == 8) {
+            update8(buffer, off, len, state, stateOffset);
+            return;
+        }
+
+        final int n = cosines.length;
+        final int s1 = stateOffset + n;
+        for (int i = off, end = off + len; i < end; i++) {
+            final double v = buffer.get(i);
+            for (int j = 0; j < n; j++) {
+                double t = state[stateOffset + j];
+                state[stateOffset + j] = cosines[j] * t - state[s1 + j] + v;
+                state[s1 + j] = t;
+            }
+        }
+    }
+
+    /**
+     * Method advances the recurrence of two streams over len samples each, e.g. two channels of
+     * a batch. For plans of eight resonators this runs the Vector API kernel when it is
+     * available, otherwise it is equivalent to two calls of update(...).
+     *
+     * @param buffer0 waveform data of the first stream, provided in range from -1 .. 1
+     * @param off0 index of the first sample of the first stream
+     * @param buffer1 waveform data of the second stream, provided in range from -1 .. 1
+     * @param off1 index of the first sample of the second stream
+     * @param len number of samples to analyze in each stream
+     * @param stride distance between consecutive samples of a stream
+     * @param state recurrence state, see class description
+     * @param stateOffset0 index of the first stream's state within the state array
+     * @param stateOffset1 index of the second stream's state within the state array
+     */
+    public void update(float[] buffer0, int off0, float[] buffer1, int off1, int len, int stride,
+                       double[] state, int stateOffset0, int stateOffset1) {
+        if (VECTOR_KERNEL != null && cosines.length == 8) {
+            VECTOR_KERNEL.update(cosines, buffer0, off0, buffer1, off1, len, stride, state, stateOffset0, stateOffset1);
+            return;
+        }
+        update(buffer0, off0, len, stride, state, stateOffset0);
+        update(buffer1, off1, len, stride, state, stateOffset1);
+    }
+
+    /**
+     * @return true if update(...) of two streams runs on the Vector API kernel
+     */
+    public static boolean isVectorized() { return VECTOR_KERNEL != null; }
+
+    // the Vector API kernel, if its module is present and it was not turned off; null otherwise
+    private static GoertzelKernel loadVectorKernel() {
+        if (!Boolean.parseBoolean(System.getProperty("goertzel.vector", "true"))) return null;
+        try {
+            return (GoertzelKernel) Class.forName("VectorGoertzelKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null; // not compiled in, module not resolved, or no 256 bit vectors
+        }
+    }
+
+    // the eight tone (DTMF) case, with all resonators advanced together and held in locals
+    private void update8(float[] buffer, int off, int len, int stride, double[] state, int o) {
+
+        final double c0 = cosines[0], c1 = cosines[1], c2 = cosines[2], c3 = cosines[3],
+                     c4 = cosines[4], c5 = cosines[5], c6 = cosines[6], c7 = cosines[7];
+
+        double a0 = state[o],     a1 = state[o + 1], a2 = state[o + 2],  a3 = state[o + 3],
+               a4 = state[o + 4], a5 = state[o + 5], a6 = state[o + 6],  a7 = state[o + 7];
+        double b0 = state[o + 8], b1 = state[o + 9], b2 = state[o + 10], b3 = state[o + 11],
+               b4 = state[o + 12], b5 = state[o + 13], b6 = state[o + 14], b7 = state[o + 15];
+
+        double t;
+        for (int i = off, end = off + len * stride; i < end; i += stride) {
+            final double v = buffer[i];
+            t = a0; a0 = c0 * a0 - b0 + v; b0 = t;
+            t = a1; a1 = c1 * a1 - b1 + v; b1 = t;
+            t = a2; a2 = c2 * a2 - b2 + v; b2 = t;
+            t = a3; a3 = c3 * a3 - b3 + v; b3 = t;
+            t = a4; a4 = c4 * a4 - b4 + v; b4 = t;
+            t = a5; a5 = c5 * a5 - b5 + v; b5 = t;
+            t = a6; a6 = c6 * a6 - b6 + v; b6 = t;
+            t = a7; a7 = c7 * a7 - b7 + v; b7 = t;
+        }
+
+        state[o]      = a0; state[o + 1]  = a1; state[o + 2]  = a2; state[o + 3]  = a3;
+        state[o + 4]  = a4; state[o + 5]  = a5; state[o + 6]  = a6; state[o + 7]  = a7;
+        state[o + 8]  = b0; state[o + 9]  = b1; state[o + 10] = b2; state[o + 11] = b3;
+        state[o + 12] = b4; state[o + 13] = b5; state[o + 14] = b6; state[o + 15] = b7;
+    }
+
+    // as update8(float[], ...), reading the samples from a buffer
+    private void update8(FloatBuffer buffer, int off, int len, double[] state, int o) {
+
+        final double c0 = cosines[0], c1 = cosines[1], c2 = cosines[2], c3 = cosines[3],
+                     c4 = cosines[4], c5 = cosines[5], c6 = cosines[6], c7 = cosines[7];
+
+        double a0 = state[o],     a1 = state[o + 1], a2 = state[o + 2],  a3 = state[o + 3],
+               a4 = state[o + 4], a5 = state[o + 5], a6 = state[o + 6],  a7 = state[o + 7];
+        double b0 = state[o + 8], b1 = state[o + 9], b2 = state[o + 10], b3 = state[o + 11],
+               b4 = state[o + 12], b5 = state[o + 13], b6 = state[o + 14], b7 = state[o + 15];
+
+        double t;
+        for (int i = off, end = off + len; i < end; i++) {
+            final double v = buffer.get(i);
+            t = a0; a0 = c0 * a0 - b0 + v; b0 = t;
+            t = a1; a1 = c1 * a1 - b1 + v; b1 = t;
+            t = a2; a2 = c2 * a2 - b2 + v; b2 = t;
+            t = a3; a3 = c3 * a3 - b3 + v; b3 = t;
+            t = a4; a4 = c4 * a4 - b4 + v; b4 = t;
+            t = a5; a5 = c5 * a5 - b5 + v; b5 = t;
+            t = a6; a6 = c6 * a6 - b6 + v; b6 = t;
+            t = a7; a7 = c7 * a7 - b7 + v; b7 = t;
+        }
+
+        state[o]      = a0; state[o + 1]  = a1; state[o + 2]  = a2; state[o + 3]  = a3;
+        state[o + 4]  = a4; state[o + 5]  = a5; state[o + 6]  = a6; state[o + 7]  = a7;
+        state[o + 8]  = b0; state[o + 9]  = b1; state[o + 10] = b2; state[o + 11] = b3;
+        state[o + 12] = b4; state[o + 13] = b5; state[o + 14] = b6; state[o + 15] = b7;
+    }
+
+    /**
+     * Method advances the recurrence of every resonator over companded (e.g. G.711) samples in
+     * buffer[off .. off+len), decoding each code through a lookup table inside the loop, rather
+     * than expanding the buffer into floats first.
+     *
+     * @param buffer companded waveform data to be analyzed
+     * @param off index of the first sample to analyze
+     * @param len number of samples to analyze
+     * @param table 256 entry table of linear values, indexed by code, see G711
+     * @param state recurrence state, see class description
+     * @param stateOffset index of this stream's state within the state array
+     */
+    public void update(byte[] buffer, int off, int len, float[] table, double[] state, int stateOffset) {
+        if (cosines.length == 8) {
+            update8(buffer, off, len, table, state, stateOffset);
+            return;
+        }
+
+        final int n = cosines.length;
+        final int s1 = stateOffset + n;
+        for (int i = off, end = off + len; i < end; i++) {
+            final double v = table[buffer[i] & 0xff];
+            for (int j = 0; j < n; j++) {
+                double t = state[stateOffset + j];
+                state[stateOffset + j] = cosines[j] * t - state[s1 + j] + v;
+                state[s1 + j] = t;
+            }
+        }
+    }
+
+    /**
+     * Variant of update(byte[], ...) for companded samples held in a ByteBuffer, e.g. a received
+     * packet. Samples are read with absolute gets, so the buffer's position is not changed.
+     *
+     * @param buffer companded waveform data to be analyzed
+     * @param off index of the first sample to analyze
+     * @param len number of samples to analyze
+     * @param table 256 entry table of linear values, indexed by code, see G711
+     * @param state recurrence state, see class description
+     * @param stateOffset index of this stream's state within the state array
+     */
+    public void update(ByteBuffer buffer, int off, int len, float[] table, double[] state, int stateOffset) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + off, len, table, state, stateOffset);
+            return;
+        }
+
+        final int n = cosines.length;
+        final int s1 = stateOffset + n;
+        for (int i = off, end = off + len; i < end; i++) {
+            final double v = table[buffer.get(i) & 0xff];
+            for (int j = 0; j < n; j++) {
+                double t = state[stateOffset + j];
+                state[stateOffset + j] = cosines[j] * t - state[s1 + j] + v;
+                state[s1 + j] = t;
+            }
+        }
+    }
+
+    // as update8(float[], ...), decoding companded samples through table
+    private void update8(byte[] buffer, int off, int len, float[] table, double[] state, int o) {
+
+        final double c0 = cosines[0], c1 = cosines[1], c2 = cosines[2], c3 = cosines[3],
+                     c4 = cosines[4], c5 = cosines[5], c6 = cosines[6], c7 = cosines[7];
+
+        double a0 = state[o],     a1 = state[o + 1], a2 = state[o + 2],  a3 = state[o + 3],
+               a4 = state[o + 4], a5 = state[o + 5], a6 = state[o + 6],  a7 = state[o + 7];
+        double b0 = state[o + 8], b1 = state[o + 9], b2 = state[o + 10], b3 = state[o + 11],
+               b4 = state[o + 12], b5 = state[o + 13], b6 = state[o + 14], b7 = state[o + 15];
+
+        double t;
+        for (int i = off, end = off + len; i < end; i++) {
+            final double v = table[buffer[i] & 0xff];
+            t = a0; a0 = c0 * a0 - b0 + v; b0 = t;
+            t = a1; a1 = c1 * a1 - b1 + v; b1 = t;
+            t = a2; a2 = c2 * a2 - b2 + v; b2 = t;
+            t = a3; a3 = c3 * a3 - b3 + v; b3 = t;
+            t = a4; a4 = c4 * a4 - b4 + v; b4 = t;
+            t = a5; a5 = c5 * a5 - b5 + v; b5 = t;
+            t = a6; a6 = c6 * a6 - b6 + v; b6 = t;
+            t = a7; a7 = c7 * a7 - b7 + v; b7 = t;
+        }
+
+        state[o]      = a0; state[o + 1]  = a1; state[o + 2]  = a2; state[o + 3]  = a3;
+        state[o + 4]  = a4; state[o + 5]  = a5; state[o + 6]  = a6; state[o + 7]  = a7;
+        state[o + 8]  = b0; state[o + 9]  = b1; state[o + 10] = b2; state[o + 11] = b3;
+        state[o + 12] = b4; state[o + 13] = b5; state[o + 14] = b6; state[o + 15] = b7;
+    }
+
+    /**
+     * @param state recurrence state, see class description
+     * @param stateOffset index of this stream's state within the state array
+     * @param j index of the resonator
+     * @return power level of resonator j, in dB
+     */
+    public double power(double[] state, int stateOffset, int j) {
+        int n = cosines.length;
+        return 20 * Math.log10(Math.abs(state[stateOffset + j] - wnk[j] * state[stateOffset + n + j])); // dB
+    }
+
+    /**
+     * The output of resonator j, as used by power(...), is a weighted sum of the samples
+     * analyzed. This is a bound on the magnitude of every one of those weights, so that the
+     * output is at most sqrt(samples * energy) times this bound.
+     *
+     * @param j index of the resonator
+     * @return (1 + wnk) / |sin(w)| of resonator j
+     */
+    public double weightBound(int j) {
+        return (1 + wnk[j]) / Math.abs(Math.sin(2 * Math.PI * frequencies[j] / sampleRate));
+    }
+
+    /**
+     * Method converts the state left by update(...) into the power level of every resonator.
+     *
+     * @param state recurrence state, see class description
+     * @param stateOffset index of this stream's state within the state array
+     * @param powers receives one power level per resonator, in dB
+     * @param powersOffset index in powers for the first resonator
+     */
+    public void powers(double[] state, int stateOffset, double[] powers, int powersOffset) {
+        for (int j = 0; j < cosines.length; j++)
+            powers[powersOffset + j] = power(state, stateOffset, j);
+    }
+
+    /**
+     * Convenience method which analyzes an entire buffer from zero state.
+     *
+     * @param buffer waveform data to be analyzed, provided in range from -1 .. 1
+     * @return array of power levels, one for each frequency of the plan, in dB
+     */
+    public double[] powers(float[] buffer) {
+        double[] state = new double[stateSize()];
+        update(buffer, 0, buffer.length, state, 0);
+        double[] powers = new double[size()];
+        powers(state, 0, powers, 0);
+        return powers;
+    }
+
+    /**
+     * Clears the recurrence state of one stream.
+     *
+     * @param state recurrence state, see class description
+     * @param stateOffset index of this stream's state within the state array
+     */
+    public void reset(double[] state, int stateOffset) {
+        Arrays.fill(state, stateOffset, stateOffset + stateSize(), 0);
+    }
+
+    // getters
+    public double getSampleRate() { return sampleRate; }
+    public int size() { return frequencies.length; }
+    public double getFrequency(int j) { return frequencies[j]; }
+    public double[] getFrequencies() { return frequencies.clone(); }
+
+    /**
+     * @return number of doubles of recurrence state needed per stream
+     */
+    public int stateSize() { return 2 * frequencies.length; }
+
+    @Override
+    public String toString() {
+        return "GoertzelPlan{sampleRate=" + sampleRate + ", frequencies=" + Arrays.toString(frequencies) + '}';
+    }
+
+    private static final class Key {
+
+        private final double sampleRate;
+        private final double[] frequencies;
+
+        Key(double sampleRate, double[] frequencies) {
+            this.sampleRate = sampleRate;
+            this.frequencies = frequencies;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (other == null || getClass() != other.getClass()) return false;
+            Key key = (Key) other;
+            return Double.compare(sampleRate, key.sampleRate) == 0 && Arrays.equals(frequencies, key.frequencies);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Double.hashCode(sampleRate);
+            result = 31 * result + Arrays.hashCode(frequencies);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Domain object describing a DTMF key being pressed (DOWN) or released (UP) within a stream of
+ * waveform data, as reported by KeyTracker.
+ * <p>
+ * @see KeyTracker
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public final class KeyEvent {
+
+    public enum Type { DOWN, UP }
+
+    private final Type type;
+    private final DTMF dtmf;
+    private final long sampleOffset;
+    private final double rowPower, columnPower;
+
+    /**
+     * @param type whether the key was pressed or released
+     * @param dtmf the key
+     * @param sampleOffset stream offset at which the key was first (DOWN) or last (UP) heard
+     * @param rowPower power level of the row frequency, in dB
+     * @param columnPower power level of the column frequency, in dB
+     */
+    public KeyEvent(Type type, DTMF dtmf, long sampleOffset, double rowPower, double columnPower) {
+        this.type = type;
+        this.dtmf = dtmf;
+        this.sampleOffset = sampleOffset;
+        this.rowPower = rowPower;
+        this.columnPower = columnPower;
+    }
+
+    // getters
+    public Type getType() { return type; }
+    public DTMF getDtmf() { return dtmf; }
+    public char getKey() { return dtmf.getKey(); }
+    public long getSampleOffset() { return sampleOffset; }
+    public double getRowPower() { return rowPower; }
+    public double getColumnPower() { return columnPower; }
+
+    @Override
+    public String toString() {
+        return "KeyEvent{" + type + " '" + dtmf.getKey() + "' at " + sampleOffset
+                + ", rowPower=" + rowPower + ", columnPower=" + columnPower + '}';
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Reactive adapter of the streaming detector: a Flow.Processor which subscribes to chunks of
+ * waveform data, e.g. packets or blocks of a recording, and publishes every key press and release
+ * in them as a KeyEvent to any number of subscribers.
+ * <p>
+ * Chunks are fed to a StreamingDTMFGoertzel and a KeyTracker, so they may be of any size.
+ * Events are published through SubmissionPublisher, which gives each subscriber a buffer of at
+ * most maxBufferCapacity events, delivered as the subscriber requests them. When a slow
+ * subscriber's buffer is full, publishing blocks the thread delivering chunks until it has room
+ * again; as no more chunks are requested upstream meanwhile, a slow consumer holds back the
+ * source instead of queues growing without limit. Upstream, chunks are requested in batches: batch
+ * at subscription, and another batch whenever the previous one has been processed, so at most
+ * batch chunks are outstanding. Larger batches save round trips per chunk, smaller ones bound
+ * the audio in flight more tightly.
+ * <p>
+ * Completion upstream releases a key still pressed and then completes every subscriber; an error
+ * upstream is passed on to them. Chunks arriving after close() cancel the subscription.
+ * <p>
+ * @see StreamingDTMFGoertzel
+ * @see KeyTracker
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public final class KeyEventProcessor extends SubmissionPublisher<KeyEvent> implements Flow.Processor<float[], KeyEvent> {
+
+    static final int DEFAULT_BATCH = 16;
+
+    private final int batch;
+    private final StreamingDTMFGoertzel streaming;
+    private final KeyTracker tracker;
+
+    private Flow.Subscription subscription;
+    private int processed;      // chunks of the current batch
+
+    /**
+     * Class constructor specifying the detector and block size, publishing on the common pool
+     * with the default buffer of Flow.defaultBufferSize() events per subscriber.
+     *
+     * @param detector detector providing sample rate and power threshold
+     * @param blockSize number of samples in each analysis block
+     */
+    public KeyEventProcessor(DTMFGoertzel detector, int blockSize) {
+        this(detector, blockSize, ForkJoinPool.commonPool(), Flow.defaultBufferSize(), DEFAULT_BATCH);
+    }
+
+    /**
+     * @param detector detector providing sample rate and power threshold
+     * @param blockSize number of samples in each analysis block
+     * @param executor executor delivering events to subscribers
+     * @param maxBufferCapacity bound on the events buffered per subscriber
+     * @param batch number of chunks requested upstream at a time
+     */
+    public KeyEventProcessor(DTMFGoertzel detector, int blockSize, Executor executor, int maxBufferCapacity, int batch) {
+        super(executor, maxBufferCapacity);
+        if (batch <= 0) throw new IllegalArgumentException("batch must be positive: " + batch);
+        this.batch = batch;
+        this.tracker = new KeyTracker(this::submit);
+        this.streaming = new StreamingDTMFGoertzel(detector, blockSize,
+                (offset, detection) -> tracker.update(offset, blockSize, detection));
+    }
+
+    public int getBatch() { return batch; }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();   // one source at a time
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(batch);
+    }
+
+    /**
+     * Method analyzes a chunk, publishing the events it completes; it blocks while a subscriber
+     * has no room for them.
+     *
+     * @param chunk waveform data to be analyzed, provided in range from -1 .. 1
+     */
+    @Override
+    public void onNext(float[] chunk) {
+        if (isClosed()) {
+            subscription.cancel();
+            return;
+        }
+        streaming.push(chunk);
+        if (++processed == batch) {
+            processed = 0;
+            subscription.request(batch);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        closeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (isClosed()) return;
+        tracker.finish();
+        close();
+    }
+}
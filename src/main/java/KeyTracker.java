@@ -0,0 +1,101 @@
+/**
+ * Turns the per-block outcome of a detector into key presses and releases.
+ * <p>
+ * Individual blocks within a tone can fall below the power threshold, depending on the phase of
+ * the tone relative to the block. To avoid reporting such a tone as several presses, a key is
+ * only released after releaseBlocks consecutive blocks in which it was not detected. A different
+ * key being detected releases the current key immediately.
+ * <p>
+ * A tracker remembers the key down, its strongest levels and the blocks missed since it was
+ * last heard, all relative to one stream's sample offsets, so each stream has its own tracker.
+ * update(...) and finish() are not synchronized; a tracker is driven from the thread feeding
+ * its detector, which is also the thread its listener runs on.
+ * <p>
+ * @see KeyEvent
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class KeyTracker {
+
+    public static final int DEFAULT_RELEASE_BLOCKS = 3;
+
+    /**
+     * Callback receiving every press and release.
+     */
+    public interface Listener {
+        void onKeyEvent(KeyEvent event);
+    }
+
+    private final int releaseBlocks;
+    private final Listener listener;
+
+    private DTMF down;        // key currently pressed, null if none
+    private long lastHeard;   // stream offset just past the last block in which down was detected
+    private double rowPower, columnPower;
+    private int missed;       // consecutive blocks without down
+
+    public KeyTracker(Listener listener) {
+        this(DEFAULT_RELEASE_BLOCKS, listener);
+    }
+
+    /**
+     * @param releaseBlocks number of consecutive blocks without the key before it is released
+     * @param listener callback receiving every press and release
+     */
+    public KeyTracker(int releaseBlocks, Listener listener) {
+        if (releaseBlocks <= 0) throw new IllegalArgumentException("releaseBlocks must be positive: " + releaseBlocks);
+        this.releaseBlocks = releaseBlocks;
+        this.listener = listener;
+    }
+
+    /**
+     * Method feeds the outcome of one block into the tracker.
+     *
+     * @param sampleOffset stream offset of the first sample of the block
+     * @param blockSize number of samples in the block
+     * @param detection outcome of the block
+     */
+    public void update(long sampleOffset, int blockSize, DTMFGoertzel.Detection detection) {
+        DTMF dtmf = detection.getDtmf();
+
+        if (down != null && dtmf == down) {
+            missed = 0;
+            lastHeard = sampleOffset + blockSize;
+            rowPower = detection.getRowPower();
+            columnPower = detection.getColumnPower();
+            return;
+        }
+
+        if (down != null && (dtmf != null || ++missed >= releaseBlocks)) release();
+
+        if (dtmf != null) {
+            down = dtmf;
+            missed = 0;
+            lastHeard = sampleOffset + blockSize;
+            rowPower = detection.getRowPower();
+            columnPower = detection.getColumnPower();
+            listener.onKeyEvent(new KeyEvent(KeyEvent.Type.DOWN, dtmf, sampleOffset, rowPower, columnPower));
+        }
+    }
+
+    /**
+     * Method releases the current key, if any, e.g. at the end of a stream.
+     */
+    public void finish() {
+        if (down != null) release();
+    }
+
+    /**
+     * @return key currently pressed, or null if none
+     */
+    public DTMF getDown() { return down; }
+
+    private void release() {
+        DTMF up = down;
+        down = null;
+        missed = 0;
+        listener.onKeyEvent(new KeyEvent(KeyEvent.Type.UP, up, lastHeard, rowPower, columnPower));
+    }
+}
@@ -1,7 +1,142 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
 public class Main {
 
-    public static void main(String[] args) {
-	// write your code here
+    private static final String USAGE =
+            "usage: serve [port [sampleRate [powerThreshold]]]   detect DTMF in RTP/L16 packets received on port\n"
+          + "       corpus file.wav seconds [channels [sampleRate [seed]]]\n"
+          + "                                                    generate a random DTMF corpus, truth in file.csv\n"
+          + "       scan [-j threads] [-r readers] [-f jsonl|csv] [-o out] [-i index] [-c cacheDir]\n"
+          + "            [-t powerThreshold] path|glob...\n"
+          + "                                                    write the key presses of WAVE files, dirs or globs\n"
+          + "       query index keys...                          list the recordings in which the keys were pressed in order";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("serve")) {
+            serve(args);
+            return;
+        }
+        if (args.length > 2 && args[0].equals("corpus")) {
+            corpus(args);
+            return;
+        }
+        if (args.length > 1 && args[0].equals("scan")) {
+            scan(args);
+            return;
+        }
+        if (args.length > 2 && args[0].equals("query")) {
+            query(args);
+            return;
+        }
+        System.err.println(USAGE);
+    }
+
+    // receive RTP on the given port until killed, printing one line per key press
+    private static void serve(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 5004;
+        double sampleRate = args.length > 2 ? Double.parseDouble(args[2]) : 8000;
+        double powerThreshold = args.length > 3 ? Double.parseDouble(args[3]) : 25.0D;
+
+        DTMFGoertzel detector = new DTMFGoertzel(sampleRate, powerThreshold);
+        RtpIngestServer server = new RtpIngestServer(detector, DTMFGoertzel.DEFAULT_BLOCK_SIZE, (ssrc, event) -> {
+            if (event.getType() == KeyEvent.Type.DOWN)
+                System.out.println(Long.toHexString(ssrc) + " " + event.getKey() + " " + event.getSampleOffset());
+        });
+        InetSocketAddress bound = server.start(new InetSocketAddress(port));
+        System.err.println("listening on " + bound);
+        Thread.currentThread().join(); // until killed
+    }
+
+    // write a noisy corpus with speech-like interference, and its ground truth next to it
+    private static void corpus(String[] args) throws IOException {
+        Path wav = Paths.get(args[1]);
+        double seconds = Double.parseDouble(args[2]);
+        int channels = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        int sampleRate = args.length > 4 ? Integer.parseInt(args[4]) : 8000;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 0;
+
+        String name = wav.getFileName().toString();
+        Path truth = wav.resolveSibling((name.endsWith(".wav") ? name.substring(0, name.length() - 4) : name) + ".csv");
+        DTMFCorpusGenerator generator = new DTMFCorpusGenerator(sampleRate, channels)
+                .withTwist(4).withNoise(-40).withSpeech(-30).withSeed(seed);
+        long start = System.nanoTime();
+        long tones = generator.generate(wav, truth, seconds);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d tones in %.0f s of audio, written in %.2f s (%.0fx real time)%n",
+                tones, seconds, elapsed, seconds / elapsed);
+    }
+
+    // scan recordings on a work-stealing pool, printing the key presses and the throughput
+    private static void scan(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors(), readers = ArchiveScanner.DEFAULT_READERS;
+        ArchiveScanner.Format format = ArchiveScanner.Format.JSONL;
+        Path output = null, index = null, cacheDirectory = null;
+        double powerThreshold = 25.0D;
+        List<String> inputs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "-j": threads = Integer.parseInt(args[++i]); break;
+                case "-r": readers = Integer.parseInt(args[++i]); break;
+                case "-f": format = ArchiveScanner.Format.valueOf(args[++i].toUpperCase(Locale.ROOT)); break;
+                case "-o": output = Paths.get(args[++i]); break;
+                case "-i": index = Paths.get(args[++i]); break;
+                case "-c": cacheDirectory = Paths.get(args[++i]); break;
+                case "-t": powerThreshold = Double.parseDouble(args[++i]); break;
+                default: inputs.add(args[i]);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        DetectionCache cache = cacheDirectory == null ? null
+                : new DetectionCache(DetectionCache.DEFAULT_ENTRIES).withDirectory(cacheDirectory);
+        ArchiveScanner scanner = new ArchiveScanner(pool, powerThreshold, format).withReaders(readers).withCache(cache);
+        // flatMap rather than nested concats, as a shell glob may expand to thousands of arguments
+        Stream<Path> files = inputs.stream().flatMap(input -> {
+            try {
+                return ArchiveScanner.expand(input);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        try (Stream<Path> listed = files;
+             DetectionIndexWriter indexWriter = index == null ? null : DetectionIndexWriter.create(index);
+             Writer out = output == null
+                     ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                     : Files.newBufferedWriter(output)) {
+            System.err.println(scanner.withIndex(indexWriter).scan(listed.iterator(), out));
+            if (cache != null) System.err.println(cache);
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // an argument or directory could not be listed
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // print the recordings of an index which contain each key sequence
+    private static void query(String[] args) throws IOException {
+        try (DetectionIndex index = DetectionIndex.open(Paths.get(args[1]))) {
+            for (int a = 2; a < args.length; a++) {
+                long start = System.nanoTime();
+                int[] ids = index.withSequence(args[a]);
+                double elapsed = (System.nanoTime() - start) / 1e6;
+                for (int id : ids) System.out.println(args[a] + " " + index.getName(id));
+                System.err.printf("%s: %d of %d recordings in %.2f ms%n", args[a], ids.length, index.getRecordings(), elapsed);
+            }
+        }
     }
 
     public static int twice(int i) {
@@ -0,0 +1,179 @@
+import java.util.Arrays;
+
+/**
+ * Anti-aliased decimator which reduces the sample rate of a stream by an integer factor, e.g.
+ * 44.1 kHz audio to 8.82 kHz before DTMF detection, all of whose energy lies below 2 kHz.
+ * <p>
+ * The low pass is a Hamming windowed sinc, whose stopband attenuation is about 53 dB. Its cutoff
+ * is the output Nyquist frequency, and its transition band ends where the first alias would fold
+ * back onto the passband, at outputRate - passband, so the filter is as short as the factor
+ * allows: about 3.3 * inputRate / (outputRate - 2 * passband) taps, e.g. 31 at 44.1 kHz. Being
+ * symmetric, it delays the stream by (taps - 1) / 2 input samples.
+ * <p>
+ * Only every factor-th output of the filter is ever computed, which is what the polyphase
+ * decomposition achieves: each output takes taps multiplications, taps / factor per input
+ * sample. Rather than running the branches one input sample at a time, the input is appended to
+ * the last taps - 1 samples in a contiguous buffer, and the outputs are computed as dot products
+ * over it, four at a time, so that every tap loaded serves four independent sums. Measured on
+ * the JIT, this is about twice as fast as the transposed polyphase form, whose bookkeeping per
+ * input sample outweighs its few multiplications. State is kept between calls to process(...),
+ * so chunks of any size may be fed in.
+ * <p>
+ * The taps are fixed at construction, but the buffer carries the last taps - 1 samples and the
+ * phase of the next output from one call to the next, so a decimator filters one stream, from
+ * one thread at a time.
+ * <p>
+ * @see DecimatingDTMFGoertzel
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public final class PolyphaseDecimator {
+
+    static final double DTMF_RATE = 8000;       // lowest output rate chosen by forDTMF(...)
+    static final double DTMF_PASSBAND = 2000;   // Hz, above the highest DTMF frequency, 1633 Hz
+    static final int CHUNK = 4096;              // input samples appended to the buffer at a time
+
+    private final double inputRate;
+    private final int factor;
+    private final float[] taps;
+    private final float[] buffer;       // the last taps - 1 input samples, followed by a chunk
+
+    private int skip;                   // input samples before the newest of the next output
+
+    /**
+     * Class constructor specifying the rates, the band to preserve and the gain.
+     *
+     * @param inputRate sampling rate of the input, in Hz
+     * @param factor decimation factor; the output rate is inputRate / factor
+     * @param passband highest frequency to preserve, in Hz
+     * @param gain gain of the filter in its passband, 1 to preserve amplitudes
+     */
+    public PolyphaseDecimator(double inputRate, int factor, double passband, double gain) {
+        if (!(inputRate > 0)) throw new IllegalArgumentException("inputRate must be positive: " + inputRate);
+        if (factor <= 0) throw new IllegalArgumentException("factor must be positive: " + factor);
+        double outputRate = inputRate / factor;
+        double transition = outputRate - 2 * passband;
+        if (!(transition > 0))
+            throw new IllegalArgumentException("passband of " + passband + " Hz does not fit an output rate of " + outputRate);
+        this.inputRate = inputRate;
+        this.factor = factor;
+
+        int length = factor == 1 ? 1 : (int) Math.ceil(3.3 * inputRate / transition) | 1;
+        double[] h = new double[length];
+        double sum = 0, center = (length - 1) / 2D, cutoff = outputRate / 2 / inputRate; // cycles per sample
+        for (int k = 0; k < length; k++) {
+            double t = k - center;
+            double sinc = t == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * t) / (Math.PI * t);
+            double window = length == 1 ? 1 : 0.54 - 0.46 * Math.cos(2 * Math.PI * k / (length - 1));
+            h[k] = sinc * window;
+            sum += h[k];
+        }
+        taps = new float[length];
+        for (int k = 0; k < length; k++) taps[k] = (float) (h[k] * gain / sum);
+        buffer = new float[length - 1 + CHUNK];
+        reset();
+    }
+
+    /**
+     * Convenience method for DTMF detection: the largest factor leaving at least 8 kHz, with a
+     * passband up to 2 kHz. Input at 8 kHz or less passes unfiltered.
+     *
+     * @param inputRate sampling rate of the input, in Hz
+     * @param gain gain of the filter in its passband, 1 to preserve amplitudes
+     * @return decimator for the input rate
+     */
+    public static PolyphaseDecimator forDTMF(double inputRate, double gain) {
+        return new PolyphaseDecimator(inputRate, dtmfFactor(inputRate), DTMF_PASSBAND, gain);
+    }
+
+    // the factor chosen by forDTMF(...)
+    static int dtmfFactor(double inputRate) {
+        return (int) Math.max(1, Math.floor(inputRate / DTMF_RATE));
+    }
+
+    /**
+     * Method consumes input samples and writes the outputs they complete.
+     *
+     * @param in input samples
+     * @param off index of the first input sample
+     * @param len number of input samples
+     * @param out receives the output samples; must have room for getMaxOutput(len) samples
+     * @param outOff index in out of the first output sample
+     * @return number of output samples written
+     */
+    public int process(float[] in, int off, int len, float[] out, int outOff) {
+        if (off < 0 || len < 0 || off + len > in.length)
+            throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", length=" + in.length);
+        int n = outOff;
+        while (len > 0) {
+            int chunk = Math.min(len, CHUNK);
+            n = filter(in, off, chunk, out, n);
+            off += chunk;
+            len -= chunk;
+        }
+        return n - outOff;
+    }
+
+    // appends one chunk to the buffer and computes the outputs it completes
+    private int filter(float[] in, int off, int len, float[] out, int n) {
+        final float[] h = taps, x = buffer;
+        final int taps = h.length, m = factor;
+        System.arraycopy(in, off, x, taps - 1, len);
+        int end = taps - 1 + len;
+        int first = skip;       // x[first .. first + taps) are the samples of the next output
+        for (; first + 3 * m + taps <= end; first += 4 * m) {
+            float y0 = 0, y1 = 0, y2 = 0, y3 = 0;
+            for (int k = 0; k < taps; k++) {
+                float c = h[k];
+                y0 += c * x[first + k];
+                y1 += c * x[first + m + k];
+                y2 += c * x[first + 2 * m + k];
+                y3 += c * x[first + 3 * m + k];
+            }
+            out[n++] = y0;
+            out[n++] = y1;
+            out[n++] = y2;
+            out[n++] = y3;
+        }
+        for (; first + taps <= end; first += m) {
+            float y = 0;
+            for (int k = 0; k < taps; k++) y += h[k] * x[first + k];
+            out[n++] = y;
+        }
+        skip = first - len;
+        System.arraycopy(x, len, x, 0, taps - 1);
+        return n;
+    }
+
+    /**
+     * @param len number of input samples
+     * @return largest number of output samples len input samples can complete
+     */
+    public int getMaxOutput(int len) {
+        return len / factor + 1;
+    }
+
+    /**
+     * Clears the filter state. The first output is completed by the first input sample.
+     */
+    public void reset() {
+        Arrays.fill(buffer, 0);
+        skip = 0;
+    }
+
+    public double getInputRate() { return inputRate; }
+    public double getOutputRate() { return inputRate / factor; }
+    public int getFactor() { return factor; }
+
+    /**
+     * @return number of filter taps
+     */
+    public int getTaps() { return taps.length; }
+
+    /**
+     * @return delay of the filter, in input samples
+     */
+    public double getDelay() { return (taps.length - 1) / 2D; }
+}
@@ -0,0 +1,274 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * UDP front-end which receives RTP packets on a DatagramChannel and runs DTMF detection per call.
+ * Payload types 0 (PCMU) and 8 (PCMA) are decoded as G.711 mu-law and A-law; any other payload
+ * type is taken to be 16 bit linear PCM (L16, network byte order, RFC 3551).
+ * <p>
+ * Packets are demultiplexed by SSRC into sessions. Each session owns a StreamingDTMFGoertzel and
+ * a KeyTracker, and runs on its own virtual thread, so that thousands of concurrent calls do not
+ * need a platform thread each: a session waiting for packets parks its virtual thread and holds
+ * no carrier. A session ends after idleTimeout without packets, releasing any key still pressed.
+ * <p>
+ * The receiver thread decodes each payload straight from its receive buffer into the SampleRing
+ * of the session, which the session's detector reads in place, so nothing is allocated or
+ * queued per packet. A packet which does not fit in the ring is dropped whole.
+ * <p>
+ * Key presses and releases are published to a DigitListener, from the session's thread. close()
+ * ends every session, delivering the releases of keys still pressed, and waits for them, so that
+ * no event is delivered once it has returned. Only a listener call still running after
+ * CLOSE_TIMEOUT_MILLIS is not waited for; events of sessions still running then are discarded.
+ * Packets are processed in arrival order; the RTP sequence number is not used to reorder or
+ * conceal loss.
+ * <p>
+ * @see StreamingDTMFGoertzel
+ * @see <a href="https://www.rfc-editor.org/rfc/rfc3550">https://www.rfc-editor.org/rfc/rfc3550</a>
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class RtpIngestServer implements Closeable {
+
+    static final int RTP_VERSION = 2;
+    static final int RTP_HEADER_SIZE = 12;
+    static final int MAX_PACKET_SIZE = 65536;
+    static final int DEFAULT_QUEUE_CAPACITY = 64;       // packets of 20 ms buffered per session
+    static final double PACKET_SECONDS = 0.020;
+    static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 5000;
+    static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    static final int PAYLOAD_PCMU = 0, PAYLOAD_PCMA = 8;
+
+    /**
+     * Callback receiving key presses and releases, tagged with the session they occurred in.
+     */
+    public interface DigitListener {
+        void onDigit(long ssrc, KeyEvent event);
+    }
+
+    private final DTMFGoertzel detector;
+    private final int blockSize;
+    private final DigitListener listener;
+    private final long idleTimeoutMillis;
+    private final int queueCapacity;
+    private final ThreadFactory sessionThreads = Thread.ofVirtual().name("rtp-session-", 0).factory();
+
+    private final ConcurrentMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final Set<Session> live = ConcurrentHashMap.newKeySet();   // until the session's thread ends
+    private final ReadWriteLock deliveries = new ReentrantReadWriteLock();
+    private boolean delivering = true;                                  // guarded by deliveries
+    private final LongAdder packets = new LongAdder(), dropped = new LongAdder();
+
+    private volatile boolean running;
+    private DatagramChannel channel;
+    private Thread receiver;
+
+    public RtpIngestServer(DTMFGoertzel detector, int blockSize, DigitListener listener) {
+        this(detector, blockSize, listener, DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param detector detector providing sample rate and power threshold
+     * @param blockSize number of samples in each analysis block
+     * @param listener callback receiving key presses and releases
+     * @param idleTimeoutMillis time without packets after which a session ends
+     * @param queueCapacity packets of 20 ms buffered per session before further packets are dropped
+     */
+    public RtpIngestServer(DTMFGoertzel detector, int blockSize, DigitListener listener,
+                           long idleTimeoutMillis, int queueCapacity) {
+        this.detector = detector;
+        this.blockSize = blockSize;
+        this.listener = listener;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Binds the channel and starts receiving.
+     *
+     * @param local address to bind, port 0 picks an ephemeral port
+     * @return the address actually bound
+     * @throws IOException if the channel cannot be opened or bound
+     */
+    public synchronized InetSocketAddress start(InetSocketAddress local) throws IOException {
+        if (running) throw new IllegalStateException("already started");
+        channel = DatagramChannel.open();
+        channel.bind(local);
+        running = true;
+        receiver = new Thread(this::receive, "rtp-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    /**
+     * Stops receiving and ends every session, waiting up to CLOSE_TIMEOUT_MILLIS for them. No
+     * events are delivered after this method returns.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!running) return;
+        running = false;
+        channel.close();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MILLIS);
+        try {
+            receiver.join(); // no sessions are opened after this
+            for (Session session : live) session.thread.interrupt();
+            for (Session session : live)
+                TimeUnit.NANOSECONDS.timedJoin(session.thread, Math.max(1, deadline - System.nanoTime()));
+            if (deliveries.writeLock().tryLock(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                delivering = false;
+                deliveries.writeLock().unlock();
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delivering = false; // a listener call is still running, or the wait was interrupted
+    }
+
+    public int getSessionCount() { return sessions.size(); }
+    public long getPacketCount() { return packets.sum(); }
+    public long getDroppedCount() { return dropped.sum(); }
+
+    private void receive() {
+        ByteBuffer packet = ByteBuffer.allocateDirect(MAX_PACKET_SIZE);
+        while (running) {
+            try {
+                packet.clear();
+                SocketAddress from = channel.receive(packet);
+                if (from == null) continue;
+                packet.flip();
+                dispatch(packet);
+            } catch (ClosedChannelException e) {
+                return; // close() was called
+            } catch (IOException e) {
+                if (!running) return;
+                dropped.increment();
+            }
+        }
+    }
+
+    // parses the RTP header and hands the payload to the session of its SSRC
+    void dispatch(ByteBuffer packet) {
+        packets.increment();
+        int length = packet.remaining();
+        if (length < RTP_HEADER_SIZE) {
+            dropped.increment();
+            return;
+        }
+
+        int b0 = packet.get(0) & 0xff;
+        if (b0 >>> 6 != RTP_VERSION) {
+            dropped.increment();
+            return;
+        }
+        int csrcCount = b0 & 0x0f;
+        int offset = RTP_HEADER_SIZE + 4 * csrcCount;
+        if ((b0 & 0x10) != 0) { // header extension: 16 bit profile, 16 bit length in words
+            if (length < offset + 4) {
+                dropped.increment();
+                return;
+            }
+            offset += 4 + 4 * (packet.getShort(offset + 2) & 0xffff);
+        }
+        if ((b0 & 0x20) != 0) length -= packet.get(length - 1) & 0xff; // padding
+        if (offset > length) {
+            dropped.increment();
+            return;
+        }
+
+        long ssrc = packet.getInt(8) & 0xffffffffL;
+        int payloadType = packet.get(1) & 0x7f;
+        G711 law = payloadType == PAYLOAD_PCMU ? G711.MU_LAW : payloadType == PAYLOAD_PCMA ? G711.A_LAW : null;
+        packet.limit(length).position(offset);
+
+        while (running) {
+            Session session = sessions.computeIfAbsent(ssrc, this::open);
+            int outcome = session.offer(packet, law);
+            if (outcome == Session.ACCEPTED) return;
+            if (outcome == Session.FULL) {
+                dropped.increment();
+                return;
+            }
+            // session ended concurrently; a fresh one is opened on the next iteration
+        }
+    }
+
+    private Session open(long ssrc) {
+        Session session = new Session(ssrc);
+        session.thread = sessionThreads.newThread(session);
+        live.add(session);
+        session.thread.start();
+        return session;
+    }
+
+    // a single call, identified by its SSRC
+    private final class Session implements Runnable {
+
+        static final int ACCEPTED = 0, FULL = 1, CLOSED = 2;
+
+        private final long ssrc;
+        private final SampleRing ring;
+        private final KeyTracker tracker;
+        private final StreamingDTMFGoertzel streaming;
+        private boolean closed; // guarded by this
+        private Thread thread;
+
+        Session(long ssrc) {
+            this.ssrc = ssrc;
+            this.ring = new SampleRing(queueCapacity * (int) Math.ceil(detector.getSampleRate() * PACKET_SECONDS),
+                    SampleRing.WaitStrategy.PARK);
+            this.tracker = new KeyTracker(this::deliver);
+            this.streaming = new StreamingDTMFGoertzel(detector, blockSize,
+                    (offset, detection) -> tracker.update(offset, blockSize, detection));
+        }
+
+        // on the receiver thread, the ring's only producer
+        synchronized int offer(ByteBuffer payload, G711 law) {
+            if (closed) return CLOSED;
+            return ring.offer(payload, law) ? ACCEPTED : FULL;
+        }
+
+        private void deliver(KeyEvent event) {
+            deliveries.readLock().lock();
+            try {
+                if (delivering) listener.onDigit(ssrc, event);
+            } finally {
+                deliveries.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running && ring.poll(Integer.MAX_VALUE, idleTimeoutMillis, TimeUnit.MILLISECONDS) > 0)
+                    ring.drainTo(streaming, Integer.MAX_VALUE);
+            } catch (InterruptedException e) {
+                // close() was called
+            } finally {
+                synchronized (this) {
+                    closed = true;
+                }
+                sessions.remove(ssrc, this);
+                ring.drainTo(streaming, Integer.MAX_VALUE);
+                tracker.finish();
+                live.remove(this);
+            }
+        }
+    }
+}
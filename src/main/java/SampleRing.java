@@ -0,0 +1,397 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free single-producer, single-consumer ring of samples, which hands audio from an ingest
+ * thread to a detector thread without allocating or copying per packet: the producer writes
+ * samples into off-heap memory, and the consumer analyzes them where they lie, see
+ * drainTo(...).
+ * <p>
+ * The samples live in a direct ByteBuffer of a power of two capacity, in native byte order. Two
+ * counters, the tail written by the producer and the head written by the consumer, run freely
+ * and are masked into the buffer. Each side publishes its counter with release semantics, after
+ * the samples it wrote or read, and reads the other's with acquire semantics, through a
+ * VarHandle, so a sample is never seen before it was written, nor overwritten before it was
+ * read. Each side also caches the last value it read of the other's counter, and only reads it
+ * again when the cached value no longer leaves room, so in steady state the two threads touch
+ * each other's cache line about once per wrap of the ring. The counters are kept 128 bytes apart
+ * in an array, away from each other and from any other object, so that they do not share a
+ * cache line, nor a pair of lines fetched together.
+ * <p>
+ * Both sides work in batches. The producer claims a contiguous region with tryClaim(...) or
+ * claim(...), writes into getBuffer() at getClaimOffset(), and publishes what it wrote with
+ * commit(...); offer(...) does all three for an array or a packet. The consumer polls a
+ * contiguous region with poll(...), reads it at getPollOffset(), and frees it with
+ * release(...); drainTo(...) feeds whatever is available to a StreamingDTMFGoertzel in place.
+ * <p>
+ * A side that has to wait does so by its WaitStrategy. SPIN burns its core in Thread.onSpinWait()
+ * and sees the other side's progress within a fraction of a microsecond; use it for a few hot
+ * streams on dedicated cores. PARK spins briefly and then parks until the other side unparks
+ * it, so idle streams cost nothing, e.g. one ring per call on virtual threads. The wake-up costs
+ * every commit and release a full fence, and a waiting thread some microseconds to resume.
+ * <p>
+ * Exactly one thread may produce, and one consume, at a time.
+ * <p>
+ * @see StreamingDTMFGoertzel#push(java.nio.FloatBuffer)
+ * @see RtpIngestServer
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public final class SampleRing {
+
+    /**
+     * How a side waits for the other.
+     */
+    public enum WaitStrategy { SPIN, PARK }
+
+    static final int MAX_CAPACITY = 1 << 29;     // 2 GB of floats
+    static final int SPINS = 1 << 8;             // PARK: tries before parking
+
+    private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // slots of the sequences array, 16 longs apart
+    private static final int TAIL = 16, CACHED_HEAD = 17, CLAIMED = 18;   // written by the producer
+    private static final int HEAD = 32, CACHED_TAIL = 33, POLLED = 34;   // written by the consumer
+    private static final int SLOTS = 48;
+
+    private final int capacity, mask;
+    private final WaitStrategy wait;
+    private final ByteBuffer memory;
+    private final FloatBuffer producerView, consumerView;
+    private final long[] sequences = new long[SLOTS];
+
+    private volatile boolean closed;
+    private volatile Thread producerWaiter, consumerWaiter;   // parked, with PARK
+
+    /**
+     * @param capacity number of samples the ring holds, rounded up to a power of two
+     * @param wait how either side waits for the other
+     */
+    public SampleRing(int capacity, WaitStrategy wait) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.wait = wait;
+        this.memory = ByteBuffer.allocateDirect(4 * this.capacity).order(ByteOrder.nativeOrder());
+        this.producerView = memory.asFloatBuffer();
+        this.consumerView = memory.asFloatBuffer();
+    }
+
+    public int getCapacity() { return capacity; }
+    public WaitStrategy getWaitStrategy() { return wait; }
+    public boolean isClosed() { return closed; }
+
+    /**
+     * @return number of samples committed but not yet released; a snapshot, exact only when
+     *         read by either side while the other is idle
+     */
+    public int getSize() {
+        return (int) ((long) SEQUENCES.getAcquire(sequences, TAIL) - (long) SEQUENCES.getAcquire(sequences, HEAD));
+    }
+
+    /**
+     * Method returns a new view of the ring's memory, which the producer writes claimed samples
+     * into, and the consumer reads polled samples from, by absolute index. A view is not shared
+     * between the two sides; obtain one per side, once.
+     *
+     * @return view of all capacity samples
+     */
+    public FloatBuffer getBuffer() {
+        return memory.asFloatBuffer();
+    }
+
+    // --- producer ---
+
+    /**
+     * Method claims room for up to max samples, without waiting. The room is contiguous, so it
+     * may be less than is free, when it reaches the end of the buffer; claim again after commit.
+     *
+     * @param max number of samples wanted
+     * @return number of samples claimed, from getClaimOffset() on, 0 if the ring is full
+     */
+    public int tryClaim(int max) {
+        if (max < 0) throw new IllegalArgumentException("max must not be negative: " + max);
+        if (closed) throw new IllegalStateException("ring is closed");
+        long tail = sequences[TAIL];
+        int free = capacity - (int) (tail - sequences[CACHED_HEAD]);
+        if (free < max) {
+            sequences[CACHED_HEAD] = (long) SEQUENCES.getAcquire(sequences, HEAD);
+            free = capacity - (int) (tail - sequences[CACHED_HEAD]);
+        }
+        int n = Math.min(Math.min(max, free), capacity - (int) (tail & mask));
+        sequences[CLAIMED] = n;
+        return n;
+    }
+
+    /**
+     * Method claims room for up to max samples, waiting until max samples are free, or the whole
+     * ring if max exceeds it. The room claimed is contiguous, so it may still be less than max,
+     * when it reaches the end of the buffer; the rest can be claimed without waiting after commit.
+     *
+     * @param max number of samples wanted, at least 1
+     * @param timeout how long to wait
+     * @param unit unit of the timeout
+     * @return number of samples claimed, from getClaimOffset() on, 0 if the time ran out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public int claim(int max, long timeout, TimeUnit unit) throws InterruptedException {
+        if (max <= 0) throw new IllegalArgumentException("max must be positive: " + max);
+        int needed = Math.min(max, capacity);
+        long deadline = deadline(timeout, unit);
+        for (int tries = 0; !room(needed); tries++)
+            if (!pause(needed, tries, deadline)) return 0;
+        return tryClaim(max);
+    }
+
+    /**
+     * @return index in getBuffer() of the first sample claimed
+     */
+    public int getClaimOffset() {
+        return (int) (sequences[TAIL] & mask);
+    }
+
+    /**
+     * Method publishes the first n of the samples claimed to the consumer.
+     *
+     * @param n number of samples written, from getClaimOffset() on
+     */
+    public void commit(int n) {
+        if (n < 0 || n > sequences[CLAIMED])
+            throw new IllegalArgumentException("cannot commit " + n + " of " + sequences[CLAIMED] + " samples claimed");
+        sequences[CLAIMED] = 0;
+        SEQUENCES.setRelease(sequences, TAIL, sequences[TAIL] + n);
+        if (wait == WaitStrategy.PARK) wake(false);
+    }
+
+    /**
+     * Method copies all samples into the ring, or none if they do not fit, without waiting.
+     *
+     * @param samples waveform data, provided in range from -1 .. 1
+     * @param off index of the first sample
+     * @param len number of samples
+     * @return true if the samples were committed, false if the ring was too full
+     */
+    public boolean offer(float[] samples, int off, int len) {
+        if (off < 0 || len < 0 || off + len > samples.length)
+            throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", length=" + samples.length);
+        if (!room(len)) return false;
+        int start = (int) (sequences[TAIL] & mask), first = Math.min(len, capacity - start);
+        // relative bulk puts on the producer's own view, as absolute ones need JDK 16
+        producerView.position(start);
+        producerView.put(samples, off, first);
+        producerView.position(0);
+        producerView.put(samples, off + first, len - first);
+        publish(len);
+        return true;
+    }
+
+    /**
+     * Method copies all samples into the ring, waiting until they fit.
+     *
+     * @param samples waveform data, provided in range from -1 .. 1
+     * @param off index of the first sample
+     * @param len number of samples, at most getCapacity()
+     * @param timeout how long to wait
+     * @param unit unit of the timeout
+     * @return true if the samples were committed, false if the time ran out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean offer(float[] samples, int off, int len, long timeout, TimeUnit unit) throws InterruptedException {
+        if (len > capacity) throw new IllegalArgumentException(len + " samples never fit in " + capacity);
+        long deadline = deadline(timeout, unit);
+        for (int tries = 0; !offer(samples, off, len); tries++)
+            if (!pause(len, tries, deadline)) return false;
+        return true;
+    }
+
+    /**
+     * Method decodes the remaining bytes of a packet into the ring, or none if they do not fit,
+     * without waiting, and advances the packet's position to its limit if they did. Without a
+     * law, the bytes are taken as 16 bit linear PCM in network byte order (L16); an odd
+     * trailing byte is ignored.
+     *
+     * @param payload companded or linear waveform data, e.g. an RTP payload
+     * @param law companding law of the payload, null for L16
+     * @return true if the samples were committed, false if the ring was too full
+     */
+    public boolean offer(ByteBuffer payload, G711 law) {
+        int off = payload.position(), len = law == null ? payload.remaining() / 2 : payload.remaining();
+        if (!room(len)) return false;
+        long tail = sequences[TAIL];
+        if (law == null) {
+            for (int i = 0; i < len; i++)
+                producerView.put((int) (tail + i & mask), (short) ((payload.get(off + 2 * i) << 8)
+                        | (payload.get(off + 2 * i + 1) & 0xff)) / 32767.0F);
+        } else {
+            float[] table = law.table;
+            for (int i = 0; i < len; i++) producerView.put((int) (tail + i & mask), table[payload.get(off + i) & 0xff]);
+        }
+        publish(len);
+        payload.position(payload.limit());
+        return true;
+    }
+
+    /**
+     * Method marks the end of the stream: the consumer drains what was committed, after which
+     * poll(...) returns -1. The producer may not claim or offer after closing.
+     */
+    public void close() {
+        closed = true;
+        wake(false);
+    }
+
+    // whether len samples fit, reading the head again if the cached one says they do not
+    private boolean room(int len) {
+        if (closed) throw new IllegalStateException("ring is closed");
+        long tail = sequences[TAIL];
+        if (len <= capacity - (int) (tail - sequences[CACHED_HEAD])) return true;
+        sequences[CACHED_HEAD] = (long) SEQUENCES.getAcquire(sequences, HEAD);
+        return len <= capacity - (int) (tail - sequences[CACHED_HEAD]);
+    }
+
+    private void publish(int n) {
+        SEQUENCES.setRelease(sequences, TAIL, sequences[TAIL] + n);
+        if (wait == WaitStrategy.PARK) wake(false);
+    }
+
+    // --- consumer ---
+
+    /**
+     * Method polls for up to max committed samples, without waiting. The samples are contiguous,
+     * so they may be fewer than are committed, when they reach the end of the buffer; poll again
+     * after release.
+     *
+     * @param max number of samples wanted
+     * @return number of samples available, from getPollOffset() on, 0 if the ring is empty
+     */
+    public int poll(int max) {
+        if (max < 0) throw new IllegalArgumentException("max must not be negative: " + max);
+        long head = sequences[HEAD];
+        int available = (int) (sequences[CACHED_TAIL] - head);
+        if (available < max) {
+            sequences[CACHED_TAIL] = (long) SEQUENCES.getAcquire(sequences, TAIL);
+            available = (int) (sequences[CACHED_TAIL] - head);
+        }
+        int n = Math.min(Math.min(max, available), capacity - (int) (head & mask));
+        sequences[POLLED] = n;
+        return n;
+    }
+
+    /**
+     * Method polls for up to max committed samples, waiting until at least one is available,
+     * or the ring is closed and drained.
+     *
+     * @param max number of samples wanted, at least 1
+     * @param timeout how long to wait
+     * @param unit unit of the timeout
+     * @return number of samples available, from getPollOffset() on, 0 if the time ran out, -1
+     *         if the ring is closed and every sample has been released
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public int poll(int max, long timeout, TimeUnit unit) throws InterruptedException {
+        if (max <= 0) throw new IllegalArgumentException("max must be positive: " + max);
+        long deadline = deadline(timeout, unit);
+        for (int tries = 0; ; tries++) {
+            boolean ended = closed;   // read before the tail, so that a close is seen after its commits
+            int n = poll(max);
+            if (n > 0) return n;
+            if (ended) return -1;
+            if (!pause(0, tries, deadline)) return 0;
+        }
+    }
+
+    /**
+     * @return index in getBuffer() of the first sample polled
+     */
+    public int getPollOffset() {
+        return (int) (sequences[HEAD] & mask);
+    }
+
+    /**
+     * Method frees the first n of the samples polled for the producer.
+     *
+     * @param n number of samples read, from getPollOffset() on
+     */
+    public void release(int n) {
+        if (n < 0 || n > sequences[POLLED])
+            throw new IllegalArgumentException("cannot release " + n + " of " + sequences[POLLED] + " samples polled");
+        sequences[POLLED] = 0;
+        SEQUENCES.setRelease(sequences, HEAD, sequences[HEAD] + n);
+        if (wait == WaitStrategy.PARK) wake(true);
+    }
+
+    /**
+     * Method feeds up to max committed samples to a detector, in place, and releases them,
+     * without waiting.
+     *
+     * @param streaming the detector of the stream
+     * @param max number of samples to feed at most
+     * @return number of samples fed
+     */
+    public int drainTo(StreamingDTMFGoertzel streaming, int max) {
+        int total = 0;
+        for (int n; total < max && (n = poll(max - total)) > 0; total += n) {
+            int start = getPollOffset();
+            consumerView.limit(start + n).position(start);
+            streaming.push(consumerView);
+            release(n);
+        }
+        return total;
+    }
+
+    // --- waiting ---
+
+    private static long deadline(long timeout, TimeUnit unit) {
+        long nanos = unit.toNanos(timeout);
+        return nanos >= Long.MAX_VALUE / 2 ? Long.MAX_VALUE : System.nanoTime() + Math.max(0, nanos);
+    }
+
+    // waits a little for the other side: the producer for room for needed samples, the consumer,
+    // with needed 0, for any; false once the deadline has passed
+    private boolean pause(int needed, int tries, long deadline) throws InterruptedException {
+        if (Thread.interrupted()) throw new InterruptedException();
+        long remaining = deadline == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - System.nanoTime();
+        if (remaining <= 0) return false;
+        if (wait == WaitStrategy.SPIN || tries < SPINS) {
+            Thread.onSpinWait();
+            return true;
+        }
+
+        // announce the wait, then look again, so that a commit or release racing with it wakes us
+        boolean producer = needed > 0;
+        Thread current = Thread.currentThread();
+        if (producer) producerWaiter = current;
+        else consumerWaiter = current;
+        try {
+            if (!ready(needed)) {
+                if (remaining == Long.MAX_VALUE) LockSupport.park(this);
+                else LockSupport.parkNanos(this, remaining);
+            }
+        } finally {
+            if (producer) producerWaiter = null;
+            else consumerWaiter = null;
+        }
+        return true;
+    }
+
+    private boolean ready(int needed) {
+        long tail = (long) SEQUENCES.getVolatile(sequences, TAIL), head = (long) SEQUENCES.getVolatile(sequences, HEAD);
+        return needed > 0 ? capacity - (tail - head) >= needed : tail != head || closed;
+    }
+
+    // after a release store: the fence orders it before the read of the waiter, as the waiter's
+    // volatile store orders its announcement before it reads the counters
+    private void wake(boolean producer) {
+        VarHandle.fullFence();
+        Thread waiter = producer ? producerWaiter : consumerWaiter;
+        if (waiter != null) LockSupport.unpark(waiter);
+    }
+}
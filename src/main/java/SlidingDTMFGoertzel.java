@@ -0,0 +1,168 @@
+import java.util.Arrays;
+
+/**
+ * Sliding window adaptation of DTMFGoertzel, which evaluates the last window samples every hop
+ * samples, rather than once per disjoint block. Short hops give low latency decisions, and a
+ * tone straddling a block boundary is still seen whole by some window.
+ * <p>
+ * Rather than rerunning the Goertzel recurrence over every window, each DTMF frequency keeps
+ * the complex sum Z = sum x(m) e^(jw(N-1-m)) over the window, which a sliding DFT updates in
+ * O(1) per sample: Z' = e^(jw) Z + x(new) - e^(jwN) x(oldest). The Goertzel state after a
+ * block is a linear function of the same sum, skn0 = Re Z + cot(w) Im Z and skn1 = Im Z / sin(w),
+ * so at every hop the sums are converted into resonator state and evaluated by the underlying
+ * DTMFGoertzel, with its thresholds. A report therefore holds the same power levels as
+ * keyFilter(...) applied to that window, up to rounding. The sums are kept in double, in which
+ * the drift of the undamped recursion stays far below any threshold for days of audio.
+ * <p>
+ * Each sample costs one complex rotation per frequency and each hop one evaluation, so a hop
+ * of 1 is possible, though it evaluates eight logarithms for every sample. Results are reported
+ * through a single reused Detection, and the window history is a fixed ring, so no garbage is
+ * produced per sample or per hop.
+ * <p>
+ * The window history, the sliding sums and the reused Detection all belong to the stream being
+ * pushed, so a detector serves one stream, from one thread at a time; reset() clears them for
+ * the next. The underlying DTMFGoertzel is only read, and may be shared by many of them.
+ * <p>
+ * @see StreamingDTMFGoertzel
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public final class SlidingDTMFGoertzel {
+
+    private final DTMFGoertzel detector;
+    private final int window, hop;
+    private final StreamingDTMFGoertzel.Listener listener;
+
+    private final DTMFGoertzel.Detection detection = new DTMFGoertzel.Detection();
+    private final int n;                                  // number of frequencies
+    private final double[] cos, sin, cosN, sinN, cot;     // e^(jw), e^(jwN) and cot(w) per frequency
+    private final double[] re, im;                        // sliding sum Z per frequency
+    private final float[] history;                        // last window samples, a ring
+
+    private int head;          // index in history of the oldest sample
+    private int untilReport;   // samples left before the next report
+    private long consumed;     // samples consumed since the start of the stream (or reset())
+
+    /**
+     * Class constructor specifying the detector to use, the window length and the hop size.
+     *
+     * @param detector detector providing sample rate and power threshold
+     * @param window number of samples evaluated in each report
+     * @param hop number of samples between reports, from 1 up
+     * @param listener callback receiving every report; its sampleOffset is the stream offset of
+     *                 the first sample of the window
+     */
+    public SlidingDTMFGoertzel(DTMFGoertzel detector, int window, int hop, StreamingDTMFGoertzel.Listener listener) {
+        if (window <= 0) throw new IllegalArgumentException("window must be positive: " + window);
+        if (hop <= 0) throw new IllegalArgumentException("hop must be positive: " + hop);
+        this.detector = detector;
+        this.window = window;
+        this.hop = hop;
+        this.listener = listener;
+
+        GoertzelPlan plan = detector.getPlan();
+        n = plan.size();
+        cos = new double[n];
+        sin = new double[n];
+        cosN = new double[n];
+        sinN = new double[n];
+        cot = new double[n];
+        for (int j = 0; j < n; j++) {
+            double w = 2 * Math.PI * plan.getFrequency(j) / plan.getSampleRate();
+            cos[j] = Math.cos(w);
+            sin[j] = Math.sin(w);
+            cosN[j] = Math.cos(w * window);
+            sinN[j] = Math.sin(w * window);
+            cot[j] = cos[j] / sin[j];
+        }
+        re = new double[n];
+        im = new double[n];
+        history = new float[window];
+        reset();
+    }
+
+    /**
+     * Convenience method to push an entire chunk.
+     *
+     * @param chunk waveform data to be analyzed, provided in range from -1 .. 1
+     */
+    public void push(float[] chunk) {
+        push(chunk, 0, chunk.length);
+    }
+
+    /**
+     * Method feeds a chunk of waveform data into the detector. The chunk may be of any size;
+     * the listener is called once for every hop completed by this chunk, starting with the
+     * first full window.
+     *
+     * @param chunk waveform data to be analyzed, provided in range from -1 .. 1
+     * @param off index of the first sample to consume
+     * @param len number of samples to consume
+     */
+    public void push(float[] chunk, int off, int len) {
+        if (off < 0 || len < 0 || off + len > chunk.length)
+            throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", length=" + chunk.length);
+        for (int i = off, end = off + len; i < end; i++) slide(chunk[i]);
+    }
+
+    /**
+     * Method feeds a chunk of G.711 companded data into the detector.
+     *
+     * @param chunk companded waveform data to be analyzed
+     * @param off index of the first sample to consume
+     * @param len number of samples to consume
+     * @param law companding law of the chunk
+     */
+    public void push(byte[] chunk, int off, int len, G711 law) {
+        if (off < 0 || len < 0 || off + len > chunk.length)
+            throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", length=" + chunk.length);
+        float[] table = law.table;
+        for (int i = off, end = off + len; i < end; i++) slide(table[chunk[i] & 0xff]);
+    }
+
+    /**
+     * Discards the window and restarts sample offsets from zero.
+     */
+    public void reset() {
+        Arrays.fill(re, 0);
+        Arrays.fill(im, 0);
+        Arrays.fill(history, 0);
+        head = 0;
+        untilReport = window;
+        consumed = 0;
+    }
+
+    public int getWindow() { return window; }
+    public int getHop() { return hop; }
+
+    // moves the window on by one sample, reporting when a hop completes
+    private void slide(float v) {
+        float oldest = history[head];
+        history[head] = v;
+        if (++head == window) head = 0;
+
+        for (int j = 0; j < n; j++) {
+            double r = re[j], m = im[j];
+            re[j] = cos[j] * r - sin[j] * m + v - cosN[j] * oldest;
+            im[j] = sin[j] * r + cos[j] * m - sinN[j] * oldest;
+        }
+        consumed++;
+
+        if (--untilReport == 0) {
+            untilReport = hop;
+            report();
+        }
+    }
+
+    private void report() {
+        double[] state = detection.state;
+        for (int j = 0; j < n; j++) {
+            state[j] = re[j] + cot[j] * im[j];  // skn0
+            state[n + j] = im[j] / sin[j];      // skn1
+        }
+        detector.evaluate(detection);
+        listener.onBlock(consumed - window, detection);
+    }
+}
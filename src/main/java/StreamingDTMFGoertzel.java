@@ -0,0 +1,197 @@
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Streaming adaptation of DTMFGoertzel for audio that arrives in chunks which do not line up
+ * with the analysis blocks, e.g. 20 msec network packets against 256 sample blocks.
+ * <p>
+ * The Goertzel recurrence state (skn0, skn1) of every DTMF frequency is kept between calls
+ * to push(...), so chunks are consumed in place, without slicing or re-buffering. Whenever
+ * blockSize samples have been consumed, the power levels of the completed block are evaluated
+ * with the thresholds of the underlying DTMFGoertzel and handed to the listener, after which
+ * the recurrence starts over from zero state. Results are reported through a single reused
+ * Detection, so no garbage is produced per block.
+ * <p>
+ * A detector holds the recurrence state and fill of the block in progress, so chunks of one
+ * stream must be pushed in order, from one thread at a time, and a second stream needs a
+ * detector of its own. The listener is called on the pushing thread, with the detector's
+ * Detection, which is only valid until the call returns.
+ * <p>
+ * @see DTMFGoertzel
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class StreamingDTMFGoertzel {
+
+    /**
+     * Callback used to report the outcome of every completed block.
+     */
+    public interface Listener {
+
+        /**
+         * @param sampleOffset offset of the first sample of the block, counted from the start
+         *                     of the stream (or the last reset())
+         * @param detection outcome of the block; the instance is reused for every block, so it
+         *                  must not be retained beyond the call
+         */
+        void onBlock(long sampleOffset, DTMFGoertzel.Detection detection);
+    }
+
+    private final DTMFGoertzel detector;
+    private final int blockSize;
+    private final Listener listener;
+
+    private final DTMFGoertzel.Detection detection = new DTMFGoertzel.Detection();
+
+    private int blockFill;     // samples consumed in the current block
+    private long blockNanos;   // time spent on the current block, if the detector has metrics
+    private long blockOffset;  // stream offset of the first sample in the current block
+
+    /**
+     * Class constructor specifying the detector to use and the analysis block size.
+     *
+     * @param detector detector providing sample rate and power threshold
+     * @param blockSize number of samples in each analysis block
+     * @param listener callback receiving the result of every completed block
+     */
+    public StreamingDTMFGoertzel(DTMFGoertzel detector, int blockSize, Listener listener) {
+        if (blockSize <= 0) throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        this.detector = detector;
+        this.blockSize = blockSize;
+        this.listener = listener;
+    }
+
+    /**
+     * Convenience method to push an entire chunk.
+     *
+     * @param chunk waveform data to be analyzed, provided in range from -1 .. 1
+     */
+    public void push(float[] chunk) {
+        push(chunk, 0, chunk.length);
+    }
+
+    /**
+     * Method feeds a chunk of waveform data into the detector. The chunk may be of any size;
+     * the listener is called once for every block completed by this chunk.
+     *
+     * @param chunk waveform data to be analyzed, provided in range from -1 .. 1
+     * @param off index of the first sample to consume
+     * @param len number of samples to consume
+     */
+    public void push(float[] chunk, int off, int len) {
+        if (off < 0 || len < 0 || off + len > chunk.length)
+            throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", length=" + chunk.length);
+
+        while (len > 0) {
+            int n = Math.min(len, blockSize - blockFill);
+            long start = detector.clock();
+            detector.goertzel(chunk, off, n, detection.state);
+            blockNanos += detector.clock() - start;
+            off += n;
+            len -= n;
+            blockFill += n;
+            if (blockFill == blockSize) completeBlock();
+        }
+    }
+
+    /**
+     * Method feeds a chunk of G.711 companded data into the detector, decoding it inside the
+     * Goertzel loop.
+     *
+     * @param chunk companded waveform data to be analyzed
+     * @param off index of the first sample to consume
+     * @param len number of samples to consume
+     * @param law companding law of the chunk
+     */
+    public void push(byte[] chunk, int off, int len, G711 law) {
+        if (off < 0 || len < 0 || off + len > chunk.length)
+            throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", length=" + chunk.length);
+
+        while (len > 0) {
+            int n = Math.min(len, blockSize - blockFill);
+            long start = detector.clock();
+            detector.getPlan().update(chunk, off, n, law.table, detection.state, 0);
+            blockNanos += detector.clock() - start;
+            off += n;
+            len -= n;
+            blockFill += n;
+            if (blockFill == blockSize) completeBlock();
+        }
+    }
+
+    /**
+     * Method feeds the remaining bytes of a buffer of G.711 companded data into the detector,
+     * e.g. the payload of a received packet, and advances its position to the limit.
+     *
+     * @param chunk companded waveform data to be analyzed
+     * @param law companding law of the chunk
+     */
+    public void push(ByteBuffer chunk, G711 law) {
+        int off = chunk.position(), len = chunk.remaining();
+        while (len > 0) {
+            int n = Math.min(len, blockSize - blockFill);
+            long start = detector.clock();
+            detector.getPlan().update(chunk, off, n, law.table, detection.state, 0);
+            blockNanos += detector.clock() - start;
+            off += n;
+            len -= n;
+            blockFill += n;
+            if (blockFill == blockSize) completeBlock();
+        }
+        chunk.position(off);
+    }
+
+    /**
+     * Method feeds the remaining samples of a FloatBuffer into the detector, in place, e.g. a
+     * region of a SampleRing, and advances its position to the limit.
+     *
+     * @param chunk waveform data to be analyzed, provided in range from -1 .. 1
+     */
+    public void push(FloatBuffer chunk) {
+        int off = chunk.position(), len = chunk.remaining();
+        while (len > 0) {
+            int n = Math.min(len, blockSize - blockFill);
+            long start = detector.clock();
+            detector.getPlan().update(chunk, off, n, detection.state, 0);
+            blockNanos += detector.clock() - start;
+            off += n;
+            len -= n;
+            blockFill += n;
+            if (blockFill == blockSize) completeBlock();
+        }
+        chunk.position(off);
+    }
+
+    /**
+     * Discards any partially consumed block and restarts sample offsets from zero.
+     */
+    public void reset() {
+        clear();
+        blockOffset = 0;
+    }
+
+    public int getBlockSize() { return blockSize; }
+
+    /**
+     * @return number of samples consumed towards the block currently in progress
+     */
+    public int getPending() { return blockFill; }
+
+    private void completeBlock() {
+        // start the clock blockNanos early, so the recorded time includes the segments timed so far
+        detector.record(blockSize, detector.clock() - blockNanos, detector.evaluate(detection), detection);
+        long offset = blockOffset;
+        blockOffset += blockSize;
+        clear();
+        listener.onBlock(offset, detection);
+    }
+
+    private void clear() {
+        Arrays.fill(detection.state, 0);
+        blockFill = 0;
+        blockNanos = 0;
+    }
+}
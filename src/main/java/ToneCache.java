@@ -0,0 +1,176 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of pre-rendered DTMF tones for playback, e.g. by an IVR which sends the same
+ * few keys at a few sample rates and durations over and over.
+ * <p>
+ * Each tone is rendered once, as 16 bit little-endian PCM, into a direct ByteBuffer outside the
+ * Java heap, which is then only handed out as read-only views. Any number of threads share the
+ * rendered samples: a hit costs a map lookup and a view object, never a copy, and the view can be
+ * written to a channel or socket as it is. The cache is bounded by the total size of its
+ * buffers, and evicts the least recently used tones first. A tone which has been evicted stays
+ * valid for whoever holds a view of it; its memory is released once no view remains reachable.
+ * <p>
+ * Lookups are serialized by a lock held only for the map operation; tones are rendered outside
+ * of it, so that a miss does not stall other senders. Two threads missing the same tone at the
+ * same time may both render it, in which case one rendering is kept.
+ * <p>
+ * @see ToneSynthesizer
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class ToneCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, ByteBuffer> tones = new LinkedHashMap<>(16, 0.75F, true); // LRU order
+    private long bytes;                      // total capacity of the cached buffers, guarded by tones
+
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+    /**
+     * @param maxBytes bound on the total size of the cached tones, in bytes of PCM
+     */
+    public ToneCache(long maxBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Method returns a tone as DTMF.generateTone(...) would generate it, scaled by amplitude.
+     *
+     * @param sampleRate the sampling rate of the tone, in Hz
+     * @param key the key: 0-9, #, *, A-D
+     * @param msecs duration, in milliseconds
+     * @param amplitude peak amplitude of the tone, 1.0 being full scale
+     * @return read-only, little-endian view of the 16 bit PCM, positioned at the first sample
+     */
+    public ByteBuffer get(int sampleRate, char key, int msecs, double amplitude) {
+        Key k = new Key(sampleRate, key, msecs, amplitude);
+        ByteBuffer tone;
+        synchronized (tones) {
+            tone = tones.get(k);
+        }
+        if (tone != null) {
+            hits.increment();
+            return view(tone);
+        }
+
+        misses.increment();
+        tone = render(k);
+        if (tone.capacity() > maxBytes) return view(tone); // would evict everything, not cached
+        synchronized (tones) {
+            ByteBuffer raced = tones.putIfAbsent(k, tone);
+            if (raced != null) return view(raced);
+            bytes += tone.capacity();
+            Iterator<ByteBuffer> eldest = tones.values().iterator();
+            while (bytes > maxBytes) {
+                bytes -= eldest.next().capacity();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+        return view(tone);
+    }
+
+    /**
+     * Evicts every tone.
+     */
+    public void clear() {
+        synchronized (tones) {
+            evictions.add(tones.size());
+            tones.clear();
+            bytes = 0;
+        }
+    }
+
+    public long getMaxBytes() { return maxBytes; }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+
+    /**
+     * @return number of tones cached
+     */
+    public int getSize() {
+        synchronized (tones) {
+            return tones.size();
+        }
+    }
+
+    /**
+     * @return total size of the cached tones, in bytes
+     */
+    public long getBytes() {
+        synchronized (tones) {
+            return bytes;
+        }
+    }
+
+    /**
+     * @return fraction of lookups served from the cache, NaN before the first lookup
+     */
+    public double getHitRatio() {
+        long h = hits.sum(), total = h + misses.sum();
+        return total == 0 ? Double.NaN : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return "ToneCache{size=" + getSize() + ", bytes=" + getBytes() + ", maxBytes=" + maxBytes
+                + ", hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions() + '}';
+    }
+
+    // read-only views reset byte order to big-endian
+    private static ByteBuffer view(ByteBuffer tone) {
+        return tone.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer render(Key k) {
+        int samples = (int) (k.msecs / 1000D * k.sampleRate);
+        ByteBuffer tone = ByteBuffer.allocateDirect(2 * samples).order(ByteOrder.LITTLE_ENDIAN);
+        ToneSynthesizer.forKey(k.sampleRate, k.key, k.amplitude).generate(tone.asShortBuffer());
+        return tone;
+    }
+
+    private static final class Key {
+
+        final int sampleRate, msecs;
+        final char key;
+        final double amplitude;
+
+        Key(int sampleRate, char key, int msecs, double amplitude) {
+            if (sampleRate <= 0) throw new IllegalArgumentException("sampleRate must be positive: " + sampleRate);
+            if (msecs < 0) throw new IllegalArgumentException("msecs must not be negative: " + msecs);
+            Objects.requireNonNull(DTMF.getToneMap().get(key), () -> "no such key: " + key);
+            this.sampleRate = sampleRate;
+            this.key = key;
+            this.msecs = msecs;
+            this.amplitude = amplitude;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof Key)) return false;
+            Key k = (Key) other;
+            return sampleRate == k.sampleRate && key == k.key && msecs == k.msecs
+                    && Double.compare(amplitude, k.amplitude) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = sampleRate;
+            result = 31 * result + key;
+            result = 31 * result + msecs;
+            result = 31 * result + Double.hashCode(amplitude);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Streaming generator of sums of sine tones, e.g. the two frequencies of a DTMF key, which
+ * writes into caller-supplied buffers, chunk after chunk, so that a signal of any length can
+ * be produced without holding it in memory.
+ * <p>
+ * Each frequency is a quadrature oscillator: its phasor (cos, sin) is rotated by e^(jw) once
+ * per sample, which costs four multiplications rather than a call to Math.sin. Rounding would
+ * slowly change the phasor's length, so it is pulled back to unit length every RENORMALIZE
+ * samples. The output continues seamlessly from one call to the next, and starts, as
+ * DTMF.generateCompositeTone(...) does, at phase 0 of every frequency.
+ * <p>
+ * The phasors advance with every sample generated, so a synthesizer yields one continuous
+ * signal, to one thread at a time; a copy of the signal needs a synthesizer of its own, and
+ * reset() starts the same one over at phase 0.
+ * <p>
+ * @see DTMF#generateCompositeTone(float, int, double...)
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public final class ToneSynthesizer {
+
+    static final int RENORMALIZE = 1024; // samples between corrections of the phasor length
+
+    private final double sampleRate, amplitude;
+    private final double[] frequencies;
+    private final double[] cos, sin;   // rotation per sample
+    private final double[] re, im;     // current phasor per frequency
+    private final double scale;        // amplitude / number of frequencies
+
+    private long position;             // samples generated since construction (or reset())
+    private int untilRenormalize;
+
+    /**
+     * Class constructor specifying sample rate, peak amplitude and frequencies. Each frequency
+     * contributes amplitude / frequencies.length, as in DTMF.generateCompositeTone(...).
+     *
+     * @param sampleRate the sampling rate of the generated waveform, in Hz
+     * @param amplitude peak amplitude of the sum, 1.0 being full scale
+     * @param frequencies frequencies to sum, in Hz
+     */
+    public ToneSynthesizer(double sampleRate, double amplitude, double... frequencies) {
+        if (!(sampleRate > 0)) throw new IllegalArgumentException("sampleRate must be positive: " + sampleRate);
+        this.sampleRate = sampleRate;
+        this.amplitude = amplitude;
+        this.frequencies = frequencies.clone();
+        int n = frequencies.length;
+        this.scale = n == 0 ? 0 : amplitude / n;
+
+        cos = new double[n];
+        sin = new double[n];
+        re = new double[n];
+        im = new double[n];
+        for (int k = 0; k < n; k++) {
+            double w = 2 * Math.PI * frequencies[k] / sampleRate;
+            cos[k] = Math.cos(w);
+            sin[k] = Math.sin(w);
+        }
+        reset();
+    }
+
+    /**
+     * Convenience method for the two frequencies of a DTMF key.
+     *
+     * @param sampleRate the sampling rate of the generated waveform, in Hz
+     * @param key the key: 0-9, #, *, A-D
+     * @param amplitude peak amplitude of the sum, 1.0 being full scale
+     * @return synthesizer for the key
+     */
+    public static ToneSynthesizer forKey(double sampleRate, char key, double amplitude) {
+        DTMF dtmf = Objects.requireNonNull(DTMF.getToneMap().get(key), () -> "no such key: " + key);
+        return new ToneSynthesizer(sampleRate, amplitude, dtmf.getFrequencies());
+    }
+
+    /**
+     * Method generates the next samples as doubles.
+     *
+     * @param dst receives the samples, in range from -amplitude .. amplitude
+     * @param off index in dst of the first sample
+     * @param len number of samples to generate
+     */
+    public void generate(double[] dst, int off, int len) {
+        checkBounds(dst.length, off, len);
+        for (int i = off, end = off + len; i < end; i++) dst[i] = next();
+    }
+
+    /**
+     * Method generates the next samples as floats, as consumed by DTMFGoertzel.
+     *
+     * @param dst receives the samples, in range from -amplitude .. amplitude
+     * @param off index in dst of the first sample
+     * @param len number of samples to generate
+     */
+    public void generate(float[] dst, int off, int len) {
+        checkBounds(dst.length, off, len);
+        for (int i = off, end = off + len; i < end; i++) dst[i] = (float) next();
+    }
+
+    /**
+     * Method generates the next samples as 16 bit PCM, scaled by 32767 and rounded, as in
+     * DTMF.generateTone(...); values beyond full scale are clipped.
+     *
+     * @param dst receives the samples
+     * @param off index in dst of the first sample
+     * @param len number of samples to generate
+     */
+    public void generate(short[] dst, int off, int len) {
+        checkBounds(dst.length, off, len);
+        for (int i = off, end = off + len; i < end; i++) dst[i] = pcm(next());
+    }
+
+    /**
+     * Method fills the remaining space of a buffer with the next samples as 16 bit PCM, e.g. a
+     * direct buffer handed to an audio device, and advances its position to the limit.
+     *
+     * @param dst receives the samples
+     * @return number of samples generated
+     */
+    public int generate(ShortBuffer dst) {
+        int n = dst.remaining();
+        if (dst.hasArray()) {
+            generate(dst.array(), dst.arrayOffset() + dst.position(), n);
+            dst.position(dst.limit());
+        } else {
+            for (int i = 0; i < n; i++) dst.put(pcm(next()));
+        }
+        return n;
+    }
+
+    /**
+     * Restarts every frequency at phase 0.
+     */
+    public void reset() {
+        Arrays.fill(re, 1);
+        Arrays.fill(im, 0);
+        position = 0;
+        untilRenormalize = RENORMALIZE;
+    }
+
+    public double getSampleRate() { return sampleRate; }
+    public double getAmplitude() { return amplitude; }
+    public double[] getFrequencies() { return frequencies.clone(); }
+
+    /**
+     * @return number of samples generated since construction (or the last reset())
+     */
+    public long getPosition() { return position; }
+
+    // the current sample, after which every phasor is rotated on by one sample
+    private double next() {
+        double sum = 0;
+        for (int k = 0; k < re.length; k++) {
+            double r = re[k], m = im[k];
+            sum += m;
+            re[k] = r * cos[k] - m * sin[k];
+            im[k] = m * cos[k] + r * sin[k];
+        }
+        position++;
+        if (--untilRenormalize == 0) renormalize();
+        return sum * scale;
+    }
+
+    // first order correction of each phasor towards unit length
+    private void renormalize() {
+        for (int k = 0; k < re.length; k++) {
+            double g = (3 - (re[k] * re[k] + im[k] * im[k])) / 2;
+            re[k] *= g;
+            im[k] *= g;
+        }
+        untilRenormalize = RENORMALIZE;
+    }
+
+    private static short pcm(double value) {
+        long v = Math.round(value * 32767.0D);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, v));
+    }
+
+    private static void checkBounds(int length, int off, int len) {
+        if (off < 0 || len < 0 || off + len > length)
+            throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", length=" + length);
+    }
+}
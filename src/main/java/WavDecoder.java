@@ -0,0 +1,185 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming decoder for WAVE files of any length, which holds only a fixed size I/O buffer in
+ * memory, regardless of the length of the recording.
+ * <p>
+ * Supported are 8 bit (unsigned), 16, 24 and 32 bit integer PCM and 32 bit IEEE float data,
+ * with any number of channels. Samples are converted to floats in range from -1 .. 1 and are
+ * handed out either per channel, or downmixed to mono by averaging the channels of each frame.
+ * The chunk layout is parsed by WavFormat, so LIST, fact and other chunks are skipped.
+ * <p>
+ * @see WavFormat
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class WavDecoder implements Closeable {
+
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final WavFormat format;
+    private final ByteBuffer buffer;
+    private final int channels, bytesPerSample;
+
+    private long position;   // file position of the next byte to read into buffer
+    private final long end;  // file position just past the sample data
+
+    private WavDecoder(FileChannel channel, WavFormat format, int bufferSize) throws IOException {
+        this.channel = channel;
+        this.format = format;
+        this.channels = format.getChannels();
+        this.bytesPerSample = format.getBitsPerSample() / 8;
+
+        boolean pcm = format.getAudioFormat() == WavFormat.FORMAT_PCM
+                && (bytesPerSample >= 1 && bytesPerSample <= 4) && format.getBitsPerSample() % 8 == 0;
+        boolean ieee = format.getAudioFormat() == WavFormat.FORMAT_IEEE_FLOAT && bytesPerSample == 4;
+        if (!pcm && !ieee) throw new IOException("Unsupported sample format: " + format);
+        if (channels < 1 || format.getBlockAlign() != channels * bytesPerSample)
+            throw new IOException("Inconsistent block alignment: " + format);
+
+        int frameSize = format.getBlockAlign();
+        buffer = ByteBuffer.allocateDirect(Math.max(frameSize, bufferSize - bufferSize % frameSize))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.limit(0);
+        position = format.getDataOffset();
+        end = format.getDataOffset() + format.getDataLength();
+    }
+
+    public static WavDecoder open(Path path) throws IOException {
+        return open(path, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Opens a WAVE file for decoding.
+     *
+     * @param path file to open
+     * @param bufferSize size of the I/O buffer, in bytes, rounded down to whole frames
+     * @return the decoder, positioned at the first frame
+     * @throws IOException if the file cannot be read or its sample format is not supported
+     */
+    public static WavDecoder open(Path path, int bufferSize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new WavDecoder(channel, WavFormat.read(channel), bufferSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public WavFormat getFormat() { return format; }
+
+    /**
+     * Method decodes the next frames, downmixing all channels to mono.
+     *
+     * @param dst receives one sample per frame, in range from -1 .. 1
+     * @param off index in dst of the first sample
+     * @param frames maximum number of frames to decode
+     * @return number of frames decoded, 0 at the end of the data
+     * @throws IOException if the file cannot be read
+     */
+    public int read(float[] dst, int off, int frames) throws IOException {
+        int n = 0;
+        while (n < frames && fill()) {
+            int count = Math.min(frames - n, buffer.remaining() / format.getBlockAlign());
+            for (int i = 0; i < count; i++) {
+                float sum = 0;
+                for (int c = 0; c < channels; c++) sum += sample();
+                dst[off + n + i] = channels == 1 ? sum : sum / channels;
+            }
+            n += count;
+        }
+        return n;
+    }
+
+    /**
+     * Method decodes the next frames, keeping channels apart.
+     *
+     * @param dst receives the samples of channel c in dst[c], in range from -1 .. 1
+     * @param off index in each dst[c] of the first sample
+     * @param frames maximum number of frames to decode
+     * @return number of frames decoded, 0 at the end of the data
+     * @throws IOException if the file cannot be read
+     */
+    public int read(float[][] dst, int off, int frames) throws IOException {
+        if (dst.length != channels)
+            throw new IllegalArgumentException("expected " + channels + " channels, got " + dst.length);
+        int n = 0;
+        while (n < frames && fill()) {
+            int count = Math.min(frames - n, buffer.remaining() / format.getBlockAlign());
+            for (int i = 0; i < count; i++)
+                for (int c = 0; c < channels; c++) dst[c][off + n + i] = sample();
+            n += count;
+        }
+        return n;
+    }
+
+    /**
+     * Method feeds the remaining data, downmixed to mono, to a streaming detector in blocks.
+     *
+     * @param streaming detector to feed
+     * @throws IOException if the file cannot be read
+     */
+    public void scan(StreamingDTMFGoertzel streaming) throws IOException {
+        float[] block = new float[streaming.getBlockSize()];
+        for (int n; (n = read(block, 0, block.length)) > 0; )
+            streaming.push(block, 0, n);
+    }
+
+    /**
+     * Method feeds the remaining data to one streaming detector per channel.
+     *
+     * @param streaming one detector per channel, all of the same block size
+     * @throws IOException if the file cannot be read
+     */
+    public void scan(StreamingDTMFGoertzel[] streaming) throws IOException {
+        float[][] blocks = new float[channels][streaming[0].getBlockSize()];
+        for (int n; (n = read(blocks, 0, blocks[0].length)) > 0; )
+            for (int c = 0; c < channels; c++) streaming[c].push(blocks[c], 0, n);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // make sure at least one whole frame is buffered, reading more if needed
+    private boolean fill() throws IOException {
+        if (buffer.remaining() >= format.getBlockAlign()) return true;
+        buffer.compact();
+        int limit = (int) Math.min(buffer.capacity(), buffer.position() + (end - position));
+        buffer.limit(limit);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) break; // truncated file
+            position += read;
+        }
+        buffer.flip();
+        buffer.limit(buffer.limit() - buffer.limit() % format.getBlockAlign());
+        return buffer.remaining() >= format.getBlockAlign();
+    }
+
+    private float sample() {
+        switch (bytesPerSample) {
+            case 1:
+                return ((buffer.get() & 0xff) - 128) / 127.0F;
+            case 2:
+                return buffer.getShort() / 32767.0F;
+            case 3:
+                int lo = buffer.get() & 0xff, mid = buffer.get() & 0xff, hi = buffer.get();
+                return ((hi << 16) | (mid << 8) | lo) / 8388607.0F;
+            default:
+                if (format.getAudioFormat() == WavFormat.FORMAT_IEEE_FLOAT) return buffer.getFloat();
+                return buffer.getInt() / 2147483647.0F;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader for 16 bit PCM WAVE files which memory-maps the sample data, rather than reading it
+ * through a stream.
+ * <p>
+ * The data chunk is mapped read-only with FileChannel.map and viewed as a little-endian
+ * ShortBuffer. Samples are bulk-copied from it, a chunk at a time, into a short scratch array
+ * and converted to floats from there, straight from the page cache, without reading the file
+ * into a byte array first. Frames are interleaved for multi-channel files, as in the file itself.
+ * <p>
+ * A single mapping is limited to 2 GB of sample data, i.e. about 37 hours of 8 kHz mono audio.
+ * <p>
+ * @see WavFormat
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class WavFile implements Closeable {
+
+    static final int CHUNK = 4096;  // samples per bulk copy in read(...)
+
+    private final FileChannel channel;
+    private final WavFormat format;
+    private final MappedByteBuffer data;
+    private final ShortBuffer samples;
+
+    private WavFile(FileChannel channel, WavFormat format, MappedByteBuffer data) {
+        this.channel = channel;
+        this.format = format;
+        this.data = data;
+        this.samples = data.order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+    }
+
+    /**
+     * Opens and maps a WAVE file.
+     *
+     * @param path file to open
+     * @return the mapped file
+     * @throws IOException if the file cannot be read, is not 16 bit PCM, or is too large to map
+     */
+    public static WavFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            WavFormat format = WavFormat.read(channel);
+            if (format.getAudioFormat() != WavFormat.FORMAT_PCM || format.getBitsPerSample() != 16)
+                throw new IOException("Only 16 bit PCM is supported: " + format);
+            if (format.getDataLength() > Integer.MAX_VALUE)
+                throw new IOException("Sample data too large to map: " + format.getDataLength() + " bytes");
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, format.getDataOffset(), format.getDataLength());
+            return new WavFile(channel, format, data);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public WavFormat getFormat() { return format; }
+
+    /**
+     * @return number of samples, over all channels, in the file
+     */
+    public int getSampleCount() { return samples.limit(); }
+
+    /**
+     * @return read-only view of the 16 bit samples, positioned at the first sample
+     */
+    public ShortBuffer samples() { return samples.asReadOnlyBuffer(); }
+
+    /**
+     * Asks the operating system to page the sample data into memory ahead of use, e.g. on a
+     * thread other than the one that will analyze it.
+     */
+    public void load() { data.load(); }
+
+    /**
+     * Method converts samples to floats in range from -1 .. 1, as AudioWav does. A scratch
+     * buffer of CHUNK samples is allocated per call; callers reading the file piecewise should
+     * pass their own to read(int, float[], int, int, short[]).
+     *
+     * @param index index of the first sample to convert
+     * @param dst receives the samples
+     * @param off index in dst of the first converted sample
+     * @param len maximum number of samples to convert
+     * @return number of samples converted, less than len only at the end of the file
+     */
+    public int read(int index, float[] dst, int off, int len) {
+        return read(index, dst, off, len, new short[Math.min(Math.max(len, 1), CHUNK)]);
+    }
+
+    /**
+     * Method converts samples to floats in range from -1 .. 1, staging them in a caller-supplied
+     * scratch buffer, so repeated reads allocate nothing. Samples are copied with absolute bulk
+     * gets, which leave the shared buffer untouched, so threads may read one file concurrently,
+     * each with its own scratch.
+     *
+     * @param index index of the first sample to convert
+     * @param dst receives the samples
+     * @param off index in dst of the first converted sample
+     * @param len maximum number of samples to convert
+     * @param scratch staging buffer of any non-zero length; samples are copied a scratch at a time
+     * @return number of samples converted, less than len only at the end of the file
+     */
+    public int read(int index, float[] dst, int off, int len, short[] scratch) {
+        int n = Math.min(len, samples.limit() - index);
+        if (n <= 0) return 0;
+        convert(index, dst, off, n, scratch);
+        return n;
+    }
+
+    /**
+     * Convenience method which converts the entire file.
+     *
+     * @return all samples, in range from -1 .. 1
+     */
+    public float[] readAll() {
+        float[] result = new float[samples.limit()];
+        read(0, result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * Method feeds the entire file to a streaming detector, one block at a time. Samples are
+     * converted into a single block sized scratch buffer that is reused throughout, so memory
+     * use does not depend on the length of the file.
+     *
+     * @param streaming detector to feed
+     * @throws IllegalStateException if the file is not mono
+     */
+    public void scan(StreamingDTMFGoertzel streaming) {
+        if (format.getChannels() != 1)
+            throw new IllegalStateException("scan(...) requires mono data: " + format);
+        float[] block = new float[streaming.getBlockSize()];
+        short[] scratch = new short[block.length];
+        for (int index = 0, n; (n = read(index, block, 0, block.length, scratch)) > 0; index += n)
+            streaming.push(block, 0, n);
+    }
+
+    // bulk-copies n samples from index on, a scratch at a time, and scales them
+    private void convert(int index, float[] dst, int off, int n, short[] scratch) {
+        for (int done = 0; done < n; ) {
+            int k = Math.min(scratch.length, n - done);
+            samples.get(index + done, scratch, 0, k);
+            for (int i = 0; i < k; i++)
+                dst[off + done + i] = scratch[i] / 32767.0F;
+            done += k;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close(); // the mapping itself is released once unreachable
+    }
+}
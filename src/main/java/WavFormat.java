@@ -0,0 +1,130 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Format of a RIFF/WAVE file, together with the location of its sample data.
+ * <p>
+ * The file is parsed by walking its chunks, so chunks other than "fmt " and "data", such as
+ * LIST or fact, are skipped wherever they appear, rather than assuming the canonical 44 byte
+ * header. WAVE_FORMAT_EXTENSIBLE files are reported with the format code of their sub-format.
+ * <p>
+ * @see <a href="http://soundfile.sapp.org/doc/WaveFormat/">http://soundfile.sapp.org/doc/WaveFormat/</a>
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public final class WavFormat {
+
+    public static final int FORMAT_PCM = 1;
+    public static final int FORMAT_IEEE_FLOAT = 3;
+    public static final int FORMAT_ALAW = 6;
+    public static final int FORMAT_MULAW = 7;
+    public static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+    private final int audioFormat, channels, sampleRate, byteRate, blockAlign, bitsPerSample;
+    private final long dataOffset, dataLength;
+
+    WavFormat(int audioFormat, int channels, int sampleRate, int byteRate, int blockAlign,
+              int bitsPerSample, long dataOffset, long dataLength) {
+        this.audioFormat = audioFormat;
+        this.channels = channels;
+        this.sampleRate = sampleRate;
+        this.byteRate = byteRate;
+        this.blockAlign = blockAlign;
+        this.bitsPerSample = bitsPerSample;
+        this.dataOffset = dataOffset;
+        this.dataLength = dataLength;
+    }
+
+    /**
+     * Parses the chunks of a WAVE file, up to the start of its "data" chunk.
+     *
+     * @param channel file to parse, read with positional reads, its position is not changed
+     * @return format and location of the sample data
+     * @throws IOException if the file cannot be read or is not a WAVE file
+     */
+    public static WavFormat read(FileChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+        long size = channel.size();
+
+        readFully(channel, buf, 0, 12);
+        if (!id(buf, 0).equals("RIFF") || !id(buf, 8).equals("WAVE"))
+            throw new IOException("Illegal format, not a RIFF/WAVE file.");
+
+        int audioFormat = -1, channels = 0, sampleRate = 0, byteRate = 0, blockAlign = 0, bitsPerSample = 0;
+        long position = 12;
+        while (position + 8 <= size) {
+            readFully(channel, buf, position, 8);
+            String id = id(buf, 0);
+            long chunkSize = buf.getInt(4) & 0xffffffffL;
+            long body = position + 8;
+
+            if (id.equals("fmt ")) {
+                if (chunkSize < 16) throw new IOException("fmt chunk too short: " + chunkSize);
+                readFully(channel, buf, body, (int) Math.min(chunkSize, 40));
+                audioFormat = buf.getShort(0) & 0xffff;
+                channels = buf.getShort(2) & 0xffff;
+                sampleRate = buf.getInt(4);
+                byteRate = buf.getInt(8);
+                blockAlign = buf.getShort(12) & 0xffff;
+                bitsPerSample = buf.getShort(14) & 0xffff;
+                if (audioFormat == FORMAT_EXTENSIBLE && chunkSize >= 26)
+                    audioFormat = buf.getShort(24) & 0xffff; // first two bytes of the sub-format GUID
+            } else if (id.equals("data")) {
+                if (audioFormat < 0) throw new IOException("data chunk precedes fmt chunk");
+                // streaming writers may leave the size unset; trust the file length instead
+                long dataLength = Math.min(chunkSize, size - body);
+                return new WavFormat(audioFormat, channels, sampleRate, byteRate, blockAlign,
+                        bitsPerSample, body, dataLength - dataLength % Math.max(blockAlign, 1));
+            }
+            position = body + chunkSize + (chunkSize & 1); // chunks are padded to even length
+        }
+        throw new IOException("No data chunk found.");
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position, int length) throws IOException {
+        buf.clear().limit(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0)
+                throw new EOFException("Unexpected end of file at " + (position + buf.position()));
+        }
+    }
+
+    private static String id(ByteBuffer buf, int offset) {
+        byte[] id = new byte[4];
+        for (int i = 0; i < 4; i++) id[i] = buf.get(offset + i);
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+
+    // getters
+    public int getAudioFormat() { return audioFormat; }
+    public int getChannels() { return channels; }
+    public int getSampleRate() { return sampleRate; }
+    public int getByteRate() { return byteRate; }
+    public int getBlockAlign() { return blockAlign; }
+    public int getBitsPerSample() { return bitsPerSample; }
+    public long getDataOffset() { return dataOffset; }
+    public long getDataLength() { return dataLength; }
+
+    /**
+     * @return number of frames, i.e. samples per channel, in the data chunk
+     */
+    public long getFrameCount() { return blockAlign == 0 ? 0 : dataLength / blockAlign; }
+
+    /**
+     * @return duration of the sample data, in seconds
+     */
+    public double getDuration() { return sampleRate == 0 ? 0 : (double) getFrameCount() / sampleRate; }
+
+    @Override
+    public String toString() {
+        return "WavFormat{audioFormat=" + audioFormat + ", channels=" + channels + ", sampleRate=" + sampleRate
+                + ", bitsPerSample=" + bitsPerSample + ", blockAlign=" + blockAlign
+                + ", dataOffset=" + dataOffset + ", dataLength=" + dataLength + '}';
+    }
+}
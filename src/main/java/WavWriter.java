@@ -0,0 +1,178 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writer for 16 bit PCM WAVE files of any length up to the 4 GB limit of RIFF, the counterpart
+ * of WavDecoder.
+ * <p>
+ * Samples are converted straight into a direct, little-endian ByteBuffer, which is written to a
+ * FileChannel whenever it fills, so the writer holds no more than the buffer in memory and the
+ * data reaches the disk without an intermediate heap copy. The canonical 44 byte header is
+ * written up front with the sizes left open, and completed by close(); readers of this project
+ * (WavFormat) also accept a file whose writer did not get to close it.
+ * <p>
+ * @see WavFormat
+ * <p>
+ * @author rlutz
+ * @version 0.1
+ * @since   2026-10-16
+ */
+public class WavWriter implements Closeable {
+
+    static final int HEADER_SIZE = 44;
+    static final long MAX_DATA_LENGTH = 0xFFFFFFFFL - (HEADER_SIZE - 8);
+
+    private final FileChannel channel;
+    private final int sampleRate, channels;
+    private final ByteBuffer buffer;
+
+    private long dataLength;   // bytes of sample data handed to the writer
+    private boolean closed;
+
+    private WavWriter(FileChannel channel, int sampleRate, int channels, int bufferSize) {
+        this.channel = channel;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        int frameSize = 2 * channels;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(frameSize, bufferSize - bufferSize % frameSize))
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public static WavWriter create(Path path, int sampleRate, int channels) throws IOException {
+        return create(path, sampleRate, channels, WavDecoder.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates, or truncates, a WAVE file for writing.
+     *
+     * @param path file to write
+     * @param sampleRate the sampling rate, in Hz
+     * @param channels number of channels per frame
+     * @param bufferSize size of the I/O buffer, in bytes, rounded down to whole frames
+     * @return the writer, positioned at the first frame
+     * @throws IOException if the file cannot be created
+     */
+    public static WavWriter create(Path path, int sampleRate, int channels, int bufferSize) throws IOException {
+        if (sampleRate <= 0) throw new IllegalArgumentException("sampleRate must be positive: " + sampleRate);
+        if (channels <= 0 || channels > 0xffff) throw new IllegalArgumentException("illegal channel count: " + channels);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            WavWriter writer = new WavWriter(channel, sampleRate, channels, bufferSize);
+            writer.writeHeader();
+            return writer;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Method writes frames of 16 bit PCM, interleaved as in the file.
+     *
+     * @param samples interleaved samples, channels per frame
+     * @param off index of the first sample
+     * @param frames number of frames to write
+     * @throws IOException if the file cannot be written, or would exceed the RIFF size limit
+     */
+    public void write(short[] samples, int off, int frames) throws IOException {
+        int len = frames * channels;
+        checkBounds(samples.length, off, len);
+        reserve(len);
+        for (int i = off, end = off + len; i < end; i++) {
+            if (!buffer.hasRemaining()) flush();
+            buffer.putShort(samples[i]);
+        }
+    }
+
+    /**
+     * Method writes frames given as one array per channel, in range from -1 .. 1, scaled by
+     * 32767, rounded and clipped to 16 bits.
+     *
+     * @param samples samples of channel c in samples[c]
+     * @param off index in each samples[c] of the first sample
+     * @param frames number of frames to write
+     * @throws IOException if the file cannot be written, or would exceed the RIFF size limit
+     */
+    public void write(float[][] samples, int off, int frames) throws IOException {
+        if (samples.length != channels)
+            throw new IllegalArgumentException("expected " + channels + " channels, got " + samples.length);
+        for (float[] channel : samples) checkBounds(channel.length, off, frames);
+        reserve((long) frames * channels);
+        for (int i = off, end = off + frames; i < end; i++) {
+            if (buffer.remaining() < 2 * channels) flush();
+            for (int c = 0; c < channels; c++) {
+                long v = Math.round(samples[c][i] * 32767.0D);
+                buffer.putShort((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, v)));
+            }
+        }
+    }
+
+    public int getSampleRate() { return sampleRate; }
+    public int getChannels() { return channels; }
+
+    /**
+     * @return number of frames written so far
+     */
+    public long getFrameCount() { return dataLength / (2L * channels); }
+
+    /**
+     * Writes out any buffered frames and completes the header.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            flush();
+            ByteBuffer sizes = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            writeFully(sizes.putInt(0, (int) (HEADER_SIZE - 8 + dataLength)), 4);
+            writeFully(sizes.putInt(0, (int) dataLength), 40);
+        } finally {
+            channel.close();
+        }
+    }
+
+    // accounts for len more samples, refusing to pass the RIFF size limit
+    private void reserve(long len) throws IOException {
+        if (closed) throw new IOException("writer is closed");
+        if (dataLength + 2 * len > MAX_DATA_LENGTH)
+            throw new IOException("WAVE data would exceed " + MAX_DATA_LENGTH + " bytes");
+        dataLength += 2 * len;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(0xFFFFFFFF) // completed by close()
+                .put("WAVE".getBytes(StandardCharsets.US_ASCII))
+                .put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16)
+                .putShort((short) WavFormat.FORMAT_PCM).putShort((short) channels)
+                .putInt(sampleRate).putInt(sampleRate * channels * 2)
+                .putShort((short) (channels * 2)).putShort((short) 16)
+                .put("data".getBytes(StandardCharsets.US_ASCII)).putInt(0xFFFFFFFF);
+        header.flip();
+        while (header.hasRemaining()) channel.write(header);
+    }
+
+    private void writeFully(ByteBuffer src, long position) throws IOException {
+        src.clear();
+        while (src.hasRemaining()) position += channel.write(src, position);
+    }
+
+    private static void checkBounds(int length, int off, long len) {
+        if (off < 0 || len < 0 || off + len > length)
+            throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", length=" + length);
+    }
+}
@@ -0,0 +1,63 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * GoertzelKernel built on the Java Vector API, which holds the eight resonators of a stream in
+ * two vectors of four doubles each, so that one multiply, subtract and add advance four
+ * resonators at a time.
+ * <p>
+ * The recurrence is serial in time, so a single stream would leave the vector units waiting on
+ * the latency of each step; two streams are therefore advanced side by side, giving four
+ * independent chains per sample. The operations are those of the scalar recurrence, in the same
+ * order and without fused multiply-add, so results are bit for bit identical.
+ * <p>
+ * This class lives in its own source directory, as it needs the jdk.incubator.vector module,
+ * both to compile (JDK 16 or later) and to run (--add-modules jdk.incubator.vector). GoertzelPlan
+ * loads it reflectively and falls back to the scalar kernels when it cannot be loaded.
+ * <p>
+ * @see GoertzelPlan
+ * <p>
+ * @version 0.1
+ * @since   2026-10-16
+ */
+final class VectorGoertzelKernel implements GoertzelKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_256;
+
+    VectorGoertzelKernel() {
+        if (DoubleVector.SPECIES_PREFERRED.vectorBitSize() < SPECIES.vectorBitSize())
+            throw new UnsupportedOperationException("no 256 bit vectors on this platform");
+    }
+
+    @Override
+    public void update(double[] cosines, float[] buffer0, int off0, float[] buffer1, int off1, int len, int stride,
+                       double[] state, int o, int p) {
+
+        final DoubleVector c0 = DoubleVector.fromArray(SPECIES, cosines, 0);
+        final DoubleVector c1 = DoubleVector.fromArray(SPECIES, cosines, 4);
+
+        // first stream: skn0 in a, skn1 in b; second stream: skn0 in d, skn1 in e
+        DoubleVector a0 = DoubleVector.fromArray(SPECIES, state, o),     a1 = DoubleVector.fromArray(SPECIES, state, o + 4);
+        DoubleVector b0 = DoubleVector.fromArray(SPECIES, state, o + 8), b1 = DoubleVector.fromArray(SPECIES, state, o + 12);
+        DoubleVector d0 = DoubleVector.fromArray(SPECIES, state, p),     d1 = DoubleVector.fromArray(SPECIES, state, p + 4);
+        DoubleVector e0 = DoubleVector.fromArray(SPECIES, state, p + 8), e1 = DoubleVector.fromArray(SPECIES, state, p + 12);
+
+        DoubleVector t0, t1;
+        for (int i = 0, end = len * stride; i < end; i += stride) {
+            final double v = buffer0[off0 + i], w = buffer1[off1 + i];
+            t0 = a0; t1 = a1;
+            a0 = c0.mul(a0).sub(b0).add(v);
+            a1 = c1.mul(a1).sub(b1).add(v);
+            b0 = t0; b1 = t1;
+            t0 = d0; t1 = d1;
+            d0 = c0.mul(d0).sub(e0).add(w);
+            d1 = c1.mul(d1).sub(e1).add(w);
+            e0 = t0; e1 = t1;
+        }
+
+        a0.intoArray(state, o);     a1.intoArray(state, o + 4);
+        b0.intoArray(state, o + 8); b1.intoArray(state, o + 12);
+        d0.intoArray(state, p);     d1.intoArray(state, p + 4);
+        e0.intoArray(state, p + 8); e1.intoArray(state, p + 12);
+    }
+}
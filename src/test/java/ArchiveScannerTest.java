@@ -0,0 +1,243 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveScannerTest {
+
+    @TempDir
+    Path tmp;
+
+    private final double powerThreshold = 25.0D;
+
+    // three recordings in two directories, at two rates, one of them stereo; returns the truth per file
+    private Map<String, List<String[]>> archive() throws IOException {
+        Files.createDirectories(tmp.resolve("a"));
+        Files.createDirectories(tmp.resolve("b"));
+        Map<String, List<String[]>> truth = new HashMap<>();
+        Object[][] recordings = {{"a/one.wav", 8000, 1}, {"a/two.wav", 8000, 2}, {"b/three.wav", 44100, 1}};
+        for (int r = 0; r < recordings.length; r++) {
+            Path wav = tmp.resolve((String) recordings[r][0]), csv = tmp.resolve(recordings[r][0] + ".csv");
+            new DTMFCorpusGenerator((Integer) recordings[r][1], (Integer) recordings[r][2])
+                    .withToneDuration(80, 150).withGapDuration(120, 200).withNoise(-50).withSeed(r)
+                    .generate(wav, csv, 5);
+            List<String[]> tones = new ArrayList<>();
+            for (String line : Files.readAllLines(csv).subList(1, Files.readAllLines(csv).size()))
+                tones.add(line.split(","));
+            truth.put(wav.toString(), tones);
+            Files.delete(csv);
+        }
+        return truth;
+    }
+
+    private ArchiveScanner.Summary scan(ArchiveScanner.Format format, StringWriter out, String... inputs)
+            throws IOException, InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Stream<Path> files = Stream.empty();
+            for (String input : inputs) files = Stream.concat(files, ArchiveScanner.expand(input));
+            try (Stream<Path> listed = files) {
+                // a small budget, so that readers wait for the analysis
+                return new ArchiveScanner(pool, powerThreshold, format).withReaders(2).withPrefetch(50000)
+                        .scan(listed.iterator(), out);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Presses of every file and channel match the ground truth")
+    void csvMatchesTruth() throws IOException, InterruptedException {
+        Map<String, List<String[]>> truth = archive();
+        StringWriter out = new StringWriter();
+        ArchiveScanner.Summary summary = scan(ArchiveScanner.Format.CSV, out, tmp.toString());
+
+        assertEquals(3, summary.getFiles());
+        assertEquals(0, summary.getFailed());
+        assertEquals(15, summary.getAudioSeconds(), 1e-6);
+        assertEquals(5 * 8000 + 5 * 8000 + 5 * 44100, summary.getFrames());
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(ArchiveScanner.CSV_HEADER, lines[0]);
+        assertEquals(summary.getPresses(), lines.length - 1);
+
+        // every press lies within a tone of its key; a tone may be missed, or split by a missed block
+        int tones = 0, found = 0;
+        Map<String, boolean[]> detected = new HashMap<>();
+        for (Map.Entry<String, List<String[]>> file : truth.entrySet()) {
+            tones += file.getValue().size();
+            detected.put(file.getKey(), new boolean[file.getValue().size()]);
+        }
+        for (String line : List.of(lines).subList(1, lines.length)) {
+            String[] fields = line.split(",");
+            List<String[]> expected = truth.get(fields[0]);
+            assertTrue(expected != null, line);
+            long onset = Long.parseLong(fields[3]), offset = Long.parseLong(fields[4]);
+            assertTrue(onset < offset, line);
+            int i = 0;
+            while (i < expected.size() && (!expected.get(i)[0].equals(fields[1])
+                    || Long.parseLong(expected.get(i)[3]) <= onset)) i++;
+            assertTrue(i < expected.size(), "press after the last tone: " + line);
+            String[] tone = expected.get(i);
+            assertTrue(offset > Long.parseLong(tone[2]), "press in a gap: " + line);
+            assertEquals(tone[1], fields[2], "wrong key: " + line);
+            if (!detected.get(fields[0])[i]) found++;
+            detected.get(fields[0])[i] = true;
+        }
+        assertTrue(found >= 0.9 * tones, found + " of " + tones + " tones detected");
+    }
+
+    @Test
+    @DisplayName("JSON lines carry the same presses as CSV records")
+    void jsonLines() throws IOException, InterruptedException {
+        archive();
+        StringWriter csv = new StringWriter(), json = new StringWriter();
+        scan(ArchiveScanner.Format.CSV, csv, tmp.toString());
+        ArchiveScanner.Summary summary = scan(ArchiveScanner.Format.JSONL, json, tmp.toString());
+
+        Pattern record = Pattern.compile("\\{\"file\":\"(.*)\",\"channel\":(\\d+),\"key\":\"(.)\","
+                + "\"onset_sample\":(\\d+),\"offset_sample\":(\\d+),\"sample_rate\":(\\d+),"
+                + "\"row_db\":(-?[\\d.]+),\"column_db\":(-?[\\d.]+)}");
+        List<String> fromJson = new ArrayList<>();
+        for (String line : json.toString().split("\n")) {
+            Matcher matcher = record.matcher(line);
+            assertTrue(matcher.matches(), line);
+            StringBuilder fields = new StringBuilder(matcher.group(1));
+            for (int g = 2; g <= 8; g++) fields.append(',').append(matcher.group(g));
+            fromJson.add(fields.toString());
+        }
+        List<String> fromCsv = List.of(csv.toString().split("\n")).subList(1, (int) summary.getPresses() + 1);
+        assertEquals(fromCsv.stream().sorted().collect(Collectors.toList()),
+                fromJson.stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Globs select files, unreadable files are counted and skipped")
+    void globsAndFailures() throws IOException, InterruptedException {
+        archive();
+        Files.write(tmp.resolve("a/broken.wav"), new byte[] {'R', 'I', 'F', 'F', 0, 0});
+
+        try (Stream<Path> files = ArchiveScanner.expand(tmp + "/a/*.wav")) {
+            assertEquals(3, files.count());
+        }
+        try (Stream<Path> files = ArchiveScanner.expand(tmp + "/*/t*.wav")) {
+            assertEquals(List.of(tmp.resolve("a/two.wav"), tmp.resolve("b/three.wav")),
+                    files.sorted().collect(Collectors.toList()));
+        }
+
+        ArchiveScanner.Summary summary = scan(ArchiveScanner.Format.CSV, new StringWriter(), tmp + "/a/*.wav");
+        assertEquals(2, summary.getFiles());
+        assertEquals(1, summary.getFailed());
+        assertTrue(summary.getPresses() > 0);
+        assertTrue(summary.getFilesPerSecond() > 0 && summary.getAudioHoursPerSecond() > 0, summary.toString());
+    }
+
+    @Test
+    @DisplayName("Presses are added to an index, which answers the same queries")
+    void index() throws IOException, InterruptedException {
+        archive();
+        Path path = tmp.resolve("presses.idx");
+        StringWriter out = new StringWriter();
+        ArchiveScanner.Summary summary;
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try (Stream<Path> files = ArchiveScanner.expand(tmp.toString());
+             DetectionIndexWriter writer = DetectionIndexWriter.create(path)) {
+            summary = new ArchiveScanner(pool, powerThreshold, ArchiveScanner.Format.CSV).withIndex(writer)
+                    .scan(files.iterator(), out);
+        } finally {
+            pool.shutdown();
+        }
+
+        try (DetectionIndex index = DetectionIndex.open(path)) {
+            assertEquals(3, index.getRecordings());
+            assertEquals(summary.getPresses(), index.getPresses());
+            List<String> records = new ArrayList<>();
+            for (int id = 0; id < index.getRecordings(); id++) {
+                for (DetectionIndex.Press press : index.getPresses(id))
+                    records.add(index.getName(id) + "," + press.getChannel() + "," + press.getKey() + ","
+                            + press.getOnset() + "," + press.getOffset());
+            }
+            List<String> expected = new ArrayList<>();
+            for (String line : out.toString().split("\n"))
+                if (!line.equals(ArchiveScanner.CSV_HEADER)) expected.add(String.join(",", List.of(line.split(",")).subList(0, 5)));
+            assertEquals(expected.stream().sorted().collect(Collectors.toList()),
+                    records.stream().sorted().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    @DisplayName("A second scan through the cache finds the same presses without analysis")
+    void cache() throws IOException, InterruptedException {
+        archive();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            DetectionCache cache = new DetectionCache(10).withDirectory(tmp.resolve("cache"));
+            ArchiveScanner scanner = new ArchiveScanner(pool, powerThreshold, ArchiveScanner.Format.CSV).withCache(cache);
+            List<List<String>> outputs = new ArrayList<>();
+            for (DetectionCache tier : new DetectionCache[] {cache, cache, new DetectionCache(10).withDirectory(tmp.resolve("cache"))}) {
+                StringWriter out = new StringWriter();
+                try (Stream<Path> files = ArchiveScanner.expand(tmp + "/*/*.wav")) {
+                    assertEquals(3, scanner.withCache(tier).scan(files.iterator(), out).getFiles());
+                }
+                outputs.add(List.of(out.toString().split("\n")).stream().sorted().collect(Collectors.toList()));
+            }
+            assertEquals(outputs.get(0), outputs.get(1));
+            assertEquals(outputs.get(0), outputs.get(2));
+            assertEquals(3, cache.getMisses());
+            assertEquals(3, cache.getMemoryHits());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Files larger than the prefetch budget are streamed, with the same presses")
+    void streamsLargeFiles() throws IOException, InterruptedException {
+        archive();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            List<List<String>> outputs = new ArrayList<>();
+            for (int prefetch : new int[] {ArchiveScanner.DEFAULT_PREFETCH, 5000, 1}) {
+                StringWriter out = new StringWriter();
+                try (Stream<Path> files = ArchiveScanner.expand(tmp.toString())) {
+                    ArchiveScanner.Summary summary = new ArchiveScanner(pool, powerThreshold, ArchiveScanner.Format.CSV)
+                            .withPrefetch(prefetch).scan(files.iterator(), out);
+                    assertEquals(3, summary.getFiles());
+                    assertEquals(5 * 8000 + 5 * 8000 + 5 * 44100, summary.getFrames());
+                }
+                outputs.add(List.of(out.toString().split("\n")).stream().sorted().collect(Collectors.toList()));
+            }
+            assertTrue(outputs.get(0).size() > 1);
+            assertEquals(outputs.get(0), outputs.get(1));
+            assertEquals(outputs.get(0), outputs.get(2));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Illegal settings are refused")
+    void illegalSettings() {
+        ArchiveScanner scanner = new ArchiveScanner(ForkJoinPool.commonPool(), powerThreshold, ArchiveScanner.Format.CSV);
+        assertThrows(IllegalArgumentException.class, () -> scanner.withReaders(0));
+        assertThrows(IllegalArgumentException.class, () -> scanner.withPrefetch(0));
+    }
+}
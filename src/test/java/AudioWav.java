@@ -21,6 +21,23 @@ public class AudioWav {
         return values;
     }
 
+    public float[] getFloatSamples() {
+        return samples.clone();
+    }
+
+    // test signals in the float form the detectors take
+    public static float[] toFloats(double[] samples) {
+        float[] result = new float[samples.length];
+        for (int i = 0; i < samples.length; i++) result[i] = (float) samples[i];
+        return result;
+    }
+
+    public static float[] tone(double sampleRate, double amplitude, char key, int samples) {
+        float[] result = new float[samples];
+        ToneSynthesizer.forKey(sampleRate, key, amplitude).generate(result, 0, samples);
+        return result;
+    }
+
     private float[] concatenate(float[] a, float[] b) {
         float[] c = new float[a.length + b.length];
         System.arraycopy(a, 0, c, 0, a.length);
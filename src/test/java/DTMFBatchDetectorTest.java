@@ -0,0 +1,86 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DTMFBatchDetectorTest {
+
+    private int binSize = 256;
+    private double powerThreshold = 25.0D;
+    private static final char[] KEYS = "123A456B789C*0#D".toCharArray();
+
+    // channel c carries key KEYS[c % 16], every 17th channel is silent
+    private static float[][] channels(float sampleRate, int count) {
+        float[][] blocks = new float[count][];
+        for (int c = 0; c < count; c++) {
+            if (c % 17 == 16) {
+                blocks[c] = new float[1024];
+                continue;
+            }
+            double[] f = DTMF.getToneMap().get(KEYS[c % KEYS.length]).getFrequencies();
+            blocks[c] = AudioWav.toFloats(DTMF.generateCompositeTone(sampleRate, 128, f[0], f[1]));
+        }
+        return blocks;
+    }
+
+    private void assertMatchesKeyFilter(DTMFGoertzel goertzel, float[][] blocks, int off, DTMFGoertzel.Detection[] detections) {
+        for (int c = 0; c < blocks.length; c++) {
+            ArrayList<DTMFGoertzel.PowerLevel> expected = goertzel.keyFilter(Arrays.copyOfRange(blocks[c], off, off + binSize));
+            assertEquals(expected.size(), detections[c].getHits());
+            if (expected.isEmpty()) continue;
+            assertEquals(expected.get(0).getDtmf(), detections[c].getDtmf());
+            assertEquals(expected.get(0).getRowPower(), detections[c].getRowPower());
+            assertEquals(expected.get(0).getColumnPower(), detections[c].getColumnPower());
+        }
+    }
+
+    @Test
+    @DisplayName("Per-channel blocks, split across a pool")
+    void batchPerChannel() {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, powerThreshold);
+        float[][] blocks = channels(8000, 200);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            DTMFBatchDetector batch = new DTMFBatchDetector(goertzel, blocks.length, pool, 8);
+            for (int off = 0; off + binSize <= blocks[0].length; off += binSize)
+                assertMatchesKeyFilter(goertzel, blocks, off, batch.detect(blocks, off, binSize));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Interleaved frames")
+    void batchInterleaved() {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, powerThreshold);
+        float[][] blocks = channels(8000, 40);
+        int frames = blocks[0].length;
+        float[] interleaved = new float[frames * blocks.length];
+        for (int i = 0; i < frames; i++)
+            for (int c = 0; c < blocks.length; c++)
+                interleaved[i * blocks.length + c] = blocks[c][i];
+
+        DTMFBatchDetector batch = new DTMFBatchDetector(goertzel, blocks.length);
+        for (int off = 0; off + binSize <= frames; off += binSize) {
+            DTMFGoertzel.Detection[] detections = batch.detectInterleaved(interleaved, off * blocks.length, binSize);
+            assertMatchesKeyFilter(goertzel, blocks, off, detections);
+            assertSame(detections[3], batch.getDetection(3));
+        }
+        assertEquals('A', batch.getDetection(3).getKey());
+        assertEquals('\0', batch.getDetection(16).getKey());
+    }
+
+    @Test
+    @DisplayName("Channel count is checked")
+    void batchChannelMismatch() {
+        DTMFBatchDetector batch = new DTMFBatchDetector(new DTMFGoertzel(8000, powerThreshold), 4);
+        assertThrows(IllegalArgumentException.class, () -> batch.detect(new float[3][binSize]));
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.detectInterleaved(new float[4 * binSize], 4, binSize));
+    }
+}
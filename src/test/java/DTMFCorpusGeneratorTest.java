@@ -0,0 +1,130 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DTMFCorpusGeneratorTest {
+
+    @TempDir
+    Path tmp;
+
+    private final int binSize = 205;
+
+    @Test
+    @DisplayName("Detected keys match the ground truth")
+    void detectionMatchesTruth() throws IOException {
+        Path wav = tmp.resolve("corpus.wav"), truth = tmp.resolve("corpus.csv");
+        DTMFCorpusGenerator generator = new DTMFCorpusGenerator(8000, 3)
+                .withToneDuration(80, 150).withGapDuration(120, 200)
+                .withTwist(3).withNoise(-50).withSeed(1);
+        long tones = generator.generate(wav, truth, 20);
+
+        List<String> lines = Files.readAllLines(truth);
+        assertEquals(DTMFCorpusGenerator.CSV_HEADER, lines.get(0));
+        assertEquals(tones, lines.size() - 1);
+        assertTrue(tones > 3 * 20 / 0.35, "tones: " + tones);
+
+        List<List<long[]>> expected = new ArrayList<>(); // per channel {key, onset, offset}
+        for (int c = 0; c < 3; c++) expected.add(new ArrayList<>());
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",");
+            long onset = Long.parseLong(fields[2]), offset = Long.parseLong(fields[3]);
+            assertTrue(offset - onset >= 640 && offset - onset <= 1200 || offset == 20 * 8000, line);
+            assertTrue(Math.abs(Double.parseDouble(fields[4])) <= 3, line);
+            expected.get(Integer.parseInt(fields[0])).add(new long[] {fields[1].charAt(0), onset, offset});
+        }
+
+        List<List<long[]>> actual = new ArrayList<>();
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, 25.0D);
+        StreamingDTMFGoertzel[] streaming = new StreamingDTMFGoertzel[3];
+        KeyTracker[] trackers = new KeyTracker[3];
+        for (int c = 0; c < 3; c++) {
+            List<long[]> events = new ArrayList<>();
+            actual.add(events);
+            KeyTracker tracker = trackers[c] = new KeyTracker(event -> {
+                if (event.getType() == KeyEvent.Type.DOWN) events.add(new long[] {event.getKey(), event.getSampleOffset()});
+            });
+            streaming[c] = new StreamingDTMFGoertzel(goertzel, binSize, (offset, detection) -> tracker.update(offset, binSize, detection));
+        }
+        try (WavDecoder decoder = WavDecoder.open(wav)) {
+            assertEquals(3, decoder.getFormat().getChannels());
+            assertEquals(20 * 8000, decoder.getFormat().getFrameCount());
+            decoder.scan(streaming);
+        }
+        for (KeyTracker tracker : trackers) tracker.finish();
+
+        // every press lies within a tone of its key; a tone may be missed, or split by a missed block
+        int found = 0;
+        for (int c = 0; c < 3; c++) {
+            List<long[]> tonesOfChannel = expected.get(c);
+            boolean[] detected = new boolean[tonesOfChannel.size()];
+            for (long[] press : actual.get(c)) {
+                int i = 0;
+                while (i < tonesOfChannel.size() && tonesOfChannel.get(i)[2] <= press[1]) i++;
+                assertTrue(i < tonesOfChannel.size(), "channel " + c + ": press after the last tone at " + press[1]);
+                long[] tone = tonesOfChannel.get(i);
+                assertTrue(press[1] + binSize > tone[1], "channel " + c + ": press in a gap at " + press[1]);
+                assertEquals(tone[0], press[0], "channel " + c + ": wrong key at " + press[1]);
+                if (!detected[i]) found++;
+                detected[i] = true;
+            }
+        }
+        assertTrue(found >= 0.9 * tones, found + " of " + tones + " tones detected");
+    }
+
+    @Test
+    @DisplayName("A corpus is determined by its seed")
+    void deterministic() throws IOException {
+        DTMFCorpusGenerator generator = new DTMFCorpusGenerator(16000, 2)
+                .withNoise(-30).withSpeech(-20).withKeys("159#").withSeed(42);
+        Path a = tmp.resolve("a.wav"), b = tmp.resolve("b.wav"), c = tmp.resolve("c.wav");
+        generator.generate(a, tmp.resolve("a.csv"), 3.3);
+        generator.generate(b, tmp.resolve("b.csv"), 3.3);
+        generator.withSeed(43).generate(c, tmp.resolve("c.csv"), 3.3);
+
+        assertArrayEquals(Files.readAllBytes(a), Files.readAllBytes(b));
+        assertEquals(Files.readAllLines(tmp.resolve("a.csv")), Files.readAllLines(tmp.resolve("b.csv")));
+        assertEquals(Files.size(a), Files.size(c));
+        assertTrue(!Arrays.equals(Files.readAllBytes(a), Files.readAllBytes(c)));
+        for (String line : Files.readAllLines(tmp.resolve("a.csv")).subList(1, 2))
+            assertTrue("159#".indexOf(line.split(",")[1].charAt(0)) >= 0, line);
+    }
+
+    @Test
+    @DisplayName("Noise and interference have their RMS levels")
+    void levels() throws IOException {
+        for (boolean speech : new boolean[] {false, true}) {
+            DTMFCorpusGenerator generator = new DTMFCorpusGenerator(8000, 1).withAmplitude(0)
+                    .withNoise(speech ? Double.NEGATIVE_INFINITY : -20).withSpeech(speech ? -20 : Double.NEGATIVE_INFINITY);
+            Path wav = tmp.resolve("levels.wav");
+            generator.generate(wav, tmp.resolve("levels.csv"), 30);
+            float[] samples = new float[30 * 8000];
+            try (WavDecoder decoder = WavDecoder.open(wav)) {
+                assertEquals(samples.length, decoder.read(samples, 0, samples.length));
+            }
+            double energy = 0;
+            for (float v : samples) energy += v * v;
+            assertEquals(-20, 10 * Math.log10(energy / samples.length), 0.5, speech ? "speech" : "noise");
+        }
+    }
+
+    @Test
+    @DisplayName("Illegal settings are refused")
+    void illegalSettings() {
+        DTMFCorpusGenerator generator = new DTMFCorpusGenerator(8000, 1);
+        assertThrows(IllegalArgumentException.class, () -> generator.withKeys("12E"));
+        assertThrows(IllegalArgumentException.class, () -> generator.withToneDuration(100, 50));
+        assertThrows(IllegalArgumentException.class, () -> new DTMFCorpusGenerator(8000, 0));
+    }
+}
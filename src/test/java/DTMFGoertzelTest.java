@@ -393,6 +393,92 @@ class DTMFGoertzelTest {
 
     }
 
+    @Test
+    @DisplayName("Fused kernel matches per-frequency Goertzel")
+    void fusedKernelMatchesReference() {
+        float sampleRate = 8000;
+        DTMFGoertzel goertzel = new DTMFGoertzel(sampleRate, Double.NEGATIVE_INFINITY); // report every key
+        AudioWav wav = new AudioWav("dtmf-1-2-#.wav");
+        double[] samples = wav.getSamples();
+
+        for (int i = 0; i + binSize <= samples.length; i = i + binSize) {
+            float[] bin = new float[binSize];
+            for (int j = 0; j < binSize; j++) bin[j] = (float) samples[i + j];
+            double[] rows = referenceGoertzel(bin, DTMF.ROW_FREQUENCIES, sampleRate);
+            double[] cols = referenceGoertzel(bin, DTMF.COL_FREQUENCIES, sampleRate);
+            for (DTMFGoertzel.PowerLevel level : goertzel.keyFilter(bin)) {
+                int[] placement = level.getDtmf().getPlacement();
+                assertEquals(rows[placement[0]], level.getRowPower());
+                assertEquals(cols[placement[1]], level.getColumnPower());
+            }
+        }
+    }
+
+    // one pass over the buffer per frequency, as in the original implementation
+    private static double[] referenceGoertzel(float[] buffer, Double[] frequencies, double sampleRate) {
+        double[] powers = new double[frequencies.length];
+        for (int j = 0; j < frequencies.length; j++) {
+            double cosine = 2 * Math.cos(2 * Math.PI * frequencies[j] / sampleRate);
+            double wnk = Math.exp(-2 * Math.PI * frequencies[j] / sampleRate);
+            double skn0 = 0, skn1 = 0, skn2;
+            for (float v : buffer) {
+                skn2 = skn1;
+                skn1 = skn0;
+                skn0 = cosine * skn1 - skn2 + v;
+            }
+            powers[j] = 20 * Math.log10(Math.abs(skn0 - wnk * skn1));
+        }
+        return powers;
+    }
+
+    @Test
+    @DisplayName("Detection holder agrees with keyFilter list")
+    void detectionMatchesList() {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, 25.0D);
+        float[] samples = new AudioWav("dtmf-8-1-#-normalized.wav").getFloatSamples();
+
+        DTMFGoertzel.Detection detection = new DTMFGoertzel.Detection();
+        for (int i = 0; i + binSize <= samples.length; i = i + binSize) {
+            ArrayList<DTMFGoertzel.PowerLevel> levels = goertzel.keyFilter(Arrays.copyOfRange(samples, i, i + binSize));
+            boolean detected = goertzel.keyFilter(samples, i, binSize, detection);
+            assertEquals(!levels.isEmpty(), detected);
+            assertEquals(levels.size(), detection.getHits());
+            if (detected) {
+                assertEquals(levels.get(0).getDtmf(), detection.getDtmf());
+                assertEquals(levels.get(0).getRowPower(), detection.getRowPower());
+                assertEquals(levels.get(0).getColumnPower(), detection.getColumnPower());
+            } else {
+                assertEquals('\0', detection.getKey());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Detection holder path allocates nothing")
+    void detectionAllocationFree() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, 25.0D);
+        float[] samples = AudioWav.toFloats(DTMF.generateCompositeTone(8000, 1024, 852D, 1336D));
+        DTMFGoertzel.Detection detection = new DTMFGoertzel.Detection();
+
+        int detected = 0;
+        for (int n = 0; n < 20_000; n++) // warm up, so the measurement sees compiled code
+            for (int i = 0; i + binSize <= samples.length; i = i + binSize)
+                if (goertzel.keyFilter(samples, i, binSize, detection)) detected++;
+
+        // the JIT, JFR or TLAB accounting may charge a few bytes to the thread, so bound the average
+        long calls = 0, before = threads.getCurrentThreadAllocatedBytes();
+        for (int n = 0; n < 50_000; n++)
+            for (int i = 0; i + binSize <= samples.length; i = i + binSize, calls++)
+                if (goertzel.keyFilter(samples, i, binSize, detection)) detected++;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(detected > 0);
+        assertTrue(allocated < calls, allocated + " bytes in " + calls + " calls");
+    }
+
     private void print(ArrayList<Character> keys) {
         //String s = Arrays.stream(freqs).mapToObj(d -> String.format("%6.2f", d)).collect(Collectors.joining(","));
         //System.out.println(Arrays.toString(keys.toArray()));
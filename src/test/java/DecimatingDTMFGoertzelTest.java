@@ -0,0 +1,134 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecimatingDTMFGoertzelTest {
+
+    private static final int BLOCKS = 24;
+
+    private double powerThreshold = 25.0D;
+
+    // records the detected key and the power levels of the given key's frequencies of each block
+    private static final class Recorder implements StreamingDTMFGoertzel.Listener {
+
+        final int row, col;
+        final List<Long> offsets = new ArrayList<>();
+        final StringBuilder keys = new StringBuilder();
+        double rowPeak = Double.NEGATIVE_INFINITY, colPeak = Double.NEGATIVE_INFINITY;
+
+        Recorder(char key) {
+            row = DTMF.getToneMap().get(key).getPlacement()[0];
+            col = DTMF.getToneMap().get(key).getPlacement()[1];
+        }
+
+        @Override
+        public void onBlock(long sampleOffset, DTMFGoertzel.Detection detection) {
+            offsets.add(sampleOffset);
+            keys.append(detection.getKey());
+            // the peaks over all blocks do not depend on the phase of the tone
+            rowPeak = Math.max(rowPeak, detection.getRowPower(row));
+            colPeak = Math.max(colPeak, detection.getColumnPower(col));
+        }
+
+        int hits(char key) {
+            return (int) keys.chars().filter(c -> c == key).count();
+        }
+
+        @Override
+        public String toString() {
+            return keys.toString().replace('\0', '-');
+        }
+    }
+
+    @Test
+    @DisplayName("Keys are detected at high sample rates, at the undecimated power levels")
+    void detectsKeys() {
+        for (double rate : new double[]{22050, 44100, 48000, 96000}) {
+            int blockSize = (int) Math.round(rate * 0.032);
+            // levels grow with the block size; the threshold of 256 sample blocks, scaled
+            double threshold = powerThreshold + 20 * Math.log10(blockSize / 256D);
+            int hits = 0, expectedHits = 0;
+            for (char key : "159D#*".toCharArray()) {
+                Recorder actual = new Recorder(key);
+                DecimatingDTMFGoertzel decimating = new DecimatingDTMFGoertzel(rate, threshold, blockSize, actual);
+                int size = decimating.getBlockSize();
+                assertTrue(Math.abs(size - blockSize) < decimating.getDecimator().getFactor());
+                assertEquals(decimating.getDecimator().getOutputRate(), decimating.getDetector().getSampleRate(), 1e-9);
+
+                float[] samples = AudioWav.tone(rate, 1.0D, key, BLOCKS * size);
+                for (int i = 0; i < samples.length; i += 441) decimating.push(samples, i, Math.min(441, samples.length - i));
+
+                assertEquals(BLOCKS, actual.keys.length(), rate + " Hz, key " + key);
+                for (int b = 0; b < actual.keys.length(); b++)
+                    assertEquals(b * (long) size, actual.offsets.get(b).longValue());
+
+                // the plain detector, analyzing the undecimated blocks
+                Recorder expected = new Recorder(key);
+                new StreamingDTMFGoertzel(new DTMFGoertzel(GoertzelPlan.dtmf(rate), threshold), size, expected)
+                        .push(samples, 0, samples.length);
+                assertEquals(expected.rowPeak, actual.rowPeak, 3, rate + " Hz, key " + key);
+                assertEquals(expected.colPeak, actual.colPeak, 3, rate + " Hz, key " + key);
+                hits += actual.hits(key);
+                expectedHits += expected.hits(key);
+            }
+            // the power metric depends on the phase of the tone in each block, which decimation
+            // changes, so only the overall recall is compared
+            assertTrue(hits >= 0.75 * expectedHits, rate + " Hz: " + hits + " against " + expectedHits + " blocks");
+        }
+    }
+
+    @Test
+    @DisplayName("Below a factor of 3 the input bypasses the decimator")
+    void bypass() {
+        for (double rate : new double[]{8000, 16000, 22050}) {
+            Recorder actual = new Recorder('5');
+            DecimatingDTMFGoertzel decimating = new DecimatingDTMFGoertzel(rate, powerThreshold, 512, actual);
+            assertFalse(decimating.isDecimating(), rate + " Hz");
+            assertEquals(1, decimating.getDecimator().getFactor());
+            assertEquals(rate, decimating.getDetector().getSampleRate(), 1e-9);
+            assertEquals(512, decimating.getBlockSize());
+
+            // exactly what the plain detector reports
+            float[] samples = AudioWav.tone(rate, 1.0D, '5', BLOCKS * 512);
+            decimating.push(samples);
+            Recorder expected = new Recorder('5');
+            new StreamingDTMFGoertzel(new DTMFGoertzel(GoertzelPlan.dtmf(rate), powerThreshold), 512, expected)
+                    .push(samples, 0, samples.length);
+            assertEquals(expected.toString(), actual.toString());
+            assertEquals(expected.offsets, actual.offsets);
+            assertEquals(expected.rowPeak, actual.rowPeak);
+            assertEquals(expected.colPeak, actual.colPeak);
+        }
+        for (double rate : new double[]{24000, 44100, 96000}) {
+            DecimatingDTMFGoertzel decimating = new DecimatingDTMFGoertzel(rate, powerThreshold, 1024, (o, d) -> { });
+            assertTrue(decimating.isDecimating(), rate + " Hz");
+            assertEquals(PolyphaseDecimator.dtmfFactor(rate), decimating.getDecimator().getFactor());
+        }
+    }
+
+    @Test
+    @DisplayName("Silence detects nothing")
+    void silence() {
+        List<DTMFGoertzel.Detection> detections = new ArrayList<>();
+        DecimatingDTMFGoertzel decimating = new DecimatingDTMFGoertzel(44100, powerThreshold, 1411,
+                (offset, detection) -> detections.add(detection));
+        decimating.push(new float[44100]);
+        assertEquals(44100 / decimating.getBlockSize(), detections.size());
+        for (DTMFGoertzel.Detection detection : detections) assertEquals('\0', detection.getKey());
+    }
+
+    @Test
+    @DisplayName("Illegal settings are rejected")
+    void illegalSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new DecimatingDTMFGoertzel(44100, 25, 0, (o, d) -> { }));
+        DecimatingDTMFGoertzel decimating = new DecimatingDTMFGoertzel(44100, 25, 1411, (o, d) -> { });
+        assertThrows(IndexOutOfBoundsException.class, () -> decimating.push(new float[10], 8, 3));
+    }
+}
@@ -0,0 +1,150 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DetectionCacheTest {
+
+    @TempDir
+    Path tmp;
+
+    private static float[][] noise(int channels, int length, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        float[][] samples = new float[channels][length];
+        for (float[] channel : samples)
+            for (int i = 0; i < length; i++) channel[i] = (float) (random.nextDouble() - 0.5);
+        return samples;
+    }
+
+    private static List<DetectionIndex.Press> presses(char... keys) {
+        List<DetectionIndex.Press> presses = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++)
+            presses.add(new DetectionIndex.Press(i % 2, DTMF.getToneMap().get(keys[i]), 1000L * i, 1000L * i + 400,
+                    30 + i, 28.5 - i));
+        return presses;
+    }
+
+    @Test
+    @DisplayName("The hash depends on every bit of every sample, and only on the samples")
+    void hash() {
+        float[] samples = noise(1, 1001, 1)[0];
+        long hash = DetectionCache.hash(samples, 0, samples.length, 0);
+        assertEquals(hash, DetectionCache.hash(samples.clone(), 0, samples.length, 0));
+        for (int i : new int[] {0, 7, 8, 500, 999, 1000}) {
+            for (int bit = 0; bit < 32; bit += 5) {
+                float[] flipped = samples.clone();
+                flipped[i] = Float.intBitsToFloat(Float.floatToRawIntBits(flipped[i]) ^ 1 << bit);
+                assertNotEquals(hash, DetectionCache.hash(flipped, 0, flipped.length, 0), i + "," + bit);
+            }
+        }
+        // offset, length and seed matter; zeros of different lengths differ
+        float[] shifted = new float[samples.length + 3];
+        System.arraycopy(samples, 0, shifted, 3, samples.length);
+        assertEquals(hash, DetectionCache.hash(shifted, 3, samples.length, 0));
+        assertNotEquals(hash, DetectionCache.hash(samples, 0, samples.length - 1, 0));
+        assertNotEquals(hash, DetectionCache.hash(samples, 0, samples.length, 1));
+        assertNotEquals(DetectionCache.hash(new float[16], 0, 16, 0), DetectionCache.hash(new float[17], 0, 17, 0));
+        assertNotEquals(DetectionCache.hash(new float[3], 0, 3, 0), DetectionCache.hash(new float[4], 0, 4, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> DetectionCache.hash(samples, 1000, 2, 0));
+    }
+
+    @Test
+    @DisplayName("Keys differ by content, shape and parameters")
+    void keys() {
+        float[][] stereo = noise(2, 4000, 2);
+        DetectionCache.Key key = DetectionCache.key(stereo, 4000, 8000, 25, 256);
+        assertEquals(key, DetectionCache.key(new float[][] {stereo[0].clone(), stereo[1].clone()}, 4000, 8000, 25, 256));
+        assertNotEquals(key, DetectionCache.key(new float[][] {stereo[1], stereo[0]}, 4000, 8000, 25, 256));
+        assertNotEquals(key, DetectionCache.key(stereo, 3999, 8000, 25, 256));
+        assertNotEquals(key, DetectionCache.key(stereo, 4000, 16000, 25, 256));
+        assertNotEquals(key, DetectionCache.key(stereo, 4000, 8000, 26, 256));
+        assertNotEquals(key, DetectionCache.key(stereo, 4000, 8000, 25, 205));
+        assertNotEquals(key, DetectionCache.key(new float[][] {stereo[0]}, 4000, 8000, 25, 256));
+    }
+
+    @Test
+    @DisplayName("The memory tier evicts the least recently used result")
+    void lru() throws IOException {
+        DetectionCache cache = new DetectionCache(2);
+        assertTrue(Double.isNaN(cache.getHitRatio()));
+        DetectionCache.Key a = DetectionCache.key(noise(1, 100, 1), 100, 8000, 25, 256),
+                b = DetectionCache.key(noise(1, 100, 2), 100, 8000, 25, 256),
+                c = DetectionCache.key(noise(1, 100, 3), 100, 8000, 25, 256);
+        assertNull(cache.get(a));
+        cache.put(a, presses('1'));
+        cache.put(b, presses('2', '3'));
+        assertEquals(presses('1'), cache.get(a));       // a is now more recent than b
+        cache.put(c, List.of());
+        assertNull(cache.get(b));
+        assertEquals(presses('1'), cache.get(a));
+        assertEquals(List.of(), cache.get(c));
+
+        assertEquals(2, cache.getSize());
+        assertEquals(3, cache.getMemoryHits());
+        assertEquals(0, cache.getDiskHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(0.6, cache.getHitRatio(), 1e-12);
+        assertEquals(0.6, cache.getMemoryHitRatio(), 1e-12);
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(3, cache.getEvictions());
+        assertThrows(IllegalArgumentException.class, () -> new DetectionCache(0));
+    }
+
+    @Test
+    @DisplayName("The disk tier outlives the cache, and ignores files which do not match")
+    void disk() throws IOException {
+        Path directory = tmp.resolve("cache");
+        DetectionCache.Key a = DetectionCache.key(noise(2, 1000, 1), 1000, 44100, 39.8, 1411),
+                b = DetectionCache.key(noise(1, 1000, 2), 1000, 8000, 25, 256);
+        List<DetectionIndex.Press> presses = presses('1', '#', 'D', '0');
+        DetectionCache first = new DetectionCache(10).withDirectory(directory);
+        first.put(a, presses);
+        first.put(b, List.of());
+
+        // a new process: misses memory, hits disk, then memory
+        DetectionCache second = new DetectionCache(10).withDirectory(directory);
+        assertEquals(presses, second.get(a));
+        assertEquals(presses, second.get(a));
+        assertEquals(List.of(), second.get(b));
+        assertNull(second.get(DetectionCache.key(noise(1, 1000, 2), 1000, 8000, 24, 256)));
+        assertEquals(1, second.getMemoryHits());
+        assertEquals(2, second.getDiskHits());
+        assertEquals(1, second.getMisses());
+        assertEquals(0.75, second.getHitRatio(), 1e-12);
+        assertEquals(0.25, second.getMemoryHitRatio(), 1e-12);
+
+        // truncated and foreign files count as misses
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        assertEquals(2, files.size());
+        for (Path file : files) {
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        }
+        DetectionCache third = new DetectionCache(10).withDirectory(directory);
+        assertNull(third.get(a));
+        assertNull(third.get(b));
+        for (Path file : files) Files.write(file, new byte[100]);
+        assertNull(third.get(a));
+        assertEquals(3, third.getMisses());
+    }
+}
@@ -0,0 +1,136 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DetectionIndexTest {
+
+    @TempDir
+    Path tmp;
+
+    private static final String KEYS = "123A456B789C*0#D";
+
+    // random presses on up to three channels, in no particular order
+    private static List<DetectionIndex.Press> presses(SplittableRandom random) {
+        List<DetectionIndex.Press> presses = new ArrayList<>();
+        for (int i = random.nextInt(12); i > 0; i--) {
+            long onset = random.nextLong(1_000_000);
+            presses.add(new DetectionIndex.Press(random.nextInt(3), DTMF.getToneMap().get(KEYS.charAt(random.nextInt(16))),
+                    onset, onset + random.nextInt(2000), 20 + random.nextDouble() * 30, 20 + random.nextDouble() * 30));
+        }
+        return presses;
+    }
+
+    private static List<DetectionIndex.Press> sorted(List<DetectionIndex.Press> presses) {
+        List<DetectionIndex.Press> sorted = new ArrayList<>(presses);
+        sorted.sort(Comparator.comparingInt(DetectionIndex.Press::getChannel).thenComparingLong(DetectionIndex.Press::getOnset));
+        return sorted;
+    }
+
+    // brute force: whether consecutive presses of a channel spell the keys
+    private static boolean contains(List<DetectionIndex.Press> sorted, String keys) {
+        for (int start = 0; start + keys.length() <= sorted.size(); start++) {
+            int i = 0;
+            while (i < keys.length() && sorted.get(start + i).getKey() == keys.charAt(i)
+                    && sorted.get(start + i).getChannel() == sorted.get(start).getChannel()) i++;
+            if (i == keys.length()) return true;
+        }
+        return false;
+    }
+
+    @Test
+    @DisplayName("Names, presses and queries survive the round trip")
+    void roundTrip() throws IOException {
+        SplittableRandom random = new SplittableRandom(7);
+        List<String> names = new ArrayList<>();
+        List<List<DetectionIndex.Press>> recordings = new ArrayList<>();
+        Path path = tmp.resolve("presses.idx");
+        try (DetectionIndexWriter writer = DetectionIndexWriter.create(path)) {
+            for (int id = 0; id < 5000; id++) {
+                // names of odd lengths, one longer than the writer's buffer
+                String name = id == 1234 ? "x".repeat(100_000) : "rec/" + id + "-\u00e4".repeat(id % 5) + ".wav";
+                List<DetectionIndex.Press> presses = presses(random);
+                assertEquals(id, writer.add(name, presses));
+                names.add(name);
+                recordings.add(sorted(presses));
+            }
+        }
+
+        try (DetectionIndex index = DetectionIndex.open(path)) {
+            assertEquals(5000, index.getRecordings());
+            assertEquals(recordings.stream().mapToLong(List::size).sum(), index.getPresses());
+            for (int id = 0; id < 5000; id++) {
+                assertEquals(names.get(id), index.getName(id));
+                assertEquals(recordings.get(id), index.getPresses(id));
+            }
+            for (char key : KEYS.toCharArray()) {
+                List<Integer> expected = new ArrayList<>();
+                for (int id = 0; id < 5000; id++)
+                    if (recordings.get(id).stream().anyMatch(p -> p.getKey() == key)) expected.add(id);
+                assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), index.withKey(key));
+            }
+            for (String keys : new String[] {"5", "12", "12#", "#*", "D0D", "0000"}) {
+                List<Integer> expected = new ArrayList<>();
+                for (int id = 0; id < 5000; id++) if (contains(recordings.get(id), keys)) expected.add(id);
+                assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), index.withSequence(keys), keys);
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> index.getName(5000));
+            assertThrows(IllegalArgumentException.class, () -> index.withKey('E'));
+            assertThrows(IllegalArgumentException.class, () -> index.withSequence(""));
+        }
+    }
+
+    @Test
+    @DisplayName("Sequences do not run across channels or gaps")
+    void sequences() throws IOException {
+        DTMF one = DTMF.getToneMap().get('1'), two = DTMF.getToneMap().get('2');
+        Path path = tmp.resolve("sequences.idx");
+        try (DetectionIndexWriter writer = DetectionIndexWriter.create(path)) {
+            writer.add("channels", List.of(new DetectionIndex.Press(0, one, 0, 100, 30, 30),
+                    new DetectionIndex.Press(1, two, 200, 300, 30, 30)));
+            writer.add("interrupted", List.of(new DetectionIndex.Press(0, one, 0, 100, 30, 30),
+                    new DetectionIndex.Press(0, one, 200, 300, 30, 30), new DetectionIndex.Press(0, two, 700, 800, 30, 30)));
+            writer.add("reversed", List.of(new DetectionIndex.Press(0, two, 500, 600, 30, 30),
+                    new DetectionIndex.Press(0, one, 0, 100, 30, 30)));
+            writer.add("empty", List.of());
+        }
+        try (DetectionIndex index = DetectionIndex.open(path)) {
+            assertArrayEquals(new int[] {1, 2}, index.withSequence("12"));
+            assertArrayEquals(new int[] {1}, index.withSequence("112"));
+            assertArrayEquals(new int[] {}, index.withSequence("21"));
+            assertArrayEquals(new int[] {0, 1, 2}, index.withKey('2'));
+            assertEquals(List.of(), index.getPresses(3));
+        }
+    }
+
+    @Test
+    @DisplayName("Unfinished and foreign files are rejected")
+    void rejected() throws IOException {
+        Path unfinished = tmp.resolve("unfinished.idx");
+        DetectionIndexWriter writer = DetectionIndexWriter.create(unfinished);
+        writer.add("a", List.of());
+        assertThrows(IOException.class, () -> DetectionIndex.open(unfinished));
+        writer.close();
+        assertThrows(IOException.class, () -> writer.add("b", List.of()));
+        try (DetectionIndex index = DetectionIndex.open(unfinished)) {
+            assertEquals(1, index.getRecordings());
+        }
+
+        Path foreign = tmp.resolve("foreign.idx");
+        Files.write(foreign, new byte[100]);
+        assertThrows(IOException.class, () -> DetectionIndex.open(foreign));
+        Files.write(foreign, new byte[10]);
+        assertThrows(IOException.class, () -> DetectionIndex.open(foreign));
+    }
+}
@@ -0,0 +1,90 @@
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DetectorEventsTest {
+
+    @TempDir
+    Path tmp;
+
+    private int binSize = 256;
+    private double powerThreshold = 25.0D;
+
+    private static List<RecordedEvent> events(List<RecordedEvent> all, String name) {
+        return all.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    // analyzes a loud '8', silence, and a '#' just below the threshold
+    private void analyze(DTMFGoertzel goertzel) {
+        DTMFGoertzel.Detection detection = new DTMFGoertzel.Detection();
+        assertTrue(goertzel.keyFilter(AudioWav.tone(8000, 1.0D, '8', binSize), 0, binSize, detection));
+        assertTrue(goertzel.keyFilter(new float[binSize]).isEmpty());
+        assertEquals(false, goertzel.keyFilter(AudioWav.tone(8000, 0.5D, '#', binSize), 0, binSize, detection));
+    }
+
+    @Test
+    @DisplayName("Blocks, keys and near misses are recorded")
+    void recorded() throws IOException {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, powerThreshold);
+        Path file = tmp.resolve("detector.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("goertzel.Block").withoutThreshold();
+            recording.enable("goertzel.KeyDetected");
+            recording.enable("goertzel.NearMiss");
+            recording.start();
+            analyze(goertzel);
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> all = RecordingFile.readAllEvents(file);
+
+        List<RecordedEvent> blocks = events(all, "goertzel.Block");
+        assertEquals(3, blocks.size());
+        assertEquals(binSize, blocks.get(0).getInt("samples"));
+        assertEquals(8000.0D, blocks.get(0).getDouble("sampleRate"));
+        assertEquals('8', blocks.get(0).getChar("key"));
+        assertEquals('\0', blocks.get(1).getChar("key"));
+
+        List<RecordedEvent> keys = events(all, "goertzel.KeyDetected");
+        assertEquals(1, keys.size());
+        assertEquals('8', keys.get(0).getChar("key"));
+        assertTrue(keys.get(0).getDouble("rowPower") > powerThreshold);
+        assertTrue(keys.get(0).getDouble("columnPower") > powerThreshold);
+
+        List<RecordedEvent> misses = events(all, "goertzel.NearMiss");
+        assertEquals(1, misses.size());
+        assertEquals('#', misses.get(0).getChar("key"));
+        assertEquals(powerThreshold, misses.get(0).getDouble("powerThreshold"));
+        assertTrue(misses.get(0).getDouble("rowPower") > powerThreshold - DetectorEvents.NEAR_MISS_DB);
+    }
+
+    @Test
+    @DisplayName("Disabled events are not recorded")
+    void disabled() throws IOException {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, powerThreshold);
+        Path file = tmp.resolve("disabled.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("goertzel.KeyDetected");
+            recording.disable("goertzel.Block");
+            recording.start();
+            analyze(goertzel);
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> all = RecordingFile.readAllEvents(file);
+        assertEquals(0, events(all, "goertzel.Block").size());
+        assertEquals(0, events(all, "goertzel.NearMiss").size());
+        assertEquals(1, events(all, "goertzel.KeyDetected").size());
+    }
+}
@@ -0,0 +1,115 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DetectorMetricsTest {
+
+    private int binSize = 256;
+    private double powerThreshold = 25.0D;
+
+    @Test
+    @DisplayName("Buckets are contiguous and resolve values to 1/16")
+    void buckets() {
+        assertEquals(0, DetectorMetrics.bucket(-5));
+        for (long v = 0; v < 1 << 20; v++) {
+            int b = DetectorMetrics.bucket(v);
+            assertTrue(v <= DetectorMetrics.highestValue(b), "value " + v);
+            assertTrue(b == 0 || v > DetectorMetrics.highestValue(b - 1), "value " + v);
+        }
+        for (long v = 32; v > 0 && v < 1L << 41; v = v * 3 + 1) {
+            long high = DetectorMetrics.highestValue(DetectorMetrics.bucket(v));
+            assertTrue(high - v <= v / DetectorMetrics.SUB_BUCKETS, "value " + v);
+        }
+        assertEquals(DetectorMetrics.BUCKETS - 1, DetectorMetrics.bucket(Long.MAX_VALUE));
+        assertEquals(DetectorMetrics.BUCKETS - 1, DetectorMetrics.bucket((1L << 41) - 1));
+    }
+
+    @Test
+    @DisplayName("Percentiles of recorded block times")
+    void percentiles() {
+        DetectorMetrics metrics = new DetectorMetrics();
+        for (int i = 1; i <= 1000; i++) metrics.record(100, i * 1000L, null);
+        DetectorMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(1000, snapshot.getBlocks());
+        assertEquals(100000, snapshot.getSamples());
+        assertEquals(500500.0D, snapshot.getMeanNanos());
+        assertEquals(500000, snapshot.getP50Nanos(), 500000 / 16.0);
+        assertEquals(990000, snapshot.getP99Nanos(), 990000 / 16.0);
+        assertEquals(999000, snapshot.getP999Nanos(), 999000 / 16.0);
+        assertTrue(snapshot.getP50Nanos() >= 500000);
+        assertEquals(0, new DetectorMetrics().snapshot().getP99Nanos());
+    }
+
+    @Test
+    @DisplayName("Blocks, samples and detections per key are counted")
+    void keyFilterCounts() {
+        DetectorMetrics metrics = new DetectorMetrics();
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, powerThreshold).withMetrics(metrics);
+        DTMFGoertzel.Detection detection = new DTMFGoertzel.Detection();
+        assertNull(new DTMFGoertzel(8000, powerThreshold).getMetrics());
+
+        float[] eight = AudioWav.tone(8000, 1.0D, '8', binSize), hash = AudioWav.tone(8000, 1.0D, '#', binSize);
+        for (int i = 0; i < 3; i++) assertTrue(goertzel.keyFilter(eight, 0, binSize, detection));
+        assertTrue(goertzel.keyFilter(hash, 0, binSize, detection));
+        goertzel.keyFilter(new float[binSize], 0, binSize, detection);
+        assertEquals(1, goertzel.keyFilter(hash).size());
+
+        DetectorMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(6, snapshot.getBlocks());
+        assertEquals(6 * binSize, snapshot.getSamples());
+        assertEquals(3, snapshot.getDetections('8'));
+        assertEquals(2, snapshot.getDetections('#'));
+        assertEquals(5, snapshot.getDetections());
+        assertEquals(0, snapshot.getSkipped());
+        assertTrue(snapshot.getBusyNanos() > 0);
+        assertTrue(snapshot.getSamplesPerSecond() > 0);
+        assertTrue(snapshot.getBusySamplesPerSecond() >= snapshot.getSamplesPerSecond());
+
+        Map<Character, Long> perKey = snapshot.getDetectionsPerKey();
+        assertEquals(16, perKey.size());
+        assertEquals("123A456B789C*0#D", perKey.keySet().stream().map(String::valueOf).reduce("", String::concat));
+        assertEquals(3L, perKey.get('8').longValue());
+    }
+
+    @Test
+    @DisplayName("Gate skips, streaming and batch blocks are recorded")
+    void otherPaths() {
+        DetectorMetrics metrics = new DetectorMetrics();
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, powerThreshold).withEnergyGate(0).withMetrics(metrics);
+        assertTrue(goertzel.getEnergyGate() != null);
+        DTMFGoertzel.Detection detection = new DTMFGoertzel.Detection();
+
+        goertzel.keyFilter(new float[binSize], 0, binSize, detection);
+        assertEquals(1, metrics.snapshot().getSkipped());
+
+        int[] detected = new int[1];
+        StreamingDTMFGoertzel streaming = new StreamingDTMFGoertzel(goertzel, binSize, (offset, d) -> {
+            if (d.getKey() == '7') detected[0]++;
+        });
+        float[] seven = AudioWav.tone(8000, 1.0D, '7', 10 * binSize);
+        for (int i = 0; i < seven.length; i += 100) streaming.push(seven, i, Math.min(100, seven.length - i));
+        DetectorMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(11, snapshot.getBlocks());
+        assertTrue(detected[0] > 0);
+        assertEquals(detected[0], snapshot.getDetections('7'));
+
+        float[][] blocks = {AudioWav.tone(8000, 1.0D, '1', binSize), new float[binSize],
+                AudioWav.tone(8000, 1.0D, '2', binSize), AudioWav.tone(8000, 1.0D, '3', binSize),
+                AudioWav.tone(8000, 1.0D, '4', binSize)};
+        DTMFGoertzel.Detection[] detections = new DTMFBatchDetector(goertzel, blocks.length).detect(blocks);
+        snapshot = metrics.snapshot();
+        assertEquals(16, snapshot.getBlocks());
+        assertEquals(16 * binSize, snapshot.getSamples());
+        assertEquals(2, snapshot.getSkipped());
+        for (int c : new int[] {0, 2, 3, 4}) {
+            char key = "1?234".charAt(c);
+            assertEquals(detections[c].getKey() == key ? 1 : 0, snapshot.getDetections(key), "key " + key);
+        }
+        assertTrue(snapshot.toString().startsWith("DetectorMetrics{blocks=16,"));
+    }
+}
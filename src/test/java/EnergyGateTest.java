@@ -0,0 +1,123 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EnergyGateTest {
+
+    private int binSize = 256;
+    private double powerThreshold = 25.0D;
+
+    @Test
+    @DisplayName("Energy bounds the power of every resonator")
+    void energyBoundsPower() {
+        Random random = new Random(42);
+        for (float sampleRate : new float[] {8000, 11025, 44100}) {
+            GoertzelPlan plan = GoertzelPlan.dtmf(sampleRate);
+            for (int trial = 0; trial < 50; trial++) {
+                int len = 1 + random.nextInt(1024);
+                float[] buffer = new float[len];
+                if (trial % 2 == 0) {
+                    for (int i = 0; i < len; i++) buffer[i] = (float) random.nextGaussian() * 0.1F;
+                } else {
+                    double frequency = plan.getFrequency(random.nextInt(plan.size()));
+                    for (int i = 0; i < len; i++) buffer[i] = (float) Math.sin(2 * Math.PI * frequency * i / sampleRate);
+                }
+                double energy = 0;
+                for (float v : buffer) energy += v * v;
+
+                double[] powers = plan.powers(buffer);
+                for (int j = 0; j < plan.size(); j++) {
+                    double bound = 10 * Math.log10(energy * len * plan.weightBound(j) * plan.weightBound(j));
+                    assertTrue(powers[j] <= bound + 1e-6, "resonator " + j + ": " + powers[j] + " > " + bound);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Silent blocks skip the resonators")
+    void silenceIsSkipped() {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, powerThreshold).withEnergyGate(0);
+        DTMFGoertzel.Detection detection = new DTMFGoertzel.Detection();
+
+        float[] silence = new float[8000];
+        for (int i = 0; i + binSize <= silence.length; i += binSize)
+            assertFalse(goertzel.keyFilter(silence, i, binSize, detection));
+        assertTrue(goertzel.keyFilter(new double[binSize]).isEmpty());
+
+        EnergyGate gate = goertzel.getEnergyGate();
+        assertEquals(0, gate.getPassed());
+        assertEquals(8000 / binSize + 1, gate.getSkipped());
+        assertEquals(1.0D, gate.getSkipRatio());
+        assertEquals(Double.NEGATIVE_INFINITY, detection.getRowPower(0));
+        assertEquals(Double.NEGATIVE_INFINITY, detection.getColumnPower(3));
+        assertNull(new DTMFGoertzel(8000, powerThreshold).getEnergyGate());
+    }
+
+    @Test
+    @DisplayName("A 0 dB margin never changes a result")
+    void zeroMarginIsLossless() {
+        for (String name : new String[] {"dtmf-1-2-#.wav", "dtmf-8-1-#.wav", "dtmf-8000-16-mono-key-1-8000samples.wav"}) {
+            for (double threshold : new double[] {10.0D, 25.0D, 37.0D}) {
+                DTMFGoertzel plain = new DTMFGoertzel(8000, threshold);
+                DTMFGoertzel gated = plain.withEnergyGate(0);
+                float[] samples = new AudioWav(name).getFloatSamples();
+                DTMFGoertzel.Detection expected = new DTMFGoertzel.Detection(), actual = new DTMFGoertzel.Detection();
+                for (int i = 0; i + binSize <= samples.length; i += binSize) {
+                    assertEquals(plain.keyFilter(samples, i, binSize, expected), gated.keyFilter(samples, i, binSize, actual));
+                    assertEquals(expected.getDtmf(), actual.getDtmf());
+                    assertEquals(expected.getRowPower(), actual.getRowPower());
+                    assertEquals(expected.getColumnPower(), actual.getColumnPower());
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A larger margin skips more blocks, tones still pass")
+    void marginSkipsMore() {
+        float sampleRate = 8000;
+        float[] noise = new float[binSize];
+        Random random = new Random(7);
+        for (int i = 0; i < noise.length; i++) noise[i] = (float) random.nextGaussian() * 0.1F;
+        float[] tone = AudioWav.toFloats(DTMF.generateCompositeTone(sampleRate, binSize, 852D, 1336D));
+
+        DTMFGoertzel plain = new DTMFGoertzel(sampleRate, powerThreshold);
+        DTMFGoertzel.Detection detection = new DTMFGoertzel.Detection();
+        DTMFGoertzel lossless = plain.withEnergyGate(0), aggressive = plain.withEnergyGate(20);
+        lossless.keyFilter(noise, 0, binSize, detection);
+        aggressive.keyFilter(noise, 0, binSize, detection);
+        assertEquals(1, lossless.getEnergyGate().getPassed());
+        assertEquals(1, aggressive.getEnergyGate().getSkipped());
+
+        assertTrue(aggressive.keyFilter(tone, 0, binSize, detection));
+        assertEquals('8', detection.getKey());
+    }
+
+    @Test
+    @DisplayName("G.711 and batch paths are gated")
+    void otherPathsAreGated() {
+        float sampleRate = 8000;
+        DTMFGoertzel goertzel = new DTMFGoertzel(sampleRate, powerThreshold).withEnergyGate(0);
+        DTMFGoertzel.Detection detection = new DTMFGoertzel.Detection();
+
+        byte[] silence = new byte[binSize];
+        Arrays.fill(silence, G711.MU_LAW.encode((short) 0));
+        assertFalse(goertzel.keyFilter(silence, 0, binSize, G711.MU_LAW, detection));
+        assertEquals(1, goertzel.getEnergyGate().getSkipped());
+
+        float[][] blocks = {new float[binSize], AudioWav.toFloats(DTMF.generateCompositeTone(sampleRate, binSize, 941D, 1477D))};
+        DTMFGoertzel.Detection[] detections = new DTMFBatchDetector(goertzel, blocks.length).detect(blocks);
+        assertFalse(detections[0].isDetected());
+        assertEquals('#', detections[1].getKey());
+        assertEquals(2, goertzel.getEnergyGate().getSkipped());
+        assertEquals(1, goertzel.getEnergyGate().getPassed());
+    }
+}
@@ -0,0 +1,109 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ShortBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FixedPointDTMFGoertzelTest {
+
+    private int binSize = 256;
+    private double powerThreshold = 25.0D;
+
+    @Test
+    @DisplayName("Generated 16 bit PCM, as the floating point detector")
+    void generatedKeys() {
+        for (int sampleRate : new int[] {8000, 11025, 22050, 44100}) {
+            DTMFGoertzel reference = new DTMFGoertzel(sampleRate, powerThreshold);
+            FixedPointDTMFGoertzel goertzel = new FixedPointDTMFGoertzel(sampleRate, powerThreshold);
+            DTMFGoertzel.Detection expected = new DTMFGoertzel.Detection();
+            FixedPointDTMFGoertzel.Result result = new FixedPointDTMFGoertzel.Result();
+            for (char key : "123A456B789C*0#D".toCharArray()) {
+                short[] samples = DTMF.generateTone(sampleRate, key, 100);
+                float[] floats = new float[samples.length];
+                for (int i = 0; i < samples.length; i++) floats[i] = samples[i] / 32767.0F;
+                boolean found = false;
+                for (int i = 0; i + binSize <= samples.length; i += binSize) {
+                    reference.keyFilter(floats, i, binSize, expected);
+                    goertzel.keyFilter(samples, i, binSize, result);
+                    assertEquals(expected.getDtmf(), result.getDtmf(), key + " at " + sampleRate + ", block at " + i);
+                    found |= result.getKey() == key;
+                }
+                assertTrue(found, key + " at " + sampleRate);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Keys and levels match the floating point detector")
+    void matchesFloatingPoint() {
+        for (String name : new String[] {"dtmf-1-2-#.wav", "dtmf-8-1-#-normalized.wav"}) {
+            double[] samples = new AudioWav(name).getSamples();
+            short[] pcm = new short[samples.length];
+            float[] floats = new float[samples.length];
+            for (int i = 0; i < samples.length; i++) {
+                pcm[i] = (short) Math.round(samples[i] * 32767.0D);
+                floats[i] = (float) samples[i];
+            }
+
+            DTMFGoertzel reference = new DTMFGoertzel(8000, powerThreshold);
+            FixedPointDTMFGoertzel goertzel = new FixedPointDTMFGoertzel(8000, powerThreshold);
+            DTMFGoertzel.Detection expected = new DTMFGoertzel.Detection();
+            FixedPointDTMFGoertzel.Result actual = new FixedPointDTMFGoertzel.Result();
+            int detected = 0;
+            for (int i = 0; i + binSize <= samples.length; i += binSize) {
+                reference.keyFilter(floats, i, binSize, expected);
+                goertzel.keyFilter(pcm, i, binSize, actual);
+                assertEquals(expected.getDtmf(), actual.getDtmf(), "block at " + i);
+                if (actual.isDetected()) detected++;
+                for (int j = 0; j < 4; j++) {
+                    if (expected.getRowPower(j) > 0) assertEquals(expected.getRowPower(j), actual.getRowPower(j), 0.05D);
+                    if (expected.getColumnPower(j) > 0) assertEquals(expected.getColumnPower(j), actual.getColumnPower(j), 0.05D);
+                }
+            }
+            assertTrue(detected > 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Direct ShortBuffer matches short[]")
+    void shortBuffer() throws Exception {
+        FixedPointDTMFGoertzel goertzel = new FixedPointDTMFGoertzel(8000, powerThreshold);
+        FixedPointDTMFGoertzel.Result expected = new FixedPointDTMFGoertzel.Result(), actual = new FixedPointDTMFGoertzel.Result();
+        try (WavFile wav = WavFile.open(WavFileTest.resource("dtmf-8000-16-mono-key-1-8000samples.wav"))) {
+            ShortBuffer mapped = wav.samples();
+            short[] pcm = new short[mapped.remaining()];
+            mapped.duplicate().get(pcm);
+            for (int i = 0; i + binSize <= pcm.length; i += binSize) {
+                goertzel.keyFilter(pcm, i, binSize, expected);
+                mapped.limit(i + binSize).position(i);
+                goertzel.keyFilter(mapped, actual);
+                assertEquals(i, mapped.position());
+                assertEquals(expected.getDtmf(), actual.getDtmf());
+                for (int j = 0; j < 4; j++) {
+                    assertEquals(expected.getRowMagnitude(j), actual.getRowMagnitude(j));
+                    assertEquals(expected.getColumnMagnitude(j), actual.getColumnMagnitude(j));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Silence")
+    void silence() {
+        FixedPointDTMFGoertzel goertzel = new FixedPointDTMFGoertzel(8000, powerThreshold);
+        FixedPointDTMFGoertzel.Result result = new FixedPointDTMFGoertzel.Result();
+        assertFalse(goertzel.keyFilter(new short[binSize], 0, binSize, result));
+        assertEquals('\0', result.getKey());
+        assertEquals(0, result.getHits());
+        assertTrue(Double.isNaN(result.getRowPower()));
+        assertEquals(Double.NEGATIVE_INFINITY, result.getRowPower(0));
+
+        int max = goertzel.getMaxBlockSize();
+        assertTrue(max > 8000 && new FixedPointDTMFGoertzel(44100, powerThreshold).getMaxBlockSize() > 44100);
+        assertThrows(IllegalArgumentException.class, () -> goertzel.keyFilter(new short[max + 1], 0, max + 1, result));
+    }
+}
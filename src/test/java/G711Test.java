@@ -0,0 +1,95 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class G711Test {
+
+    private int binSize = 256;
+
+    private static byte[] encode(G711 law, short[] pcm) {
+        byte[] result = new byte[pcm.length];
+        for (int i = 0; i < pcm.length; i++) result[i] = law.encode(pcm[i]);
+        return result;
+    }
+
+    @Test
+    @DisplayName("Reference code points")
+    void codePoints() {
+        assertEquals(0, G711.MU_LAW.decodeLinear((byte) 0xff));
+        assertEquals(-32124, G711.MU_LAW.decodeLinear((byte) 0x00));
+        assertEquals(32124, G711.MU_LAW.decodeLinear((byte) 0x80));
+        assertEquals(8, G711.A_LAW.decodeLinear((byte) 0xd5));
+        assertEquals(-8, G711.A_LAW.decodeLinear((byte) 0x55));
+        assertEquals(32256, G711.A_LAW.decodeLinear((byte) 0xaa));
+        assertEquals((byte) 0xff, G711.MU_LAW.encode((short) 0));
+        assertEquals((byte) 0xd5, G711.A_LAW.encode((short) 0));
+    }
+
+    @Test
+    @DisplayName("Every code survives decode and encode")
+    void roundTrip() {
+        for (G711 law : G711.values()) {
+            for (int code = 0; code < 256; code++) {
+                short linear = law.decodeLinear((byte) code);
+                if (law == G711.MU_LAW && linear == 0) continue; // 0x7f and 0xff both decode to 0
+                assertEquals((byte) code, law.encode(linear));
+                assertEquals(linear / 32767.0F, law.decode((byte) code));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Companded keyFilter agrees with decoded float keyFilter")
+    void companedKeyFilter() {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, 25.0D);
+        short[] pcm = DTMF.generateTone(8000, '6', 128);
+        for (G711 law : G711.values()) {
+            byte[] coded = encode(law, pcm);
+            float[] decoded = new float[coded.length];
+            for (int i = 0; i < coded.length; i++) decoded[i] = law.decode(coded[i]);
+
+            DTMFGoertzel.Detection fromBytes = new DTMFGoertzel.Detection();
+            DTMFGoertzel.Detection fromBuffer = new DTMFGoertzel.Detection();
+            DTMFGoertzel.Detection fromFloats = new DTMFGoertzel.Detection();
+            int detected = 0;
+            for (int i = 0; i + binSize <= coded.length; i += binSize) {
+                goertzel.keyFilter(coded, i, binSize, law, fromBytes);
+                goertzel.keyFilter(ByteBuffer.allocateDirect(binSize).put(coded, i, binSize).flip(), law, fromBuffer);
+                goertzel.keyFilter(decoded, i, binSize, fromFloats);
+                assertEquals(fromFloats.getDtmf(), fromBytes.getDtmf());
+                assertEquals(fromFloats.getDtmf(), fromBuffer.getDtmf());
+                for (int row = 0; row < 4; row++) {
+                    assertEquals(fromFloats.getRowPower(row), fromBytes.getRowPower(row));
+                    assertEquals(fromFloats.getRowPower(row), fromBuffer.getRowPower(row), 1e-9);
+                }
+                if (fromBytes.getKey() == '6') detected++;
+            }
+            assertTrue(detected > 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Streaming companded chunks")
+    void streamingCompanded() {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, 25.0D);
+        byte[] coded = encode(G711.A_LAW, DTMF.generateTone(8000, 'C', 200));
+        StringBuilder keys = new StringBuilder();
+        KeyTracker tracker = new KeyTracker(event -> {
+            if (event.getType() == KeyEvent.Type.DOWN) keys.append(event.getKey());
+        });
+        StreamingDTMFGoertzel streaming = new StreamingDTMFGoertzel(goertzel, binSize,
+                (offset, detection) -> tracker.update(offset, binSize, detection));
+
+        for (int i = 0; i < coded.length; i += 160) {
+            int len = Math.min(160, coded.length - i);
+            if ((i / 160) % 2 == 0) streaming.push(coded, i, len, G711.A_LAW);
+            else streaming.push(ByteBuffer.wrap(coded, i, len), G711.A_LAW);
+        }
+        tracker.finish();
+        assertEquals("C", keys.toString());
+    }
+}
@@ -0,0 +1,120 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GoertzelPlanTest {
+
+    @Test
+    @DisplayName("Plans are cached per configuration")
+    void plansAreShared() {
+        assertSame(GoertzelPlan.dtmf(8000), GoertzelPlan.dtmf(8000));
+        assertSame(GoertzelPlan.compile(8000, 350D, 440D), GoertzelPlan.compile(8000, 350D, 440D));
+        assertNotSame(GoertzelPlan.compile(8000, 350D, 440D), GoertzelPlan.compile(8000, 350D, 480D));
+        assertNotSame(GoertzelPlan.dtmf(8000), GoertzelPlan.dtmf(11025));
+        assertSame(GoertzelPlan.dtmf(8000), new DTMFGoertzel(8000, 25.0D).getPlan());
+    }
+
+    @Test
+    @DisplayName("Caller supplied tone set")
+    void customToneSet() {
+        float sampleRate = 8000;
+        GoertzelPlan plan = GoertzelPlan.compile(sampleRate, 350D, 440D, 480D, 620D); // call progress tones
+        float[] dialTone = AudioWav.toFloats(DTMF.generateCompositeTone(sampleRate, 32, 350D, 440D));
+
+        double[] powers = plan.powers(dialTone);
+        assertEquals(4, powers.length);
+        assertTrue(powers[0] > 25.0D && powers[1] > 25.0D);
+        assertTrue(powers[2] < powers[1] && powers[3] < powers[1]);
+    }
+
+    @Test
+    @DisplayName("Eight resonator kernel matches general kernel")
+    void unrolledKernelMatchesGeneral() {
+        float sampleRate = 8000;
+        GoertzelPlan dtmf = GoertzelPlan.dtmf(sampleRate);
+        GoertzelPlan rows = GoertzelPlan.compile(sampleRate, 697D, 770D, 852D, 941D);
+        GoertzelPlan cols = GoertzelPlan.compile(sampleRate, 1209D, 1336D, 1477D, 1633D);
+        float[] samples = AudioWav.toFloats(DTMF.generateCompositeTone(sampleRate, 32, 770D, 1477D));
+
+        double[] all = dtmf.powers(samples);
+        double[] rowPowers = rows.powers(samples);
+        double[] colPowers = cols.powers(samples);
+        for (int j = 0; j < 4; j++) {
+            assertEquals(rowPowers[j], all[j]);
+            assertEquals(colPowers[j], all[4 + j]);
+        }
+    }
+
+    @Test
+    @DisplayName("State of several streams side by side")
+    void stateOffsets() {
+        GoertzelPlan plan = GoertzelPlan.dtmf(8000);
+        float[] samples = AudioWav.toFloats(DTMF.generateCompositeTone(8000, 32, 941D, 1633D));
+
+        double[] state = new double[3 * plan.stateSize()];
+        plan.update(samples, 0, 100, state, plan.stateSize());          // first part of stream 1
+        plan.update(samples, 100, samples.length - 100, state, plan.stateSize());
+
+        double[] powers = new double[3 * plan.size()];
+        plan.powers(state, plan.stateSize(), powers, plan.size());
+        double[] expected = plan.powers(samples);
+        for (int j = 0; j < plan.size(); j++) assertEquals(expected[j], powers[plan.size() + j]);
+    }
+
+    @Test
+    @DisplayName("Two stream kernel matches scalar kernel")
+    void twoStreamKernelMatchesScalar() {
+        GoertzelPlan plan = GoertzelPlan.dtmf(8000);
+        Random random = new Random(3);
+        for (int stride : new int[] {1, 2, 5}) {
+            float[] samples = new float[1000 * stride], other = new float[1000 * stride];
+            for (int i = 0; i < samples.length; i++) samples[i] = (float) random.nextGaussian() * 0.5F;
+            for (int i = 0; i < other.length; i++) other[i] = (float) Math.sin(i * 0.7);
+
+            double[] expected = new double[3 * plan.stateSize()];
+            for (int i = 0; i < expected.length; i++) expected[i] = random.nextGaussian(); // carried over state
+            double[] actual = expected.clone();
+            int o = 2 * plan.stateSize(), p = plan.stateSize();
+
+            plan.update(samples, stride - 1, 997, stride, expected, o);
+            plan.update(other, 0, 997, stride, expected, p);
+            plan.update(samples, stride - 1, other, 0, 997, stride, actual, o, p);
+
+            for (int i = 0; i < actual.length; i++)
+                assertEquals(expected[i], actual[i], 0.0D, "stride " + stride + ", state " + i
+                        + (GoertzelPlan.isVectorized() ? " (vector kernel)" : " (scalar kernel)"));
+        }
+    }
+
+    @Test
+    @DisplayName("The Vector API kernel is built in and used where the build provides it")
+    void vectorKernelBuilt() throws ReflectiveOperationException {
+        if (!Boolean.getBoolean("goertzel.vector.required")) return; // built with -PvectorApi=false
+        Class<?> kernel = Class.forName("VectorGoertzelKernel");      // compiled, module resolved
+        try {
+            kernel.getDeclaredConstructor().newInstance();
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof UnsupportedOperationException, String.valueOf(e.getCause()));
+            return; // no 256 bit vectors on this platform
+        }
+        assertTrue(GoertzelPlan.isVectorized());
+    }
+
+    @Test
+    @DisplayName("Invalid configurations")
+    void invalidPlans() {
+        assertThrows(IllegalArgumentException.class, () -> GoertzelPlan.compile(8000));
+        assertThrows(IllegalArgumentException.class, () -> GoertzelPlan.compile(0, 697D));
+        assertThrows(IllegalArgumentException.class, () -> GoertzelPlan.compile(8000, 4000D));
+        assertThrows(IllegalArgumentException.class,
+                () -> new DTMFGoertzel(GoertzelPlan.compile(8000, 697D), 25.0D));
+    }
+}
@@ -0,0 +1,182 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyEventProcessorTest {
+
+    private static final int CHUNK = 160;
+
+    private final DTMFGoertzel goertzel = new DTMFGoertzel(8000, 25.0D);
+
+    // upstream which records the demand signalled to it
+    private static final class Upstream implements Flow.Subscription {
+        volatile long requested;
+        volatile boolean cancelled;
+
+        @Override
+        public synchronized void request(long n) { requested += n; }
+
+        @Override
+        public void cancel() { cancelled = true; }
+    }
+
+    // downstream which collects events, requesting initial at subscription
+    private static final class Collector implements Flow.Subscriber<KeyEvent> {
+        final List<KeyEvent> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final long initial;
+        volatile Flow.Subscription subscription;
+
+        Collector(long initial) { this.initial = initial; }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initial);
+        }
+
+        @Override
+        public void onNext(KeyEvent event) { events.add(event); }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() { done.countDown(); }
+
+        String keys() {
+            StringBuilder keys = new StringBuilder();
+            for (KeyEvent event : events)
+                if (event.getType() == KeyEvent.Type.DOWN) keys.append(event.getKey());
+            return keys.toString();
+        }
+    }
+
+    private static float[] samples() {
+        return new AudioWav("dtmf-8-1-#-normalized.wav").getFloatSamples();
+    }
+
+    // feeds the samples in chunks, never beyond the demand signalled upstream
+    private static void feed(KeyEventProcessor processor, Upstream upstream, float[] samples, int batch) {
+        long sent = 0;
+        for (int i = 0; i < samples.length; i += CHUNK, sent++) {
+            assertTrue(sent < upstream.requested, "chunk " + sent + " not requested");
+            assertTrue(upstream.requested - sent <= batch, "requested " + upstream.requested + " after " + sent);
+            processor.onNext(Arrays.copyOfRange(samples, i, Math.min(i + CHUNK, samples.length)));
+        }
+        processor.onComplete();
+    }
+
+    @Test
+    @DisplayName("Publishes presses and releases, requesting chunks in batches")
+    void publishes() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            KeyEventProcessor processor = new KeyEventProcessor(goertzel, 256, executor, 16, 4);
+            Collector collector = new Collector(Long.MAX_VALUE);
+            processor.subscribe(collector);
+            Upstream upstream = new Upstream();
+            processor.onSubscribe(upstream);
+            assertEquals(4L, upstream.requested);
+
+            Upstream second = new Upstream();
+            processor.onSubscribe(second);
+            assertTrue(second.cancelled);
+
+            feed(processor, upstream, samples(), 4);
+            assertTrue(collector.done.await(5, TimeUnit.SECONDS));
+            assertEquals(null, collector.error.get());
+            assertEquals("81#", collector.keys());
+            assertEquals(6, collector.events.size());
+            for (int i = 0; i < collector.events.size(); i += 2) {
+                assertEquals(KeyEvent.Type.DOWN, collector.events.get(i).getType());
+                assertEquals(KeyEvent.Type.UP, collector.events.get(i + 1).getType());
+            }
+
+            processor.onNext(new float[CHUNK]);
+            assertTrue(upstream.cancelled);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A subscriber without demand holds back the source")
+    void backpressure() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            KeyEventProcessor processor = new KeyEventProcessor(goertzel, 256, executor, 1, 2);
+            Collector collector = new Collector(1);
+            processor.subscribe(collector);
+            Upstream upstream = new Upstream();
+            processor.onSubscribe(upstream);
+
+            float[] samples = samples();
+            AtomicReference<Throwable> thrown = new AtomicReference<>();
+            Thread source = new Thread(() -> {
+                try {
+                    feed(processor, upstream, samples, 2);
+                } catch (Throwable t) {
+                    thrown.set(t);
+                }
+            });
+            source.start();
+
+            // the source blocks once the single buffered event is not taken
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (source.getState() != Thread.State.WAITING && source.isAlive() && System.nanoTime() < deadline)
+                Thread.sleep(5);
+            assertEquals(Thread.State.WAITING, source.getState());
+            assertTrue(collector.events.size() <= 1, "delivered " + collector.events.size());
+            assertTrue(upstream.requested * CHUNK < samples.length, "requested " + upstream.requested);
+
+            collector.subscription.request(Long.MAX_VALUE);
+            source.join(5000);
+            assertFalse(source.isAlive());
+            assertEquals(null, thrown.get());
+            assertTrue(collector.done.await(5, TimeUnit.SECONDS));
+            assertEquals("81#", collector.keys());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Errors upstream reach subscribers, and batches must be positive")
+    void errors() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            KeyEventProcessor processor = new KeyEventProcessor(goertzel, 256, executor, 16, 1);
+            Collector collector = new Collector(Long.MAX_VALUE);
+            processor.subscribe(collector);
+            processor.onSubscribe(new Upstream());
+            IllegalStateException failure = new IllegalStateException("source failed");
+            processor.onError(failure);
+            assertTrue(collector.done.await(5, TimeUnit.SECONDS));
+            assertEquals(failure, collector.error.get());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new KeyEventProcessor(goertzel, 256, Runnable::run, 16, 0));
+        assertEquals(KeyEventProcessor.DEFAULT_BATCH, new KeyEventProcessor(goertzel, 256).getBatch());
+    }
+}
@@ -0,0 +1,36 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeyTrackerTest {
+
+    private int binSize = 256;
+
+    @Test
+    @DisplayName("One press per tone, despite weak blocks")
+    void tracksTones() {
+        ArrayList<KeyEvent> events = new ArrayList<>();
+        KeyTracker tracker = new KeyTracker(events::add);
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, 25.0D);
+
+        StreamingDTMFGoertzel streaming = new StreamingDTMFGoertzel(goertzel, binSize,
+                (offset, detection) -> tracker.update(offset, binSize, detection));
+        streaming.push(new AudioWav("dtmf-8-1-#-normalized.wav").getFloatSamples());
+        tracker.finish();
+
+        StringBuilder keys = new StringBuilder();
+        for (KeyEvent event : events)
+            if (event.getType() == KeyEvent.Type.DOWN) keys.append(event.getKey());
+        assertEquals("81#", keys.toString());
+        assertEquals(6, events.size());
+        for (int i = 0; i < events.size(); i += 2) {
+            assertEquals(KeyEvent.Type.DOWN, events.get(i).getType());
+            assertEquals(KeyEvent.Type.UP, events.get(i + 1).getType());
+            assertEquals(events.get(i).getKey(), events.get(i + 1).getKey());
+            assertEquals(0, events.get(i).getSampleOffset() % binSize);
+        }
+    }
+}
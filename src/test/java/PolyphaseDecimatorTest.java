@@ -0,0 +1,94 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolyphaseDecimatorTest {
+
+    // gain of the decimator for a sine, in dB, measured after the filter has settled
+    private static double gainDb(PolyphaseDecimator decimator, double frequency) {
+        int length = (int) decimator.getInputRate();
+        float[] in = new float[length];
+        for (int i = 0; i < length; i++) in[i] = (float) Math.sin(2 * Math.PI * frequency * i / decimator.getInputRate());
+        float[] out = new float[decimator.getMaxOutput(length)];
+        int n = decimator.process(in, 0, length, out, 0);
+        double energy = 0;
+        int settled = decimator.getTaps() / decimator.getFactor() + 1;
+        for (int j = settled; j < n; j++) energy += out[j] * out[j];
+        return 10 * Math.log10(energy / (n - settled) / 0.5);
+    }
+
+    @Test
+    @DisplayName("Factor leaves at least 8 kHz")
+    void dtmfFactor() {
+        assertEquals(1, PolyphaseDecimator.dtmfFactor(8000));
+        assertEquals(2, PolyphaseDecimator.dtmfFactor(16000));
+        assertEquals(2, PolyphaseDecimator.dtmfFactor(22050));
+        assertEquals(5, PolyphaseDecimator.dtmfFactor(44100));
+        assertEquals(6, PolyphaseDecimator.dtmfFactor(48000));
+        assertEquals(12, PolyphaseDecimator.dtmfFactor(96000));
+        assertEquals(8820, PolyphaseDecimator.forDTMF(44100, 1).getOutputRate(), 1e-9);
+        assertEquals(1, PolyphaseDecimator.forDTMF(8000, 1).getTaps());
+    }
+
+    @Test
+    @DisplayName("DTMF frequencies pass, aliases are attenuated")
+    void frequencyResponse() {
+        for (double rate : new double[]{16000, 22050, 44100, 48000, 96000}) {
+            PolyphaseDecimator decimator = PolyphaseDecimator.forDTMF(rate, 1);
+            for (double frequency : new double[]{697, 1209, 1633}) {
+                decimator.reset();
+                double gain = gainDb(decimator, frequency);
+                assertTrue(Math.abs(gain) < 0.1, rate + " Hz: " + frequency + " Hz at " + gain + " dB");
+            }
+            // these would fold back onto 697 and 1633 Hz
+            for (double frequency : new double[]{decimator.getOutputRate() - 697, decimator.getOutputRate() - 1633,
+                    decimator.getOutputRate() + 1633}) {
+                decimator.reset();
+                double gain = gainDb(decimator, frequency);
+                assertTrue(gain < -45, rate + " Hz: " + frequency + " Hz at " + gain + " dB");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Output does not depend on chunk sizes")
+    void chunking() {
+        PolyphaseDecimator whole = PolyphaseDecimator.forDTMF(44100, 5), chunked = PolyphaseDecimator.forDTMF(44100, 5);
+        float[] in = new float[3 * PolyphaseDecimator.CHUNK + 123];
+        for (int i = 0; i < in.length; i++) in[i] = (float) (Math.sin(i * 0.1) + 0.3 * Math.sin(i * 1.3));
+
+        float[] expected = new float[whole.getMaxOutput(in.length)];
+        int n = whole.process(in, 0, in.length, expected, 0);
+        assertEquals((in.length + 4) / 5, n);
+
+        float[] actual = new float[expected.length];
+        int m = 0;
+        for (int i = 0, size = 1; i < in.length; i += size, size = size * 3 % 1001 + 1) {
+            int len = Math.min(size, in.length - i);
+            int written = chunked.process(in, i, len, actual, m);
+            assertTrue(written <= chunked.getMaxOutput(len));
+            m += written;
+        }
+        assertEquals(n, m);
+        assertArrayEquals(expected, actual);
+
+        chunked.reset();
+        float[] again = new float[expected.length];
+        assertEquals(n, chunked.process(in, 0, in.length, again, 0));
+        assertArrayEquals(expected, again);
+    }
+
+    @Test
+    @DisplayName("Illegal settings are rejected")
+    void illegalSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new PolyphaseDecimator(0, 2, 2000, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PolyphaseDecimator(44100, 0, 2000, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PolyphaseDecimator(44100, 12, 2000, 1));
+        PolyphaseDecimator decimator = PolyphaseDecimator.forDTMF(44100, 1);
+        assertThrows(IndexOutOfBoundsException.class, () -> decimator.process(new float[10], 5, 6, new float[10], 0));
+    }
+}
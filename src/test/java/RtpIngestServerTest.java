@@ -0,0 +1,119 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RtpIngestServerTest {
+
+    private static final int SAMPLES_PER_PACKET = 160; // 20 msec at 8 kHz
+
+    // RTP version 2, payload type 96 (dynamic L16), no CSRC, no extension
+    private static ByteBuffer packet(long ssrc, int sequence, short[] pcm, int off) {
+        return packet(ssrc, sequence, pcm, off, null);
+    }
+
+    // G.711 payload types 0 (PCMU) and 8 (PCMA) if law is given
+    private static ByteBuffer packet(long ssrc, int sequence, short[] pcm, int off, G711 law) {
+        int payloadType = law == null ? 96 : law == G711.MU_LAW ? 0 : 8;
+        ByteBuffer packet = ByteBuffer.allocate(RtpIngestServer.RTP_HEADER_SIZE + 2 * SAMPLES_PER_PACKET);
+        packet.put((byte) 0x80).put((byte) payloadType).putShort((short) sequence)
+              .putInt(sequence * SAMPLES_PER_PACKET).putInt((int) ssrc);
+        for (int i = 0; i < SAMPLES_PER_PACKET; i++) {
+            short sample = off + i < pcm.length ? pcm[off + i] : 0;
+            if (law == null) packet.putShort(sample);
+            else packet.put(law.encode(sample));
+        }
+        packet.flip();
+        return packet;
+    }
+
+    @Test
+    @DisplayName("Loopback sender, concurrent L16 and PCMU calls")
+    void loopback() throws IOException, InterruptedException {
+        List<String> presses = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> listeners = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch releases = new CountDownLatch(3);
+
+        DTMFGoertzel detector = new DTMFGoertzel(8000, 25.0D);
+        RtpIngestServer server = new RtpIngestServer(detector, 256, (ssrc, event) -> {
+            listeners.add(Thread.currentThread());
+            if (event.getType() == KeyEvent.Type.DOWN) presses.add(ssrc + ":" + event.getKey());
+            else releases.countDown();
+        }, 200, 1024);
+
+        try (DatagramChannel sender = DatagramChannel.open()) {
+            InetSocketAddress address = server.start(new InetSocketAddress("127.0.0.1", 0));
+
+            short[] five = DTMF.generateTone(8000, '5', 200);
+            short[] nine = DTMF.generateTone(8000, '9', 200);
+            short[] star = DTMF.generateTone(8000, '*', 200);
+            long callA = 0xCAFEBABEL, callB = 7, callC = 8;
+            for (int p = 0, off = 0; off < five.length; p++, off += SAMPLES_PER_PACKET) {
+                sender.send(packet(callA, p, five, off), address);
+                sender.send(packet(callB, p, nine, off), address);
+                sender.send(packet(callC, p, star, off, G711.MU_LAW), address);
+            }
+            for (int p = 0; p < 4; p++) // trailing silence releases the keys
+                sender.send(packet(callA, 100 + p, new short[0], 0), address);
+
+            assertTrue(releases.await(5, TimeUnit.SECONDS));
+            assertTrue(presses.contains(callA + ":5"));
+            assertTrue(presses.contains(callB + ":9"));
+            assertTrue(presses.contains(callC + ":*"));
+            assertEquals(3, presses.size());
+            assertEquals(0, server.getDroppedCount());
+            for (Thread thread : listeners) assertTrue(thread.isVirtual(), thread.toString()); // sessions' own threads
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Closing releases held keys, and delivers nothing after it returns")
+    void close() throws IOException, InterruptedException {
+        List<KeyEvent> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch pressed = new CountDownLatch(1);
+        RtpIngestServer server = new RtpIngestServer(new DTMFGoertzel(8000, 25.0D), 256, (ssrc, event) -> {
+            events.add(event);
+            pressed.countDown();
+        }, 60_000, 1024);
+
+        try (DatagramChannel sender = DatagramChannel.open()) {
+            InetSocketAddress address = server.start(new InetSocketAddress("127.0.0.1", 0));
+            short[] tone = DTMF.generateTone(8000, '7', 200);
+            for (int p = 0, off = 0; off < tone.length; p++, off += SAMPLES_PER_PACKET)
+                sender.send(packet(42, p, tone, off), address);
+            assertTrue(pressed.await(5, TimeUnit.SECONDS));
+        } finally {
+            server.close();
+        }
+        // the idle timeout is far off, so the release comes from close() itself
+        assertEquals(2, events.size());
+        assertEquals(KeyEvent.Type.UP, events.get(1).getType());
+        Thread.sleep(50);
+        assertEquals(2, events.size());
+        assertEquals(0, server.getSessionCount());
+    }
+
+    @Test
+    @DisplayName("Malformed packets are dropped")
+    void malformed() {
+        RtpIngestServer server = new RtpIngestServer(new DTMFGoertzel(8000, 25.0D), 256, (ssrc, event) -> { });
+        server.dispatch(ByteBuffer.wrap(new byte[4]));                            // too short
+        server.dispatch(ByteBuffer.wrap(new byte[RtpIngestServer.RTP_HEADER_SIZE])); // version 0
+        assertEquals(2, server.getPacketCount());
+        assertEquals(2, server.getDroppedCount());
+        assertEquals(0, server.getSessionCount());
+    }
+}
@@ -0,0 +1,219 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SampleRingTest {
+
+    @Test
+    @DisplayName("Claims and polls are contiguous, and wrap at the end of the buffer")
+    void claimAndPoll() {
+        SampleRing ring = new SampleRing(6, SampleRing.WaitStrategy.SPIN);
+        assertEquals(8, ring.getCapacity());
+        assertEquals(1, new SampleRing(1, SampleRing.WaitStrategy.SPIN).getCapacity());
+        FloatBuffer producer = ring.getBuffer(), consumer = ring.getBuffer();
+
+        assertEquals(5, ring.tryClaim(5));
+        for (int i = 0; i < 5; i++) producer.put(ring.getClaimOffset() + i, i);
+        assertThrows(IllegalArgumentException.class, () -> ring.commit(6));
+        ring.commit(5);
+        assertEquals(5, ring.getSize());
+        assertEquals(3, ring.tryClaim(10));               // up to the end of the buffer
+        ring.commit(0);
+
+        assertEquals(4, ring.poll(4));
+        assertEquals(0, ring.getPollOffset());
+        assertEquals(3F, consumer.get(3));
+        assertThrows(IllegalArgumentException.class, () -> ring.release(5));
+        ring.release(4);
+
+        assertEquals(3, ring.tryClaim(10));
+        assertEquals(5, ring.getClaimOffset());
+        for (int i = 0; i < 3; i++) producer.put(5 + i, 5 + i);
+        ring.commit(3);
+        assertEquals(4, ring.tryClaim(10));               // wrapped, up to the head
+        assertEquals(0, ring.getClaimOffset());
+        for (int i = 0; i < 4; i++) producer.put(i, 8 + i);
+        ring.commit(4);
+        assertEquals(0, ring.tryClaim(1));                // full
+        assertEquals(8, ring.getSize());
+
+        List<Float> read = new ArrayList<>();
+        for (int n; (n = ring.poll(100)) > 0; ring.release(n))
+            for (int i = 0; i < n; i++) read.add(consumer.get(ring.getPollOffset() + i));
+        assertEquals(List.of(4F, 5F, 6F, 7F, 8F, 9F, 10F, 11F), read);
+        assertEquals(0, ring.getSize());
+    }
+
+    @Test
+    @DisplayName("Offers commit all samples or none, and decode packets")
+    void offer() {
+        SampleRing ring = new SampleRing(8, SampleRing.WaitStrategy.SPIN);
+        FloatBuffer consumer = ring.getBuffer();
+        assertTrue(ring.offer(new float[] {9, 1, 2, 3, 4, 5, 9}, 1, 5));
+        assertFalse(ring.offer(new float[4], 0, 4));
+        assertEquals(5, ring.getSize());
+        assertEquals(5, ring.poll(5));
+        ring.release(5);
+
+        // L16 across the end of the buffer, then mu-law
+        ByteBuffer l16 = ByteBuffer.allocate(8).putShort((short) 32767).putShort((short) -16384)
+                .putShort((short) 0).putShort((short) 1).flip();
+        assertTrue(ring.offer(l16, null));
+        assertEquals(8, l16.position());
+        ByteBuffer mu = ByteBuffer.wrap(new byte[] {G711.MU_LAW.encode((short) 1000), G711.MU_LAW.encode((short) -8000)});
+        assertTrue(ring.offer(mu, G711.MU_LAW));
+        ByteBuffer late = ByteBuffer.allocate(6);
+        assertFalse(ring.offer(late, null));
+        assertEquals(0, late.position());
+
+        float[] expected = {1F, -16384 / 32767F, 0F, 1 / 32767F,
+                G711.MU_LAW.decode(G711.MU_LAW.encode((short) 1000)),
+                G711.MU_LAW.decode(G711.MU_LAW.encode((short) -8000))};
+        List<Float> read = new ArrayList<>();
+        for (int n; (n = ring.poll(100)) > 0; ring.release(n))
+            for (int i = 0; i < n; i++) read.add(consumer.get(ring.getPollOffset() + i));
+        assertEquals(expected.length, read.size());
+        for (int i = 0; i < expected.length; i++) assertEquals(expected[i], read.get(i).floatValue(), 1e-7);
+    }
+
+    @Test
+    @DisplayName("Closing lets the consumer drain, then ends the stream")
+    void close() throws InterruptedException {
+        SampleRing ring = new SampleRing(8, SampleRing.WaitStrategy.PARK);
+        assertEquals(0, ring.poll(8, 20, TimeUnit.MILLISECONDS));
+        assertTrue(ring.offer(new float[3], 0, 3));
+        ring.close();
+        assertThrows(IllegalStateException.class, () -> ring.tryClaim(1));
+        assertThrows(IllegalStateException.class, () -> ring.offer(new float[1], 0, 1));
+        assertEquals(3, ring.poll(8, 1, TimeUnit.SECONDS));
+        ring.release(3);
+        assertEquals(-1, ring.poll(8, 1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Waits time out, and give way to interrupts")
+    void waits() throws InterruptedException {
+        SampleRing ring = new SampleRing(4, SampleRing.WaitStrategy.PARK);
+        assertTrue(ring.offer(new float[4], 0, 4));
+        long start = System.nanoTime();
+        assertEquals(0, ring.claim(1, 30, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertFalse(ring.offer(new float[1], 0, 1, 10, TimeUnit.MILLISECONDS));
+        assertThrows(IllegalArgumentException.class, () -> ring.offer(new float[5], 0, 5, 10, TimeUnit.MILLISECONDS));
+
+        // a claim waits for room for all it asks for, an offer for room for all it holds
+        Thread consumer = new Thread(() -> {
+            for (int released = 0; released < 3; ) {
+                int n = ring.poll(1);
+                if (n == 0) Thread.onSpinWait();
+                else ring.release(n);
+                released += n;
+                LockSupport.parkNanos(5_000_000);
+            }
+        });
+        consumer.start();
+        assertEquals(3, ring.claim(3, 5, TimeUnit.SECONDS));
+        assertEquals(1, ring.getSize());
+        ring.commit(3);
+        consumer.join();
+        assertEquals(4, ring.getSize());
+
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread producer = new Thread(() -> {
+            try {
+                ring.claim(1, 1, TimeUnit.HOURS);
+            } catch (Throwable t) {
+                thrown.set(t);
+            }
+        });
+        producer.start();
+        Thread.sleep(50);
+        producer.interrupt();
+        producer.join(5000);
+        assertTrue(thrown.get() instanceof InterruptedException, String.valueOf(thrown.get()));
+    }
+
+    // a producer and a consumer thread pass a counting sequence through the ring
+    private static void transfer(SampleRing.WaitStrategy wait, int capacity, int total) throws InterruptedException {
+        SampleRing ring = new SampleRing(capacity, wait);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread producer = new Thread(() -> {
+            try {
+                FloatBuffer buffer = ring.getBuffer();
+                SplittableRandom random = new SplittableRandom(1);
+                for (int sent = 0; sent < total; ) {
+                    int n = ring.claim(Math.min(1 + random.nextInt(40), total - sent), 10, TimeUnit.SECONDS);
+                    assertTrue(n > 0, "timed out");
+                    for (int i = 0; i < n; i++) buffer.put(ring.getClaimOffset() + i, sent + i);
+                    ring.commit(n);
+                    sent += n;
+                }
+                ring.close();
+            } catch (Throwable t) {
+                thrown.set(t);
+            }
+        });
+        producer.start();
+
+        FloatBuffer buffer = ring.getBuffer();
+        SplittableRandom random = new SplittableRandom(2);
+        int received = 0;
+        for (int n; (n = ring.poll(1 + random.nextInt(50), 10, TimeUnit.SECONDS)) > 0; received += n) {
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(ring.getPollOffset() + i) != received + i)
+                    throw new AssertionError("sample " + (received + i) + " read as " + buffer.get(ring.getPollOffset() + i));
+            }
+            ring.release(n);
+        }
+        producer.join();
+        assertEquals(null, thrown.get());
+        assertEquals(total, received);
+    }
+
+    @Test
+    @DisplayName("Every sample arrives once, in order, spinning")
+    void transferSpinning() throws InterruptedException {
+        // a spinning side only yields its core when preempted, so wrap rarely on few cores
+        transfer(SampleRing.WaitStrategy.SPIN, 1 << 12, 1 << 18);
+    }
+
+    @Test
+    @DisplayName("Every sample arrives once, in order, parking")
+    void transferParking() throws InterruptedException {
+        transfer(SampleRing.WaitStrategy.PARK, 64, 1 << 21);
+    }
+
+    @Test
+    @DisplayName("Draining into a detector matches pushing the samples")
+    void drainTo() {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, 25.0D);
+        float[] samples = AudioWav.toFloats(DTMF.generateCompositeTone(8000, 2000, 941D, 1633D));
+
+        List<String> expected = new ArrayList<>(), blocks = new ArrayList<>();
+        new StreamingDTMFGoertzel(goertzel, 256, (offset, detection) -> expected.add(offset + ":" + detection)).push(samples);
+        StreamingDTMFGoertzel streaming = new StreamingDTMFGoertzel(goertzel, 256,
+                (offset, detection) -> blocks.add(offset + ":" + detection));
+        SampleRing ring = new SampleRing(500, SampleRing.WaitStrategy.SPIN);
+        for (int i = 0; i < samples.length; i += 160) {
+            assertTrue(ring.offer(samples, i, Math.min(160, samples.length - i)));
+            if (ring.getSize() > 300) assertEquals(ring.getSize(), ring.drainTo(streaming, Integer.MAX_VALUE));
+        }
+        ring.drainTo(streaming, Integer.MAX_VALUE);
+        assertEquals(0, ring.getSize());
+        assertEquals(expected, blocks);
+        assertTrue(blocks.get(3).contains("key=D"), blocks.get(3));
+    }
+}
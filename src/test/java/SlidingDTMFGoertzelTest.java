@@ -0,0 +1,101 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingDTMFGoertzelTest {
+
+    private int binSize = 256;
+    private double powerThreshold = 25.0D;
+
+    @Test
+    @DisplayName("Every window matches keyFilter on the same samples")
+    void slidingMatchesKeyFilter() {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, powerThreshold);
+        float[] samples = new AudioWav("dtmf-1-2-#.wav").getFloatSamples();
+        DTMFGoertzel.Detection expected = new DTMFGoertzel.Detection();
+        int[] reports = new int[1];
+
+        SlidingDTMFGoertzel sliding = new SlidingDTMFGoertzel(goertzel, binSize, 40, (offset, detection) -> {
+            reports[0]++;
+            goertzel.keyFilter(samples, (int) offset, binSize, expected);
+            assertEquals(expected.getDtmf(), detection.getDtmf(), "window at " + offset);
+            for (int j = 0; j < 4; j++) {
+                assertEquals(expected.getRowPower(j), detection.getRowPower(j), 1e-3);
+                assertEquals(expected.getColumnPower(j), detection.getColumnPower(j), 1e-3);
+            }
+        });
+        for (int i = 0; i < samples.length; i += 160)
+            sliding.push(samples, i, Math.min(160, samples.length - i));
+        assertEquals((samples.length - binSize) / 40 + 1, reports[0]);
+    }
+
+    @Test
+    @DisplayName("No drift over a long stream")
+    void noDrift() {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, powerThreshold);
+        float[] noise = new float[8000 * 60];
+        Random random = new Random(1);
+        for (int i = 0; i < noise.length; i++) noise[i] = (float) random.nextGaussian() * 0.3F;
+        float[] tone = AudioWav.toFloats(DTMF.generateCompositeTone(8000, 100, 770D, 1477D));
+        DTMFGoertzel.Detection last = new DTMFGoertzel.Detection();
+        long[] lastOffset = {-1};
+
+        SlidingDTMFGoertzel sliding = new SlidingDTMFGoertzel(goertzel, binSize, binSize, (offset, detection) -> {
+            lastOffset[0] = offset;
+            for (int j = 0; j < 4; j++) {
+                last.rowPowers[j] = detection.getRowPower(j);
+                last.colPowers[j] = detection.getColumnPower(j);
+            }
+        });
+        sliding.push(noise);
+        sliding.push(tone, 0, binSize);
+
+        assertEquals(noise.length, lastOffset[0]);
+        double[] powers = goertzel.getPlan().powers(Arrays.copyOf(tone, binSize));
+        for (int j = 0; j < 4; j++) {
+            assertEquals(powers[j], last.getRowPower(j), 1e-6);
+            assertEquals(powers[4 + j], last.getColumnPower(j), 1e-6);
+        }
+    }
+
+    @Test
+    @DisplayName("Hop of one, and lower latency than disjoint blocks")
+    void hopOfOne() {
+        float sampleRate = 8000;
+        DTMFGoertzel goertzel = new DTMFGoertzel(sampleRate, powerThreshold);
+        float[] samples = new float[2048];
+        float[] tone = AudioWav.toFloats(DTMF.generateCompositeTone(sampleRate, 100, 941D, 1336D));
+        int start = 300; // straddles the boundary of the second and third disjoint blocks
+        System.arraycopy(tone, 0, samples, start, 800);
+
+        ArrayList<Long> detected = new ArrayList<>();
+        int[] reports = new int[1];
+        SlidingDTMFGoertzel sliding = new SlidingDTMFGoertzel(goertzel, binSize, 1, (offset, detection) -> {
+            reports[0]++;
+            if (detection.getKey() == '0') detected.add(offset);
+        });
+        sliding.push(samples);
+
+        assertEquals(samples.length - binSize + 1, reports[0]);
+        assertTrue(!detected.isEmpty());
+        long latency = detected.get(0) + binSize - start; // samples from tone onset to decision
+        assertTrue(latency < binSize, "latency " + latency);
+    }
+
+    @Test
+    @DisplayName("Invalid arguments")
+    void invalidArguments() {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, powerThreshold);
+        assertThrows(IllegalArgumentException.class, () -> new SlidingDTMFGoertzel(goertzel, 0, 1, (o, d) -> { }));
+        assertThrows(IllegalArgumentException.class, () -> new SlidingDTMFGoertzel(goertzel, binSize, 0, (o, d) -> { }));
+        SlidingDTMFGoertzel sliding = new SlidingDTMFGoertzel(goertzel, binSize, 1, (o, d) -> { });
+        assertThrows(IndexOutOfBoundsException.class, () -> sliding.push(new float[10], 5, 10));
+    }
+}
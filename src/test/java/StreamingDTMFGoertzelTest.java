@@ -0,0 +1,118 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingDTMFGoertzelTest {
+
+    private int binSize = 256;
+    private double powerThreshold = 25.0D;
+
+    @Test
+    @DisplayName("Streaming matches keyFilter on packet sized chunks")
+    void streamingMatchesKeyFilter() {
+        float sampleRate = 8000;
+        DTMFGoertzel goertzel = new DTMFGoertzel(sampleRate, powerThreshold);
+        float[] samples = AudioWav.toFloats(DTMF.generateCompositeTone(sampleRate, 1024, 852D, 1336D));
+
+        ArrayList<Character> keys = new ArrayList<>();
+        ArrayList<Double> rowPowers = new ArrayList<>(), colPowers = new ArrayList<>();
+        ArrayList<Long> offsets = new ArrayList<>();
+        StreamingDTMFGoertzel streaming = new StreamingDTMFGoertzel(goertzel, binSize, (offset, detection) -> {
+            offsets.add(offset);
+            keys.add(detection.getKey());
+            rowPowers.add(detection.getRowPower());
+            colPowers.add(detection.getColumnPower());
+        });
+
+        for (int i = 0; i < samples.length; i += 160) // 20 msec packets at 8 kHz
+            streaming.push(samples, i, Math.min(160, samples.length - i));
+
+        assertEquals(samples.length / binSize, keys.size());
+        assertEquals(samples.length % binSize, streaming.getPending());
+        for (int b = 0; b < keys.size(); b++) {
+            assertEquals(b * (long) binSize, offsets.get(b).longValue());
+            ArrayList<DTMFGoertzel.PowerLevel> expected =
+                    goertzel.keyFilter(Arrays.copyOfRange(samples, b * binSize, (b + 1) * binSize));
+            if (expected.isEmpty()) {
+                assertEquals('\0', keys.get(b).charValue());
+                continue;
+            }
+            assertEquals('8', keys.get(b).charValue());
+            assertEquals(expected.get(0).getDtmf().getKey(), keys.get(b).charValue());
+            assertEquals(expected.get(0).getRowPower(), rowPowers.get(b).doubleValue());
+            assertEquals(expected.get(0).getColumnPower(), colPowers.get(b).doubleValue());
+        }
+    }
+
+    @Test
+    @DisplayName("Streaming DTMF 8-1-#-normalized, odd chunk sizes")
+    void streamingWav() {
+        boolean[] found = new boolean[3];
+
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, 25.0D);
+        float[] samples = new AudioWav("dtmf-8-1-#-normalized.wav").getFloatSamples();
+
+        StreamingDTMFGoertzel streaming = new StreamingDTMFGoertzel(goertzel, binSize, (offset, detection) -> {
+            if (detection.getKey() == '8') found[0] = true;
+            if (detection.getKey() == '1') found[1] = true;
+            if (detection.getKey() == '#') found[2] = true;
+        });
+
+        int[] chunkSizes = {1, 7, 160, 333, 1000};
+        for (int i = 0, c = 0; i < samples.length; c++) {
+            int len = Math.min(chunkSizes[c % chunkSizes.length], samples.length - i);
+            streaming.push(samples, i, len);
+            i += len;
+        }
+        assertTrue(found[0] && found[1] && found[2]);
+    }
+
+    @Test
+    @DisplayName("Reset discards partial block")
+    void streamingReset() {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, powerThreshold);
+        ArrayList<Long> offsets = new ArrayList<>();
+        StreamingDTMFGoertzel streaming = new StreamingDTMFGoertzel(goertzel, binSize, (offset, detection) -> offsets.add(offset));
+
+        streaming.push(new float[binSize + 10]);
+        assertEquals(10, streaming.getPending());
+        streaming.reset();
+        assertEquals(0, streaming.getPending());
+        streaming.push(new float[binSize]);
+        assertEquals(Arrays.asList(0L, 0L), offsets);
+    }
+
+    @Test
+    @DisplayName("FloatBuffers, heap and direct, are read in place like arrays")
+    void floatBuffers() {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, powerThreshold);
+        float[] samples = AudioWav.toFloats(DTMF.generateCompositeTone(8000, 1000, 770D, 1477D));
+        FloatBuffer direct = ByteBuffer.allocateDirect(4 * samples.length).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        direct.put(samples).clear();
+
+        List<String> expected = new ArrayList<>();
+        new StreamingDTMFGoertzel(goertzel, binSize, (offset, detection) -> expected.add(offset + ":" + detection))
+                .push(samples);
+        for (FloatBuffer buffer : new FloatBuffer[] {FloatBuffer.wrap(samples), direct}) {
+            List<String> blocks = new ArrayList<>();
+            StreamingDTMFGoertzel streaming = new StreamingDTMFGoertzel(goertzel, binSize,
+                    (offset, detection) -> blocks.add(offset + ":" + detection));
+            for (int i = 0; i < samples.length; i += 97) {
+                buffer.limit(Math.min(i + 97, samples.length)).position(i);
+                streaming.push(buffer);
+                assertEquals(buffer.limit(), buffer.position());
+            }
+            assertEquals(expected, blocks);
+            assertTrue(blocks.get(1).contains("key=6"), blocks.get(1));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ToneCacheTest {
+
+    private static short[] pcm(ByteBuffer tone) {
+        ShortBuffer samples = tone.asShortBuffer();
+        short[] result = new short[samples.remaining()];
+        samples.get(result);
+        return result;
+    }
+
+    @Test
+    @DisplayName("Cached tones equal DTMF.generateTone")
+    void matchesGenerateTone() {
+        ToneCache cache = new ToneCache(1 << 20);
+        for (int sampleRate : new int[] {8000, 16000, 44100}) {
+            for (char key : "159#D".toCharArray()) {
+                short[] expected = DTMF.generateTone(sampleRate, key, 70);
+                for (int i = 0; i < 2; i++) {
+                    ByteBuffer tone = cache.get(sampleRate, key, 70, 1.0D);
+                    assertTrue(tone.isDirect());
+                    assertTrue(tone.isReadOnly());
+                    assertEquals(0, tone.position());
+                    assertEquals(2 * expected.length, tone.remaining());
+                    short[] actual = pcm(tone);
+                    for (int j = 0; j < expected.length; j++) assertEquals(expected[j], actual[j]);
+                }
+            }
+        }
+        assertEquals(15, cache.getMisses());
+        assertEquals(15, cache.getHits());
+        assertEquals(0.5D, cache.getHitRatio());
+        assertEquals(15, cache.getSize());
+    }
+
+    @Test
+    @DisplayName("Views are independent and read-only")
+    void views() {
+        ToneCache cache = new ToneCache(1 << 20);
+        ByteBuffer a = cache.get(8000, '5', 100, 0.5D), b = cache.get(8000, '5', 100, 0.5D);
+        a.position(100);
+        assertEquals(0, b.position());
+        assertEquals(a.getShort(100), b.getShort(100));
+        assertThrows(ReadOnlyBufferException.class, () -> b.putShort(0, (short) 1));
+        assertTrue(Math.abs(a.getShort(100)) <= Math.round(0.5D * 32767));
+    }
+
+    @Test
+    @DisplayName("Least recently used tones are evicted")
+    void eviction() {
+        int size = 2 * 800;                            // 100 ms at 8 kHz
+        ToneCache cache = new ToneCache(3 * size);
+        cache.get(8000, '1', 100, 1.0D);
+        cache.get(8000, '2', 100, 1.0D);
+        cache.get(8000, '3', 100, 1.0D);
+        ByteBuffer held = cache.get(8000, '1', 100, 1.0D); // '1' most recently used
+        short[] expected = pcm(held);
+        cache.get(8000, '4', 100, 1.0D);                    // evicts '2'
+        assertEquals(3, cache.getSize());
+        assertEquals(3L * size, cache.getBytes());
+        assertEquals(1, cache.getEvictions());
+
+        long misses = cache.getMisses();
+        cache.get(8000, '1', 100, 1.0D);
+        cache.get(8000, '3', 100, 1.0D);
+        assertEquals(misses, cache.getMisses());
+        cache.get(8000, '2', 100, 1.0D);
+        assertEquals(misses + 1, cache.getMisses());
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getBytes());
+        short[] actual = pcm(held);                         // views outlive eviction
+        for (int i = 0; i < expected.length; i++) assertEquals(expected[i], actual[i]);
+
+        ByteBuffer large = cache.get(8000, '1', 1000, 1.0D); // larger than the cache
+        assertEquals(16000, large.remaining());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    @DisplayName("Concurrent senders share the cache")
+    void concurrent() throws Exception {
+        ToneCache cache = new ToneCache(1 << 20);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(pool.submit(() -> {
+                    long sum = 0;
+                    for (int i = 0; i < 2000; i++) {
+                        ByteBuffer tone = cache.get(8000, "0123456789*#ABCD".charAt(i % 16), 50, 1.0D);
+                        sum += tone.getShort(2 * 17);
+                    }
+                    return sum;
+                }));
+            }
+            long expected = results.get(0).get();
+            for (Future<Long> result : results) assertEquals(expected, result.get().longValue());
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(16, cache.getSize());
+        assertEquals(8 * 2000, cache.getHits() + cache.getMisses());
+        assertTrue(cache.getMisses() >= 16);
+        assertTrue(cache.getHitRatio() > 0.9, cache.toString());
+    }
+
+    @Test
+    @DisplayName("Unknown keys are refused")
+    void unknownKey() {
+        assertThrows(NullPointerException.class, () -> new ToneCache(1024).get(8000, 'E', 100, 1.0D));
+        assertThrows(IllegalArgumentException.class, () -> new ToneCache(0));
+    }
+}
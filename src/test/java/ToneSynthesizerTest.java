@@ -0,0 +1,86 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ToneSynthesizerTest {
+
+    // the sum of sines per sample, as DTMF generated tones before ToneSynthesizer
+    private static double reference(double sampleRate, long sample, double... frequencies) {
+        double sum = 0;
+        for (double f : frequencies) sum += Math.sin(2 * Math.PI * f * sample / sampleRate);
+        return sum / frequencies.length;
+    }
+
+    @Test
+    @DisplayName("Oscillators match Math.sin")
+    void matchesSine() {
+        for (float sampleRate : new float[] {8000, 11025, 22050, 44100}) {
+            double[] tone = DTMF.generateCompositeTone(sampleRate, 1000, 697D, 1209D);
+            assertEquals((int) sampleRate, tone.length);
+            for (int i = 0; i < tone.length; i++)
+                assertEquals(reference(sampleRate, i, 697D, 1209D), tone[i], 1e-9);
+        }
+    }
+
+    @Test
+    @DisplayName("Chunked output continues seamlessly, and stays accurate for an hour")
+    void longChunkedStream() {
+        double sampleRate = 8000;
+        ToneSynthesizer synthesizer = ToneSynthesizer.forKey(sampleRate, '5', 1.0D);
+        float[] chunk = new float[160];
+        long samples = 3600L * 8000;
+        double maxError = 0;
+        for (long n = 0; n < samples; n += chunk.length) {
+            synthesizer.generate(chunk, 0, chunk.length);
+            if (n % 800_000 == 0 || n + chunk.length >= samples)
+                for (int i = 0; i < chunk.length; i++)
+                    maxError = Math.max(maxError, Math.abs(chunk[i] - reference(sampleRate, n + i, 770D, 1336D)));
+        }
+        assertEquals(samples, synthesizer.getPosition());
+        assertTrue(maxError < 1e-5, "max error " + maxError);
+    }
+
+    @Test
+    @DisplayName("16 bit PCM, into arrays and direct buffers")
+    void pcm() {
+        short[] expected = DTMF.generateTone(8000, '#', 100);
+        assertEquals(800, expected.length);
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(Math.round(reference(8000, i, 941D, 1477D) * 32767.0D), expected[i], 1);
+
+        ToneSynthesizer synthesizer = ToneSynthesizer.forKey(8000, '#', 1.0D);
+        ShortBuffer direct = ByteBuffer.allocateDirect(2 * expected.length).asShortBuffer();
+        direct.limit(300);
+        assertEquals(300, synthesizer.generate(direct));
+        direct.limit(direct.capacity());
+        assertEquals(500, synthesizer.generate(direct));
+        for (int i = 0; i < expected.length; i++) assertEquals(expected[i], direct.get(i));
+
+        short[] loud = new short[100];
+        new ToneSynthesizer(8000, 4.0D, 1000D).generate(loud, 0, loud.length);
+        assertEquals(Short.MAX_VALUE, loud[2]); // clipped
+    }
+
+    @Test
+    @DisplayName("Detected by DTMFGoertzel")
+    void detected() {
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, 25.0D);
+        ToneSynthesizer synthesizer = ToneSynthesizer.forKey(8000, 'C', 0.5D);
+        float[] block = new float[256];
+        boolean found = false;
+        for (int i = 0; i < 8; i++) {
+            synthesizer.generate(block, 0, block.length);
+            for (DTMFGoertzel.PowerLevel level : goertzel.keyFilter(block))
+                found |= level.getDtmf().getKey() == 'C';
+        }
+        assertTrue(found);
+        assertThrows(NullPointerException.class, () -> ToneSynthesizer.forKey(8000, 'X', 1.0D));
+        assertThrows(IndexOutOfBoundsException.class, () -> synthesizer.generate(block, 200, 100));
+    }
+}
@@ -0,0 +1,129 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WavDecoderTest {
+
+    @TempDir
+    Path tmp;
+
+    // writes samples[channel][frame] (full scale +-1) as integer PCM, with a LIST chunk before fmt
+    // and a fact chunk of odd length before data
+    private Path write(String name, int bits, float[][] samples) throws IOException {
+        int channels = samples.length, frames = samples[0].length, bytes = bits / 8;
+        int dataLength = frames * channels * bytes;
+        ByteBuffer buf = ByteBuffer.allocate(12 + 18 + 24 + 15 + 1 + 8 + dataLength).order(ByteOrder.LITTLE_ENDIAN);
+        buf.put("RIFF".getBytes()).putInt(buf.capacity() - 8).put("WAVE".getBytes());
+        buf.put("LIST".getBytes()).putInt(10).put("INFOISFT\0\0".getBytes());
+        buf.put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) channels).putInt(8000)
+           .putInt(8000 * channels * bytes).putShort((short) (channels * bytes)).putShort((short) bits);
+        buf.put("fact".getBytes()).putInt(7).put(new byte[7]).put((byte) 0); // odd size, padded
+        buf.put("data".getBytes()).putInt(dataLength);
+        for (int i = 0; i < frames; i++) {
+            for (int c = 0; c < channels; c++) {
+                float v = samples[c][i];
+                if (bits == 8) buf.put((byte) (Math.round(v * 127) + 128));
+                else if (bits == 16) buf.putShort((short) Math.round(v * 32767));
+                else {
+                    int s = Math.round(v * 8388607);
+                    buf.put((byte) s).put((byte) (s >> 8)).put((byte) (s >> 16));
+                }
+            }
+        }
+        Path path = tmp.resolve(name);
+        Files.write(path, buf.array());
+        return path;
+    }
+
+    private static float[] tone(char key, int msecs) {
+        short[] pcm = DTMF.generateTone(8000, key, msecs);
+        float[] result = new float[pcm.length];
+        for (int i = 0; i < pcm.length; i++) result[i] = pcm[i] / 32767.0F;
+        return result;
+    }
+
+    @Test
+    @DisplayName("8, 16 and 24 bit stereo, per channel and downmixed")
+    void decodeFormats() throws IOException {
+        float[] left = tone('4', 100), right = tone('D', 100);
+        for (int bits : new int[]{8, 16, 24}) {
+            Path path = write("stereo-" + bits + ".wav", bits, new float[][]{left, right});
+            float tolerance = bits == 8 ? 1 / 100.0F : 1 / 30000.0F;
+
+            try (WavDecoder decoder = WavDecoder.open(path, 100)) { // tiny buffer: many refills
+                assertEquals(2, decoder.getFormat().getChannels());
+                assertEquals(left.length, decoder.getFormat().getFrameCount());
+                float[][] channels = new float[2][left.length];
+                assertEquals(left.length, decoder.read(channels, 0, left.length + 10));
+                for (int i = 0; i < left.length; i++) {
+                    assertEquals(left[i], channels[0][i], tolerance);
+                    assertEquals(right[i], channels[1][i], tolerance);
+                }
+                assertEquals(0, decoder.read(channels, 0, 1));
+            }
+
+            try (WavDecoder decoder = WavDecoder.open(path)) {
+                float[] mono = new float[left.length];
+                assertEquals(left.length, decoder.read(mono, 0, mono.length));
+                for (int i = 0; i < mono.length; i++)
+                    assertEquals((left[i] + right[i]) / 2, mono[i], tolerance);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Per-channel scan detects both keys")
+    void scanChannels() throws IOException {
+        float[] left = tone('4', 200), right = tone('D', 200);
+        Path path = write("stereo-scan.wav", 16, new float[][]{left, right});
+
+        StringBuilder[] keys = {new StringBuilder(), new StringBuilder()};
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, 25.0D);
+        StreamingDTMFGoertzel[] streaming = new StreamingDTMFGoertzel[2];
+        KeyTracker[] trackers = new KeyTracker[2];
+        for (int c = 0; c < 2; c++) {
+            StringBuilder sb = keys[c];
+            KeyTracker tracker = trackers[c] = new KeyTracker(event -> {
+                if (event.getType() == KeyEvent.Type.DOWN) sb.append(event.getKey());
+            });
+            streaming[c] = new StreamingDTMFGoertzel(goertzel, 256, (offset, detection) -> tracker.update(offset, 256, detection));
+        }
+        try (WavDecoder decoder = WavDecoder.open(path, 1000)) {
+            decoder.scan(streaming);
+        }
+        for (KeyTracker tracker : trackers) tracker.finish();
+        assertEquals("4", keys[0].toString());
+        assertEquals("D", keys[1].toString());
+    }
+
+    @Test
+    @DisplayName("Matches AudioWav on test resources")
+    void matchesAudioWav() throws IOException, URISyntaxException {
+        double[] expected = new AudioWav("dtmf-8-1-#.wav").getSamples();
+        try (WavDecoder decoder = WavDecoder.open(WavFileTest.resource("dtmf-8-1-#.wav"), 512)) {
+            float[] samples = new float[expected.length + 1];
+            assertEquals(expected.length, decoder.read(samples, 0, samples.length));
+            for (int i = 0; i < expected.length; i++) assertEquals((float) expected[i], samples[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Not a WAVE file")
+    void notWave() throws IOException {
+        Path path = tmp.resolve("noise.wav");
+        Files.write(path, new byte[64]);
+        assertThrows(IOException.class, () -> WavDecoder.open(path));
+        assertTrue(Files.exists(path));
+    }
+}
@@ -0,0 +1,66 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WavFileTest {
+
+    static Path resource(String name) throws URISyntaxException {
+        return Paths.get(WavFileTest.class.getClassLoader().getResource(name).toURI());
+    }
+
+    @Test
+    @DisplayName("Mapped samples match AudioWav")
+    void matchesAudioWav() throws IOException, URISyntaxException {
+        String[] names = {"dtmf-1-2-#.wav", "dtmf-8-1-#-normalized.wav", "silence-8000-16-mono-200samples.wav"};
+        for (String name : names) {
+            double[] expected = new AudioWav(name).getSamples();
+            try (WavFile wav = WavFile.open(resource(name))) {
+                assertEquals(1, wav.getFormat().getChannels());
+                assertEquals(8000, wav.getFormat().getSampleRate());
+                float[] samples = wav.readAll();
+                assertEquals(expected.length, samples.length);
+                for (int i = 0; i < samples.length; i++) assertEquals((float) expected[i], samples[i]);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Piecewise reads through one scratch buffer match readAll")
+    void readWithScratch() throws IOException, URISyntaxException {
+        try (WavFile wav = WavFile.open(resource("dtmf-8-1-#-normalized.wav"))) {
+            float[] expected = wav.readAll();
+            float[] samples = new float[expected.length];
+            short[] scratch = new short[7];
+            int length = 0;
+            for (int r; (r = wav.read(length, samples, length, 100, scratch)) > 0; ) length += r;
+            assertEquals(expected.length, length);
+            assertEquals(0, wav.read(length, samples, 0, 100, scratch));
+            for (int i = 0; i < samples.length; i++) assertEquals(expected[i], samples[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Scan DTMF 1-2-# through streaming detector")
+    void scan() throws IOException, URISyntaxException {
+        StringBuilder keys = new StringBuilder();
+        KeyTracker tracker = new KeyTracker(event -> {
+            if (event.getType() == KeyEvent.Type.DOWN) keys.append(event.getKey());
+        });
+        DTMFGoertzel goertzel = new DTMFGoertzel(8000, 25.0D);
+        StreamingDTMFGoertzel streaming = new StreamingDTMFGoertzel(goertzel, 256,
+                (offset, detection) -> tracker.update(offset, 256, detection));
+
+        try (WavFile wav = WavFile.open(resource("dtmf-1-2-#-normalized.wav"))) {
+            wav.scan(streaming);
+        }
+        tracker.finish();
+        assertTrue(keys.toString().startsWith("12"), keys.toString());
+    }
+}
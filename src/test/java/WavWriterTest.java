@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WavWriterTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    @DisplayName("Frames written are read back by WavDecoder")
+    void roundTrip() throws IOException {
+        int frames = 5000;
+        float[][] samples = new float[2][frames];
+        for (int i = 0; i < frames; i++) {
+            samples[0][i] = (float) Math.sin(i / 10.0);
+            samples[1][i] = i % 2 == 0 ? 1.5F : -1.5F; // clipped
+        }
+        Path path = tmp.resolve("stereo.wav");
+        try (WavWriter writer = WavWriter.create(path, 8000, 2, 100)) { // tiny buffer: many flushes
+            writer.write(samples, 0, 3000);
+            writer.write(new short[] {1, -1, 2, -2}, 0, 2);
+            writer.write(samples, 3000, frames - 3000);
+            assertEquals(frames + 2, writer.getFrameCount());
+        }
+        assertEquals(WavWriter.HEADER_SIZE + 4L * (frames + 2), Files.size(path));
+
+        try (WavDecoder decoder = WavDecoder.open(path)) {
+            WavFormat format = decoder.getFormat();
+            assertEquals(8000, format.getSampleRate());
+            assertEquals(2, format.getChannels());
+            assertEquals(16, format.getBitsPerSample());
+            assertEquals(frames + 2, format.getFrameCount());
+
+            float[][] read = new float[2][frames + 2];
+            assertEquals(frames + 2, decoder.read(read, 0, frames + 10));
+            for (int i = 0; i < frames; i++) {
+                int j = i < 3000 ? i : i + 2;
+                assertEquals(samples[0][i], read[0][j], 1 / 30000.0F);
+                assertEquals(samples[1][i] > 0 ? 1.0F : -32768 / 32767.0F, read[1][j], 1 / 30000.0F);
+            }
+            assertEquals(1 / 32767.0F, read[0][3000], 1e-9F);
+            assertEquals(-2 / 32767.0F, read[1][3001], 1e-9F);
+        }
+    }
+
+    @Test
+    @DisplayName("Header sizes are completed on close")
+    void headerSizes() throws IOException {
+        Path path = tmp.resolve("mono.wav");
+        try (WavWriter writer = WavWriter.create(path, 44100, 1)) {
+            writer.write(new short[441], 0, 441);
+        }
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(36 + 882, header.getInt(4));
+        assertEquals(44100, header.getInt(24));
+        assertEquals(88200, header.getInt(28));
+        assertEquals(882, header.getInt(40));
+    }
+
+    @Test
+    @DisplayName("Closed writers and mismatched channels are refused")
+    void misuse() throws IOException {
+        WavWriter writer = WavWriter.create(tmp.resolve("closed.wav"), 8000, 2);
+        assertThrows(IllegalArgumentException.class, () -> writer.write(new float[1][10], 0, 10));
+        assertThrows(IndexOutOfBoundsException.class, () -> writer.write(new short[10], 0, 6));
+        writer.close();
+        writer.close();
+        assertThrows(IOException.class, () -> writer.write(new short[2], 0, 1));
+    }
+}